@@ -0,0 +1,85 @@
+package fr.insee.vtl.engine.processors;
+
+import fr.insee.vtl.engine.VtlScriptEngine;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scaling of the in-memory engine with the number of threads.
+ * <p>
+ * A parallelism of 0 runs the sequential engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InMemoryProcessingEngineBenchmark {
+
+    @Param({"0", "1", "2", "4", "8", "16", "32"})
+    private int parallelism;
+
+    @Param({"1000000"})
+    private int size;
+
+    private VtlScriptEngine engine;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<List<Object>> data = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            data.add(List.of("id" + i, i % 100, (double) i));
+        }
+        var dataset = new InMemoryDataset(data, List.of(
+                new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                new Structured.Component("grp", Long.class, Dataset.Role.MEASURE),
+                new Structured.Component("amount", Double.class, Dataset.Role.MEASURE)
+        ));
+        engine = (VtlScriptEngine) new ScriptEngineManager().getEngineByName("vtl");
+        engine.put("ds", dataset);
+        if (parallelism > 0) {
+            pool = new ForkJoinPool(parallelism);
+            engine.put(VtlScriptEngine.PROCESSING_ENGINE_PARALLELISM, pool);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Object filterCalc() throws ScriptException {
+        return engine.eval("res := ds[filter amount > 10.0][calc ratio := amount / (grp + 1)];");
+    }
+
+    @Benchmark
+    public Object aggr() throws ScriptException {
+        return engine.eval("res := ds[aggr s := sum(amount), m := max(amount) group by grp];");
+    }
+}
@@ -0,0 +1,107 @@
+package fr.insee.vtl.engine;
+
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import static fr.insee.vtl.engine.VtlScriptEngine.CURRENT_DATE;
+
+/**
+ * The bindings seen by one evaluation of a script.
+ * <p>
+ * This is a view of the bindings of the caller in which {@link VtlScriptEngine#CURRENT_DATE} is fixed for the whole
+ * evaluation: it is the instant bound by the caller when the evaluation starts, or the current instant. The instant
+ * is never written to the bindings of the caller, so evaluations sharing the same bindings each keep their own date.
+ * The other names are read from and assigned to the bindings of the caller.
+ */
+final class EvaluationBindings extends AbstractMap<String, Object> {
+
+    private final Map<String, Object> bindings;
+    private final Instant currentDate;
+
+    /**
+     * Constructor taking the bindings of the caller.
+     *
+     * @param bindings The bindings of the caller.
+     */
+    EvaluationBindings(Map<String, Object> bindings) {
+        this.bindings = Objects.requireNonNull(bindings);
+        Object bound = bindings.get(CURRENT_DATE);
+        this.currentDate = bound instanceof Instant ? (Instant) bound : Instant.now();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return CURRENT_DATE.equals(key) || bindings.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return CURRENT_DATE.equals(key) ? currentDate : bindings.get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (CURRENT_DATE.equals(key)) {
+            throw new UnsupportedOperationException(CURRENT_DATE + " is fixed during an evaluation");
+        }
+        return bindings.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (CURRENT_DATE.equals(key)) {
+            throw new UnsupportedOperationException(CURRENT_DATE + " is fixed during an evaluation");
+        }
+        return bindings.remove(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                var entries = bindings.entrySet().iterator();
+                return new Iterator<>() {
+                    private boolean dateReturned;
+                    private Entry<String, Object> next;
+
+                    @Override
+                    public boolean hasNext() {
+                        while (next == null && entries.hasNext()) {
+                            var entry = entries.next();
+                            if (!CURRENT_DATE.equals(entry.getKey())) {
+                                next = new SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+                            }
+                        }
+                        return next != null || !dateReturned;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        if (next != null) {
+                            var entry = next;
+                            next = null;
+                            return entry;
+                        }
+                        dateReturned = true;
+                        return new SimpleImmutableEntry<>(CURRENT_DATE, currentDate);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return bindings.containsKey(CURRENT_DATE) ? bindings.size() : bindings.size() + 1;
+            }
+        };
+    }
+}
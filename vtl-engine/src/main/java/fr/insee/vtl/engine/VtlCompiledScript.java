@@ -0,0 +1,305 @@
+package fr.insee.vtl.engine;
+
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.engine.processors.InMemoryProcessingEngine;
+import fr.insee.vtl.engine.visitors.AssignmentVisitor;
+import fr.insee.vtl.engine.visitors.expression.ExpressionVisitor;
+import fr.insee.vtl.model.ConstantExpression;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.DatasetExpression;
+import fr.insee.vtl.model.ProcessingEngine;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.StreamDataset;
+import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.model.exceptions.VtlScriptException;
+import fr.insee.vtl.parser.VtlLexer;
+import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+
+import static fr.insee.vtl.engine.VtlScriptEngine.fromContext;
+
+/**
+ * Compiled VTL script returned by {@link VtlScriptEngine#compile(String)}.
+ * <p>
+ * The script is parsed once. The first evaluation then visits the statements into a plan of expressions, resolving
+ * the types and the methods, and the plan is reused by the following evaluations with bindings of the same shape:
+ * datasets with the same structures and scalars of the same types. Datasets and scalars are read from the bindings
+ * of each evaluation, so a script can be run on new data or parameters without being visited again. Results that
+ * are not constant, like <code>current_date</code>, are computed at each evaluation and read from the bindings as
+ * well.
+ * <p>
+ * The plans are immutable and an evaluation only writes to its own bindings, so a compiled script can be evaluated
+ * concurrently. Processing engines other than the in-memory one read their datasets while the script is visited, so
+ * for them only the parsing is shared and the statements are visited at each evaluation.
+ */
+final class VtlCompiledScript extends CompiledScript {
+
+    private static final int MAX_PLANS = 16;
+    private static final Object ABSENT = new Object();
+
+    private final VtlScriptEngine engine;
+    private final VtlParser.StartContext start;
+    private final Set<String> identifiers;
+    private final Map<List<Object>, Plan> plans = Collections.synchronizedMap(
+            new LinkedHashMap<>(MAX_PLANS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, Plan> eldest) {
+                    return size() > MAX_PLANS;
+                }
+            });
+
+    VtlCompiledScript(VtlScriptEngine engine, VtlParser.StartContext start) {
+        this.engine = engine;
+        this.start = start;
+        this.identifiers = new LinkedHashSet<>();
+        collectIdentifiers(start, identifiers);
+    }
+
+    private static String assignedName(VtlParser.StatementContext stmt) {
+        if (stmt instanceof VtlParser.TemporaryAssignmentContext) {
+            return ((VtlParser.TemporaryAssignmentContext) stmt).varID().getText();
+        }
+        if (stmt instanceof VtlParser.DefineExpressionContext) {
+            var definition = ((VtlParser.DefineExpressionContext) stmt).defOperators();
+            if (definition instanceof VtlParser.DefDatapointRulesetContext) {
+                return ((VtlParser.DefDatapointRulesetContext) definition).rulesetID().getText();
+            }
+        }
+        return null;
+    }
+
+    private static void collectIdentifiers(ParseTree tree, Set<String> identifiers) {
+        if (tree instanceof TerminalNode) {
+            if (((TerminalNode) tree).getSymbol().getType() == VtlLexer.IDENTIFIER) {
+                identifiers.add(tree.getText());
+            }
+            return;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            collectIdentifiers(tree.getChild(i), identifiers);
+        }
+    }
+
+    /**
+     * Returns the part of a binding the plan depends on: the ordered components of a dataset, the type of a scalar
+     * or the identity of any other object.
+     */
+    private static Object shapeOf(Object value) {
+        if (value instanceof Dataset) {
+            return new ArrayList<>(((Dataset) value).getDataStructure().values());
+        }
+        if (value == null) {
+            return null;
+        }
+        if (isScalar(value)) {
+            return value.getClass();
+        }
+        return new Identity(value);
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof java.time.temporal.Temporal;
+    }
+
+    /**
+     * Returns an expression reading a scalar from the bindings, with the numeric conversions of
+     * {@link fr.insee.vtl.engine.visitors.expression.VarIdVisitor}.
+     */
+    private static ResolvableExpression boundScalar(String name, Class<?> type, ParseTree tree) {
+        if (Integer.class.equals(type)) {
+            return bound(name, Long.class, tree, value -> value == null ? null : ((Integer) value).longValue());
+        }
+        if (Float.class.equals(type)) {
+            return bound(name, Double.class, tree, value -> value == null ? null : ((Float) value).doubleValue());
+        }
+        return bound(name, type, tree, value -> value);
+    }
+
+    private static DatasetExpression bound(String name, Structured.DataStructure structure, ParseTree tree) {
+        return new DatasetExpression(fromContext(tree)) {
+            @Override
+            public Dataset resolve(Map<String, Object> context) {
+                return (Dataset) context.get(name);
+            }
+
+            @Override
+            public Structured.DataStructure getDataStructure() {
+                return structure;
+            }
+        };
+    }
+
+    private static ResolvableExpression bound(String name, Class<?> type, ParseTree tree) {
+        return bound(name, type, tree, value -> value);
+    }
+
+    private static ResolvableExpression bound(String name, Class<?> type, ParseTree tree,
+                                              UnaryOperator<Object> conversion) {
+        return new ResolvableExpression(fromContext(tree)) {
+            @Override
+            public Object resolve(Map<String, Object> context) {
+                return conversion.apply(context.get(name));
+            }
+
+            @Override
+            public Class<?> getType() {
+                return type;
+            }
+        };
+    }
+
+    @Override
+    public Object eval(ScriptContext context) throws VtlScriptException {
+        Map<String, Object> bindings = new EvaluationBindings(context.getBindings(ScriptContext.ENGINE_SCOPE));
+        try {
+            // The settings are read from the context of the evaluation, the same way for the engine and the key.
+            String processingEngineName = engine.getProcessingEngineName(context);
+            ProcessingEngine processingEngine = engine.getProcessingEngine(processingEngineName, context);
+            if (!(processingEngine instanceof InMemoryProcessingEngine)) {
+                AssignmentVisitor assignmentVisitor = new AssignmentVisitor(engine, processingEngine, bindings);
+                Object lastValue = null;
+                for (VtlParser.StatementContext stmt : start.statement()) {
+                    lastValue = assignmentVisitor.visit(stmt);
+                }
+                return lastValue;
+            }
+            List<Object> key = shapeOf(bindings, processingEngineName, engine.getForkJoinPool(context).orElse(null),
+                    engine.getApproximateMedianCapacity(context));
+            Plan plan = plans.get(key);
+            if (plan == null) {
+                plan = new Plan(processingEngine, bindings);
+                plans.put(key, plan);
+            }
+            return plan.execute(bindings);
+        } catch (VtlRuntimeException vre) {
+            throw vre.getCause();
+        }
+    }
+
+    private List<Object> shapeOf(Map<String, Object> bindings, String processingEngineName, ForkJoinPool pool,
+                                 int medianCapacity) {
+        List<Object> key = new ArrayList<>(identifiers.size() + 3);
+        key.add(processingEngineName);
+        key.add(pool);
+        key.add(medianCapacity);
+        for (String identifier : identifiers) {
+            key.add(bindings.containsKey(identifier) ? shapeOf(bindings.get(identifier)) : ABSENT);
+        }
+        return key;
+    }
+
+    @Override
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Reference compared by identity, for bindings whose equality is unknown.
+     */
+    private static final class Identity {
+        private final Object value;
+
+        Identity(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+
+    /**
+     * The statements of the script visited against the shape of the bindings. Dataset variables are bound to
+     * expressions reading them from the bindings, constant scalar results are computed once.
+     */
+    private final class Plan {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<ResolvableExpression> expressions = new ArrayList<>();
+
+        Plan(ProcessingEngine processingEngine, Map<String, Object> bindings) {
+            Map<String, Object> context = new HashMap<>();
+            for (String identifier : identifiers) {
+                if (!bindings.containsKey(identifier)) {
+                    continue;
+                }
+                Object value = bindings.get(identifier);
+                if (value instanceof Dataset) {
+                    context.put(identifier, bound(identifier, ((Dataset) value).getDataStructure(), start));
+                } else if (isScalar(value)) {
+                    // Only the type of the scalar is part of the key of the plan.
+                    context.put(identifier, boundScalar(identifier, value.getClass(), start));
+                } else {
+                    context.put(identifier, value);
+                }
+            }
+            ExpressionVisitor expressionVisitor = new ExpressionVisitor(context, processingEngine, engine);
+            AssignmentVisitor assignmentVisitor = new AssignmentVisitor(engine, processingEngine, context);
+            for (VtlParser.StatementContext stmt : start.statement()) {
+                String name;
+                ResolvableExpression expression;
+                if (stmt instanceof VtlParser.TemporaryAssignmentContext) {
+                    var assignment = (VtlParser.TemporaryAssignmentContext) stmt;
+                    name = assignment.varID().getText();
+                    expression = expressionVisitor.visit(assignment.expr());
+                    if (expression instanceof DatasetExpression) {
+                        context.put(name, bound(name, ((DatasetExpression) expression).getDataStructure(), stmt));
+                    } else if (expression instanceof ConstantExpression) {
+                        // Folded from the literals of the script.
+                        context.put(name, expression.resolve(context));
+                    } else {
+                        context.put(name, bound(name, expression.getType(), stmt));
+                    }
+                } else {
+                    // Definitions do not depend on the bindings.
+                    name = assignedName(stmt);
+                    expression = constant(assignmentVisitor.visit(stmt), stmt);
+                }
+                names.add(name);
+                expressions.add(expression);
+            }
+        }
+
+        private ResolvableExpression constant(Object value, ParseTree tree) {
+            return ResolvableExpression.withType(Object.class)
+                    .withPosition(fromContext(tree))
+                    .using(c -> value);
+        }
+
+        Object execute(Map<String, Object> bindings) {
+            Object lastValue = null;
+            for (int i = 0; i < expressions.size(); i++) {
+                lastValue = expressions.get(i).resolve(bindings);
+                if (lastValue instanceof StreamDataset) {
+                    lastValue = ((StreamDataset) lastValue).materialize();
+                }
+                if (names.get(i) != null) {
+                    bindings.put(names.get(i), lastValue);
+                }
+            }
+            return lastValue;
+        }
+    }
+}
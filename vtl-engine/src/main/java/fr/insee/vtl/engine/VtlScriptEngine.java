@@ -11,19 +11,25 @@ import fr.insee.vtl.model.VtlMethod;
 import fr.insee.vtl.model.exceptions.VtlScriptException;
 import fr.insee.vtl.parser.VtlLexer;
 import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CodePointCharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
 import javax.script.AbstractScriptEngine;
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
@@ -49,6 +55,7 @@ import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -66,15 +73,49 @@ import static fr.insee.vtl.engine.VtlNativeMethods.NATIVE_METHODS;
  * VTL expressions can be evaluated using the methods:
  * {@link #eval(Reader)}, {@link #eval(Reader, ScriptContext)},
  * {@link #eval(String)} and {@link #eval(String, ScriptContext)}
+ * <p>
+ * Scripts that are evaluated many times can be compiled once with {@link #compile(String)} or
+ * {@link #compile(Reader)}.
  */
-public class VtlScriptEngine extends AbstractScriptEngine {
+public class VtlScriptEngine extends AbstractScriptEngine implements Compilable {
 
     /**
      * Script engine property giving the (comma-separated) list of engine names.
      */
     public static final String PROCESSING_ENGINE_NAMES = "$vtl.engine.processing_engine_names";
 
+    /**
+     * Script engine property enabling the parallel execution of the in-memory processing engine. The value is either
+     * a boolean, to use the common fork join pool, or a dedicated {@link ForkJoinPool}.
+     */
+    public static final String PROCESSING_ENGINE_PARALLELISM = "$vtl.engine.processing_engine_parallelism";
+
+    /**
+     * Script engine property giving the number of parsed scripts kept in cache. The cache is disabled by default.
+     */
+    public static final String PARSE_CACHE_SIZE = "$vtl.engine.parse_cache_size";
+
+    /**
+     * Script engine property making the in-memory processing engine approximate <code>median</code> in bounded
+     * memory instead of keeping every value of a group. The value is either <code>true</code>, to keep
+     * {@value #DEFAULT_APPROXIMATE_MEDIAN_CAPACITY} values per level of the sketch, or the number of values per level.
+     */
+    public static final String APPROXIMATE_MEDIAN = "$vtl.engine.approximate_median";
+
+    /**
+     * Number of values per level of the median sketch when {@link #APPROXIMATE_MEDIAN} is <code>true</code>.
+     */
+    public static final int DEFAULT_APPROXIMATE_MEDIAN_CAPACITY = 1024;
+
+    /**
+     * Binding giving the instant returned by <code>current_date</code>. Every use of <code>current_date</code> in an
+     * evaluation, including on each row of a dataset, returns the instant bound when the evaluation starts, or the
+     * current instant if none is bound. The engine never writes this binding.
+     */
+    public static final String CURRENT_DATE = "$vtl.engine.current_date";
+
     private final ScriptEngineFactory factory;
+    private final Map<String, VtlParser.StartContext> parseCache = new LinkedHashMap<>(16, 0.75f, true);
     private Map<String, Method> methodCache;
 
     private Map<String, Method> globalMethodCache;
@@ -177,12 +218,28 @@ public class VtlScriptEngine extends AbstractScriptEngine {
     }
 
     /**
-     * Returns the name of the engine to use.
+     * Returns the value of a setting in a given context.
+     * <p>
+     * The attribute of the context is used if present, in any scope, so that each evaluation can have its own
+     * settings. Otherwise the value put on the script engine itself is used.
+     *
+     * @param name    The name of the setting.
+     * @param context The context of the evaluation.
+     * @return The value of the setting, or null if it is not set.
+     */
+    Object getSetting(String name, ScriptContext context) {
+        Object value = context.getAttribute(name);
+        return value != null ? value : get(name);
+    }
+
+    /**
+     * Returns the name of the engine to use in a given context.
      *
+     * @param context The context of the evaluation.
      * @return The names of the engine to use.
      */
-    private String getProcessingEngineName() {
-        Object engineName = Optional.ofNullable(get(PROCESSING_ENGINE_NAMES))
+    String getProcessingEngineName(ScriptContext context) {
+        Object engineName = Optional.ofNullable(getSetting(PROCESSING_ENGINE_NAMES, context))
                 .orElse("memory");
         if (engineName instanceof String) {
             return (String) engineName;
@@ -191,70 +248,213 @@ public class VtlScriptEngine extends AbstractScriptEngine {
         }
     }
 
+    /**
+     * Returns the pool to use for parallel execution, if enabled.
+     *
+     * @return The fork join pool, or an empty optional for sequential execution.
+     */
+    public Optional<ForkJoinPool> getForkJoinPool() {
+        return getForkJoinPool(getContext());
+    }
+
+    /**
+     * Returns the pool to use for parallel execution in a given context, if enabled.
+     *
+     * @param context The context of the evaluation.
+     * @return The fork join pool, or an empty optional for sequential execution.
+     */
+    public Optional<ForkJoinPool> getForkJoinPool(ScriptContext context) {
+        Object parallelism = getSetting(PROCESSING_ENGINE_PARALLELISM, context);
+        if (parallelism == null || Boolean.FALSE.equals(parallelism) || "false".equals(parallelism)) {
+            return Optional.empty();
+        } else if (Boolean.TRUE.equals(parallelism) || "true".equals(parallelism)) {
+            return Optional.of(ForkJoinPool.commonPool());
+        } else if (parallelism instanceof ForkJoinPool) {
+            return Optional.of((ForkJoinPool) parallelism);
+        } else {
+            throw new IllegalArgumentException(PROCESSING_ENGINE_PARALLELISM + " must be a boolean or a ForkJoinPool");
+        }
+    }
+
+    /**
+     * Returns the capacity of the median sketch to use in a given context, if enabled.
+     *
+     * @param context The context of the evaluation.
+     * @return The number of values per level of the sketch, or 0 for the exact median.
+     */
+    public int getApproximateMedianCapacity(ScriptContext context) {
+        Object capacity = getSetting(APPROXIMATE_MEDIAN, context);
+        if (capacity == null || Boolean.FALSE.equals(capacity) || "false".equals(capacity)) {
+            return 0;
+        } else if (Boolean.TRUE.equals(capacity) || "true".equals(capacity)) {
+            return DEFAULT_APPROXIMATE_MEDIAN_CAPACITY;
+        } else if (capacity instanceof Number && ((Number) capacity).intValue() >= 2) {
+            return ((Number) capacity).intValue();
+        } else {
+            throw new IllegalArgumentException(APPROXIMATE_MEDIAN + " must be a boolean or a number greater than 1");
+        }
+    }
+
     /**
      * Returns an instance of the processing engine for the script engine.
      *
      * @return an instance of the processing engine for the script engine.
      */
     public ProcessingEngine getProcessingEngine() {
-        String name = getProcessingEngineName();
+        return getProcessingEngine(getContext());
+    }
+
+    /**
+     * Returns an instance of the processing engine for an evaluation in a given context.
+     *
+     * @param context The context of the evaluation.
+     * @return an instance of the processing engine for the context.
+     */
+    public ProcessingEngine getProcessingEngine(ScriptContext context) {
+        return getProcessingEngine(getProcessingEngineName(context), context);
+    }
+
+    /**
+     * Returns an instance of the named processing engine for an evaluation in a given context.
+     */
+    ProcessingEngine getProcessingEngine(String name, ScriptContext context) {
         Optional<ProcessingEngineFactory> factory = ServiceLoader.load(ProcessingEngineFactory.class)
                 .stream()
                 .map(ServiceLoader.Provider::get)
                 .filter(f -> f.getName().equals(name))
                 .findFirst();
-        return factory.orElseThrow().getProcessingEngine(this);
+        return factory.orElseThrow().getProcessingEngine(this, context);
     }
 
     /**
-     * Base method for the evaluation of a script expression in a given context.
+     * Returns the number of parsed scripts to keep in cache in a given context.
      *
-     * @param stream  The script to evaluate represented as a stream of Unicode code points.
-     * @param context The evaluation context (for example: data bindings).
-     * @return The result of the evaluation of the script in the given context.
-     * @throws VtlScriptException In case of error during the evaluation.
+     * @param context The context of the evaluation.
+     * @return The size of the cache, 0 if disabled.
      */
-    private Object evalStream(CodePointCharStream stream, ScriptContext context) throws VtlScriptException {
-        try {
-            VtlLexer lexer = new VtlLexer(stream);
-
-            Deque<VtlScriptException> errors = new ArrayDeque<>();
-            BaseErrorListener baseErrorListener = new BaseErrorListener() {
-                @Override
-                public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int startLine, int startColumn, String msg, RecognitionException e) {
-                    if (e != null && e.getCtx() != null) {
-                        errors.add(new VtlScriptException(msg, fromContext(e.getCtx())));
+    private int getParseCacheSize(ScriptContext context) {
+        Object size = getSetting(PARSE_CACHE_SIZE, context);
+        if (size == null) {
+            return 0;
+        } else if (size instanceof Number) {
+            return ((Number) size).intValue();
+        } else if (size instanceof String) {
+            return Integer.parseInt((String) size);
+        } else {
+            throw new IllegalArgumentException(PARSE_CACHE_SIZE + " must be a number");
+        }
+    }
+
+    /**
+     * Parses a script, reusing the parse tree of an identical script when the cache is enabled.
+     *
+     * @param stream  The script to parse represented as a stream of Unicode code points.
+     * @param context The context the size of the cache is read from.
+     * @return The parse tree of the script.
+     * @throws VtlScriptException In case of syntax error.
+     * @see #PARSE_CACHE_SIZE
+     */
+    private VtlParser.StartContext parse(CodePointCharStream stream, ScriptContext context) throws VtlScriptException {
+        int cacheSize = getParseCacheSize(context);
+        if (cacheSize <= 0) {
+            return parseStream(stream);
+        }
+        String script = stream.toString();
+        synchronized (parseCache) {
+            var start = parseCache.get(script);
+            if (start != null) {
+                return start;
+            }
+        }
+        var start = parseStream(stream);
+        synchronized (parseCache) {
+            parseCache.put(script, start);
+            var iterator = parseCache.keySet().iterator();
+            while (parseCache.size() > cacheSize) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Parses a script and reports the syntax errors.
+     * <p>
+     * The script is first parsed with the faster SLL prediction mode, which stops at the first error. Since SLL can
+     * fail on valid input, the script is then parsed again with the full LL prediction mode, which also reports the
+     * syntax errors.
+     *
+     * @param stream The script to parse represented as a stream of Unicode code points.
+     * @return The parse tree of the script.
+     * @throws VtlScriptException In case of syntax error, the other errors are added as suppressed exceptions.
+     */
+    private VtlParser.StartContext parseStream(CodePointCharStream stream) throws VtlScriptException {
+        VtlLexer lexer = new VtlLexer(stream);
+
+        Deque<VtlScriptException> errors = new ArrayDeque<>();
+        BaseErrorListener baseErrorListener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int startLine, int startColumn, String msg, RecognitionException e) {
+                if (e != null && e.getCtx() != null) {
+                    errors.add(new VtlScriptException(msg, fromContext(e.getCtx())));
+                } else {
+                    if (offendingSymbol instanceof Token) {
+                        errors.add(new VtlSyntaxException(msg, fromToken((Token) offendingSymbol)));
                     } else {
-                        if (offendingSymbol instanceof Token) {
-                            errors.add(new VtlSyntaxException(msg, fromToken((Token) offendingSymbol)));
-                        } else {
-                            throw new Error("offendingSymbol was not a Token");
-                        }
+                        throw new Error("offendingSymbol was not a Token");
                     }
                 }
+            }
 
-            };
+        };
 
-            lexer.removeErrorListeners();
-            lexer.addErrorListener(baseErrorListener);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(baseErrorListener);
 
-            VtlParser parser = new VtlParser(new CommonTokenStream(lexer));
-            parser.removeErrorListeners();
-            parser.addErrorListener(baseErrorListener);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        VtlParser parser = new VtlParser(tokens);
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
 
+        VtlParser.StartContext start;
+        try {
+            start = parser.start();
+        } catch (ParseCancellationException sllFailure) {
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(baseErrorListener);
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.setErrorHandler(new DefaultErrorStrategy());
             // Note that we need to call this method to trigger the
             // error listener.
-            var start = parser.start();
+            start = parser.start();
+        }
 
-            if (!errors.isEmpty()) {
-                var first = errors.removeFirst();
-                for (VtlScriptException suppressed : errors) {
-                    first.addSuppressed(suppressed);
-                }
-                throw first;
+        if (!errors.isEmpty()) {
+            var first = errors.removeFirst();
+            for (VtlScriptException suppressed : errors) {
+                first.addSuppressed(suppressed);
             }
+            throw first;
+        }
+        return start;
+    }
 
-            AssignmentVisitor assignmentVisitor = new AssignmentVisitor(this, getProcessingEngine());
+    /**
+     * Base method for the evaluation of a script expression in a given context.
+     *
+     * @param stream  The script to evaluate represented as a stream of Unicode code points.
+     * @param context The evaluation context (for example: data bindings).
+     * @return The result of the evaluation of the script in the given context.
+     * @throws VtlScriptException In case of error during the evaluation.
+     */
+    private Object evalStream(CodePointCharStream stream, ScriptContext context) throws VtlScriptException {
+        var start = parse(stream, context);
+        Map<String, Object> bindings = new EvaluationBindings(context.getBindings(ScriptContext.ENGINE_SCOPE));
+        try {
+            AssignmentVisitor assignmentVisitor = new AssignmentVisitor(this, getProcessingEngine(context), bindings);
             Object lastValue = null;
             for (VtlParser.StatementContext stmt : start.statement()) {
                 lastValue = assignmentVisitor.visit(stmt);
@@ -297,6 +497,36 @@ public class VtlScriptEngine extends AbstractScriptEngine {
         }
     }
 
+    /**
+     * Compiles a script (represented as a string) for repeated evaluation.
+     *
+     * @param script The script to compile represented as a string.
+     * @return The compiled script.
+     * @throws VtlScriptException In case of syntax error.
+     * @see VtlCompiledScript
+     */
+    @Override
+    public CompiledScript compile(String script) throws VtlScriptException {
+        return new VtlCompiledScript(this, parse(CharStreams.fromString(script), getContext()));
+    }
+
+    /**
+     * Compiles a script (read in a <code>Reader</code>) for repeated evaluation.
+     *
+     * @param reader The <code>Reader</code> containing the script to compile.
+     * @return The compiled script.
+     * @throws ScriptException In case of syntax error.
+     * @see VtlCompiledScript
+     */
+    @Override
+    public CompiledScript compile(Reader reader) throws ScriptException {
+        try {
+            return new VtlCompiledScript(this, parse(CharStreams.fromReader(reader), getContext()));
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+    }
+
     /**
      * Returns a new instance of script context bindings.
      *
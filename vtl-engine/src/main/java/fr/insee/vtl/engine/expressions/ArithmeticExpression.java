@@ -0,0 +1,126 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.model.exceptions.VtlScriptException;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An arithmetic operation on two numeric expressions.
+ * <p>
+ * When both operands are <code>Long</code> (and the operation is not a division) the computation is done on
+ * <code>long</code> values, otherwise on <code>double</code> values.
+ */
+public class ArithmeticExpression extends ResolvableExpression {
+
+    private final Operator operator;
+    private final ResolvableExpression left;
+    private final ResolvableExpression right;
+    private final boolean longOperation;
+
+    public ArithmeticExpression(Operator operator, ResolvableExpression left, ResolvableExpression right, Positioned position) {
+        super(position);
+        this.operator = Objects.requireNonNull(operator);
+        this.left = Objects.requireNonNull(left);
+        this.right = Objects.requireNonNull(right);
+        this.longOperation = operator != Operator.DIVISION
+                && Long.class.equals(left.getType())
+                && Long.class.equals(right.getType());
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        return apply(left.resolve(context), right.resolve(context));
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        return apply(left.resolve(dataPoint, context), right.resolve(dataPoint, context));
+    }
+
+    private Object apply(Object leftValue, Object rightValue) {
+        if (leftValue == null || rightValue == null) {
+            return null;
+        }
+        try {
+            if (longOperation) {
+                return operator.apply((long) (Long) leftValue, (long) (Long) rightValue);
+            }
+            return operator.apply(((Number) leftValue).doubleValue(), ((Number) rightValue).doubleValue());
+        } catch (ClassCastException cce) {
+            throw new VtlRuntimeException(new VtlScriptException(cce, this));
+        }
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public ResolvableExpression getLeft() {
+        return left;
+    }
+
+    public ResolvableExpression getRight() {
+        return right;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return longOperation ? Long.class : Double.class;
+    }
+
+    public enum Operator {
+        ADDITION {
+            @Override
+            long apply(long left, long right) {
+                return left + right;
+            }
+
+            @Override
+            double apply(double left, double right) {
+                return left + right;
+            }
+        },
+        SUBTRACTION {
+            @Override
+            long apply(long left, long right) {
+                return left - right;
+            }
+
+            @Override
+            double apply(double left, double right) {
+                return left - right;
+            }
+        },
+        MULTIPLICATION {
+            @Override
+            long apply(long left, long right) {
+                return left * right;
+            }
+
+            @Override
+            double apply(double left, double right) {
+                return left * right;
+            }
+        },
+        DIVISION {
+            @Override
+            long apply(long left, long right) {
+                throw new UnsupportedOperationException("division is always computed on double values");
+            }
+
+            @Override
+            double apply(double left, double right) {
+                return left / right;
+            }
+        };
+
+        abstract long apply(long left, long right);
+
+        abstract double apply(double left, double right);
+    }
+}
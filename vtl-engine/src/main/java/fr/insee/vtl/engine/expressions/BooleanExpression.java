@@ -0,0 +1,118 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.engine.visitors.expression.BooleanVisitor;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.model.exceptions.VtlScriptException;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A boolean operation (and, or, xor) on two boolean expressions.
+ */
+public class BooleanExpression extends ResolvableExpression {
+
+    private final Operator operator;
+    private final ResolvableExpression left;
+    private final ResolvableExpression right;
+
+    public BooleanExpression(Operator operator, ResolvableExpression left, ResolvableExpression right, Positioned position) {
+        super(position);
+        this.operator = Objects.requireNonNull(operator);
+        this.left = Objects.requireNonNull(left);
+        this.right = Objects.requireNonNull(right);
+    }
+
+    /**
+     * Resolves the expression. The right operand is not evaluated when the left one determines the result:
+     * <code>false and x</code> is false and <code>true or x</code> is true, whatever the value of x (null included).
+     */
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        Boolean leftValue = toBoolean(left.resolve(context));
+        if (operator.isDeterminedBy(leftValue)) {
+            return leftValue;
+        }
+        return operator.apply(leftValue, toBoolean(right.resolve(context)));
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        Boolean leftValue = toBoolean(left.resolve(dataPoint, context));
+        if (operator.isDeterminedBy(leftValue)) {
+            return leftValue;
+        }
+        return operator.apply(leftValue, toBoolean(right.resolve(dataPoint, context)));
+    }
+
+    private Boolean toBoolean(Object value) {
+        try {
+            return (Boolean) value;
+        } catch (ClassCastException cce) {
+            throw new VtlRuntimeException(new VtlScriptException(cce, this));
+        }
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public ResolvableExpression getLeft() {
+        return left;
+    }
+
+    public ResolvableExpression getRight() {
+        return right;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return Boolean.class;
+    }
+
+    public enum Operator {
+        AND {
+            @Override
+            boolean isDeterminedBy(Boolean left) {
+                return Boolean.FALSE.equals(left);
+            }
+
+            @Override
+            Boolean apply(Boolean left, Boolean right) {
+                return BooleanVisitor.and(left, right);
+            }
+        },
+        OR {
+            @Override
+            boolean isDeterminedBy(Boolean left) {
+                return Boolean.TRUE.equals(left);
+            }
+
+            @Override
+            Boolean apply(Boolean left, Boolean right) {
+                return BooleanVisitor.or(left, right);
+            }
+        },
+        XOR {
+            @Override
+            boolean isDeterminedBy(Boolean left) {
+                return false;
+            }
+
+            @Override
+            Boolean apply(Boolean left, Boolean right) {
+                return BooleanVisitor.xor(left, right);
+            }
+        };
+
+        /**
+         * Returns true if the result of the operation is the left value, whatever the right value.
+         */
+        abstract boolean isDeterminedBy(Boolean left);
+
+        abstract Boolean apply(Boolean left, Boolean right);
+    }
+}
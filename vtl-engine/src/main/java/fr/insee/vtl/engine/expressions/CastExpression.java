@@ -5,6 +5,7 @@ import fr.insee.vtl.model.Positioned;
 import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.model.exceptions.VtlScriptException;
 
+import java.io.Serializable;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -16,6 +17,8 @@ import java.util.Map;
 public class CastExpression extends ResolvableExpression {
 
     private final Class<?> target;
+    private final ResolvableExpression operand;
+    private final String mask;
     private final ResolvableExpression expr;
 
     private final String isNotSupported = " is not supported";
@@ -23,6 +26,8 @@ public class CastExpression extends ResolvableExpression {
     public CastExpression(Positioned position, ResolvableExpression expr, String mask, Class<?> target) throws VtlScriptException {
         super(position);
         this.target = target;
+        this.operand = expr;
+        this.mask = mask;
         var source = expr.getType();
         if (source.equals(target)) {
             this.expr = expr;
@@ -100,6 +105,7 @@ public class CastExpression extends ResolvableExpression {
 
     private ResolvableExpression castInstant(ResolvableExpression expr, String mask) {
         var outputClass = getType();
+        var formatter = new Mask(mask, false);
         if (outputClass.equals(String.class))
             return ResolvableExpression.withType(String.class).withPosition(expr).using(context -> {
 
@@ -111,8 +117,7 @@ public class CastExpression extends ResolvableExpression {
                     exprValue = (Instant) value;
                 }
                 if (exprValue == null) return null;
-                DateTimeFormatter maskFormatter = DateTimeFormatter.ofPattern(mask);
-                return maskFormatter.format(exprValue.atOffset(ZoneOffset.UTC));
+                return formatter.get().format(exprValue.atOffset(ZoneOffset.UTC));
             });
         throw new ClassCastException("Cast Date to " + outputClass + isNotSupported);
     }
@@ -142,6 +147,7 @@ public class CastExpression extends ResolvableExpression {
 
     private ResolvableExpression castString(ResolvableExpression expr, String mask) {
         var outputClass = getType();
+        var formatter = new Mask(mask, true);
         if (outputClass.equals(Long.class))
             return ResolvableExpression.withType(Long.class).withPosition(expr).using(context -> {
                 String exprValue = (String) expr.resolve(context);
@@ -168,7 +174,7 @@ public class CastExpression extends ResolvableExpression {
                 // The spec is pretty vague about date and time. Apparently, date is a point in time so a good java
                 // representation is Instant. But date can be created using only year/month and date mask, leaving
                 // any time information.
-                DateTimeFormatter maskFormatter = DateTimeFormatter.ofPattern(mask).withZone(ZoneOffset.UTC);
+                DateTimeFormatter maskFormatter = formatter.get();
                 try {
                     return LocalDateTime.parse(exprValue, maskFormatter).toInstant(ZoneOffset.UTC);
                 } catch (DateTimeParseException dtp) {
@@ -184,10 +190,47 @@ public class CastExpression extends ResolvableExpression {
         return expr.resolve(context);
     }
 
+    /**
+     * Returns the expression before the cast.
+     */
+    public ResolvableExpression getOperand() {
+        return operand;
+    }
+
+    public String getMask() {
+        return mask;
+    }
+
     @Override
     public Class<?> getType() {
         return target;
     }
 
+    /**
+     * Formatter of a cast mask, built on first use and shared by all the evaluations of the expression. The
+     * formatter itself is not serializable, so only the mask is.
+     */
+    private static final class Mask implements Serializable {
+
+        private final String pattern;
+        private final boolean utc;
+        private transient volatile DateTimeFormatter formatter;
 
+        Mask(String pattern, boolean utc) {
+            this.pattern = pattern;
+            this.utc = utc;
+        }
+
+        DateTimeFormatter get() {
+            DateTimeFormatter current = formatter;
+            if (current == null) {
+                current = DateTimeFormatter.ofPattern(pattern);
+                if (utc) {
+                    current = current.withZone(ZoneOffset.UTC);
+                }
+                formatter = current;
+            }
+            return current;
+        }
+    }
 }
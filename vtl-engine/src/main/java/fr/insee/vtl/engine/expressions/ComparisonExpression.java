@@ -0,0 +1,117 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.engine.visitors.expression.ComparisonVisitor;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.model.exceptions.VtlScriptException;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A comparison between two expressions.
+ * <p>
+ * Long and double values are compared directly, other values go through {@link ComparisonVisitor#compare}.
+ */
+public class ComparisonExpression extends ResolvableExpression {
+
+    private final Operator operator;
+    private final ResolvableExpression left;
+    private final ResolvableExpression right;
+
+    public ComparisonExpression(Operator operator, ResolvableExpression left, ResolvableExpression right, Positioned position) {
+        super(position);
+        this.operator = Objects.requireNonNull(operator);
+        this.left = Objects.requireNonNull(left);
+        this.right = Objects.requireNonNull(right);
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        return apply(left.resolve(context), right.resolve(context));
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        return apply(left.resolve(dataPoint, context), right.resolve(dataPoint, context));
+    }
+
+    private Object apply(Object leftValue, Object rightValue) {
+        if (leftValue == null || rightValue == null) {
+            return null;
+        }
+        int compare;
+        if (leftValue instanceof Long && rightValue instanceof Long) {
+            compare = Long.compare((Long) leftValue, (Long) rightValue);
+        } else if (leftValue instanceof Double && rightValue instanceof Double) {
+            compare = Double.compare((Double) leftValue, (Double) rightValue);
+        } else {
+            try {
+                compare = ComparisonVisitor.compare(leftValue, rightValue);
+            } catch (Exception e) {
+                throw new VtlRuntimeException(new VtlScriptException(e, this));
+            }
+        }
+        return operator.test(compare);
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public ResolvableExpression getLeft() {
+        return left;
+    }
+
+    public ResolvableExpression getRight() {
+        return right;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return Boolean.class;
+    }
+
+    public enum Operator {
+        EQUAL {
+            @Override
+            boolean test(int compare) {
+                return compare == 0;
+            }
+        },
+        NOT_EQUAL {
+            @Override
+            boolean test(int compare) {
+                return compare != 0;
+            }
+        },
+        LESS_THAN {
+            @Override
+            boolean test(int compare) {
+                return compare < 0;
+            }
+        },
+        GREATER_THAN {
+            @Override
+            boolean test(int compare) {
+                return compare > 0;
+            }
+        },
+        LESS_THAN_OR_EQUAL {
+            @Override
+            boolean test(int compare) {
+                return compare <= 0;
+            }
+        },
+        GREATER_THAN_OR_EQUAL {
+            @Override
+            boolean test(int compare) {
+                return compare >= 0;
+            }
+        };
+
+        abstract boolean test(int compare);
+    }
+}
@@ -13,6 +13,11 @@ public class ComponentExpression extends ResolvableExpression {
 
     private final Structured.Component component;
 
+    /**
+     * Position of the component in the last data structure the expression was resolved against.
+     */
+    private transient Binding binding;
+
     public ComponentExpression(Structured.Component component, Positioned position) {
         super(position);
         this.component = Objects.requireNonNull(component);
@@ -23,8 +28,40 @@ public class ComponentExpression extends ResolvableExpression {
         return context.get(component.getName());
     }
 
+    /**
+     * Resolves the component by position. The position of the component is looked up once per data structure.
+     */
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        Binding current = binding;
+        Structured.DataStructure structure = dataPoint.getDataStructure();
+        if (current == null || current.structure != structure) {
+            current = new Binding(structure, structure.indexOfKey(component.getName()));
+            binding = current;
+        }
+        return dataPoint.get(current.index);
+    }
+
+    public Structured.Component getComponent() {
+        return component;
+    }
+
     @Override
     public Class<?> getType() {
         return component.getType();
     }
+
+    /**
+     * Immutable pair of a data structure and an index, so that the binding can be replaced atomically
+     * when the expression is resolved by several threads.
+     */
+    private static final class Binding {
+        private final Structured.DataStructure structure;
+        private final int index;
+
+        private Binding(Structured.DataStructure structure, int index) {
+            this.structure = structure;
+            this.index = index;
+        }
+    }
 }
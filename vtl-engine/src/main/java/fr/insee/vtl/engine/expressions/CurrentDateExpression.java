@@ -0,0 +1,53 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+
+import static fr.insee.vtl.engine.VtlScriptEngine.CURRENT_DATE;
+
+/**
+ * The <code>current_date</code> expression.
+ * <p>
+ * The instant is read from the {@link fr.insee.vtl.engine.VtlScriptEngine#CURRENT_DATE} binding of the evaluation
+ * context, so that it is the same for the whole evaluation and not frozen in compiled scripts. Contexts without it,
+ * like the rows of processing engines that do not pass the evaluation context on, get a fallback instant.
+ */
+public class CurrentDateExpression extends ResolvableExpression {
+
+    private final Instant fallback;
+
+    /**
+     * Constructor taking the instant used when the context has none.
+     *
+     * @param fallback The fallback instant.
+     * @param position The position of the expression.
+     */
+    public CurrentDateExpression(Instant fallback, Positioned position) {
+        super(position);
+        this.fallback = Objects.requireNonNull(fallback);
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        Object now = context.containsKey(CURRENT_DATE) ? context.get(CURRENT_DATE) : null;
+        return now instanceof Instant ? now : fallback;
+    }
+
+    /**
+     * Resolves the instant from the evaluation context, the data point has no bearing on it.
+     */
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        return resolve(context);
+    }
+
+    @Override
+    public Class<?> getType() {
+        return Instant.class;
+    }
+}
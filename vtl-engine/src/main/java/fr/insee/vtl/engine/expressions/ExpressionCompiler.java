@@ -0,0 +1,189 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.model.ConstantExpression;
+import fr.insee.vtl.model.ListExpression;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static fr.insee.vtl.engine.VtlNativeMethods.NATIVE_METHODS;
+
+/**
+ * Compiles calls to native operators into dedicated expressions.
+ * <p>
+ * The arithmetic, comparison, boolean and conditional operators of {@link fr.insee.vtl.engine.VtlNativeMethods}
+ * are evaluated directly by the returned expressions instead of going through a reflective
+ * {@link FunctionExpression}. The regular expression functions get a precompiled pattern when it is a literal, and the
+ * membership operators an index of their list.
+ * Other methods, including the ones registered by the user, are not compiled.
+ * <p>
+ * Native methods invoked on constants are folded into a constant, see
+ * {@link #fold(Method, ResolvableExpression, List, Positioned)}.
+ */
+public class ExpressionCompiler {
+
+    private ExpressionCompiler() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Tests if a method is one of the native methods of the engine, as opposed to the methods registered by users.
+     *
+     * @param method the method to test.
+     * @return true if the method is native.
+     */
+    public static boolean isNative(Method method) {
+        return NATIVE_METHODS.contains(method);
+    }
+
+    /**
+     * Returns an expression equivalent to the invocation of the given method, if the method is a native operator.
+     *
+     * @param method     the method resolved for the operator.
+     * @param parameters the parameters of the method.
+     * @param position   the position of the invocation.
+     * @return the compiled expression, or an empty optional if the method cannot be compiled.
+     */
+    public static Optional<ResolvableExpression> compile(Method method, List<ResolvableExpression> parameters, Positioned position) {
+        if (!NATIVE_METHODS.contains(method) || method.getParameterCount() != parameters.size()) {
+            return Optional.empty();
+        }
+        switch (method.getName()) {
+            case "addition":
+                return arithmetic(ArithmeticExpression.Operator.ADDITION, parameters, position);
+            case "subtraction":
+                return arithmetic(ArithmeticExpression.Operator.SUBTRACTION, parameters, position);
+            case "multiplication":
+                return arithmetic(ArithmeticExpression.Operator.MULTIPLICATION, parameters, position);
+            case "division":
+                return arithmetic(ArithmeticExpression.Operator.DIVISION, parameters, position);
+            case "isEqual":
+                return comparison(ComparisonExpression.Operator.EQUAL, parameters, position);
+            case "isNotEqual":
+                return comparison(ComparisonExpression.Operator.NOT_EQUAL, parameters, position);
+            case "isLessThan":
+                return comparison(ComparisonExpression.Operator.LESS_THAN, parameters, position);
+            case "isGreaterThan":
+                return comparison(ComparisonExpression.Operator.GREATER_THAN, parameters, position);
+            case "isLessThanOrEqual":
+                return comparison(ComparisonExpression.Operator.LESS_THAN_OR_EQUAL, parameters, position);
+            case "isGreaterThanOrEqual":
+                return comparison(ComparisonExpression.Operator.GREATER_THAN_OR_EQUAL, parameters, position);
+            case "and":
+                return bool(BooleanExpression.Operator.AND, parameters, position);
+            case "or":
+                return bool(BooleanExpression.Operator.OR, parameters, position);
+            case "xor":
+                return bool(BooleanExpression.Operator.XOR, parameters, position);
+            case "plus":
+                return unary(UnaryExpression.Operator.PLUS, parameters, position);
+            case "minus":
+                return unary(UnaryExpression.Operator.MINUS, parameters, position);
+            case "not":
+                return unary(UnaryExpression.Operator.NOT, parameters, position);
+            case "ifThenElse":
+                return Optional.of(new IfExpression(parameters.get(0), parameters.get(1), parameters.get(2),
+                        method.getReturnType(), position));
+            case "nvl":
+                return Optional.of(new NvlExpression(parameters.get(0), parameters.get(1),
+                        method.getReturnType(), position));
+            case "in":
+                return membership(parameters, false, position);
+            case "notIn":
+                return membership(parameters, true, position);
+            case "charsetMatch":
+                return constantPattern(parameters.get(1))
+                        .map(pattern -> PatternExpression.match(parameters.get(0), pattern, position));
+            case "replace":
+                return constantPattern(parameters.get(1))
+                        .map(pattern -> PatternExpression.replace(parameters.get(0), pattern, parameters.get(2), position));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the invocation of a native method on constants by its result.
+     * <p>
+     * The expression is kept when one of the parameters is not constant, when the result is null, since a null
+     * constant has no type, or when the evaluation fails, so that the error is raised at execution as before.
+     *
+     * @param method     the method resolved for the operator.
+     * @param expression the expression invoking the method.
+     * @param parameters the parameters of the method.
+     * @param position   the position of the invocation.
+     * @return a constant expression, or the given expression if it cannot be folded.
+     */
+    public static ResolvableExpression fold(Method method, ResolvableExpression expression,
+                                            List<ResolvableExpression> parameters, Positioned position) {
+        if (!NATIVE_METHODS.contains(method) || !parameters.stream().allMatch(ConstantExpression.class::isInstance)) {
+            return expression;
+        }
+        return fold(expression, position);
+    }
+
+    /**
+     * Replaces an expression by its value, see {@link #fold(Method, ResolvableExpression, List, Positioned)}.
+     * The expression must not depend on the context.
+     */
+    public static ResolvableExpression fold(ResolvableExpression expression, Positioned position) {
+        Object value;
+        try {
+            value = expression.resolve(Map.of());
+        } catch (RuntimeException e) {
+            return expression;
+        }
+        if (value == null || !expression.getType().isInstance(value)) {
+            return expression;
+        }
+        return new ConstantExpression(value, position);
+    }
+
+    private static Optional<ResolvableExpression> membership(List<ResolvableExpression> parameters, boolean negated,
+                                                             Positioned position) {
+        // The lists of the grammar only contain constants.
+        if (!(parameters.get(1) instanceof ListExpression)) {
+            return Optional.empty();
+        }
+        var elements = ((ListExpression) parameters.get(1)).resolve(Map.of());
+        return Optional.of(new MembershipExpression(parameters.get(0), elements, negated, position));
+    }
+
+    private static Optional<Pattern> constantPattern(ResolvableExpression expression) {
+        if (!(expression instanceof ConstantExpression) || !(expression.resolve(Map.of()) instanceof String)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Pattern.compile((String) expression.resolve(Map.of())));
+        } catch (PatternSyntaxException e) {
+            // Let the function fail at execution.
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<ResolvableExpression> arithmetic(ArithmeticExpression.Operator operator,
+                                                             List<ResolvableExpression> parameters, Positioned position) {
+        return Optional.of(new ArithmeticExpression(operator, parameters.get(0), parameters.get(1), position));
+    }
+
+    private static Optional<ResolvableExpression> comparison(ComparisonExpression.Operator operator,
+                                                             List<ResolvableExpression> parameters, Positioned position) {
+        return Optional.of(new ComparisonExpression(operator, parameters.get(0), parameters.get(1), position));
+    }
+
+    private static Optional<ResolvableExpression> bool(BooleanExpression.Operator operator,
+                                                       List<ResolvableExpression> parameters, Positioned position) {
+        return Optional.of(new BooleanExpression(operator, parameters.get(0), parameters.get(1), position));
+    }
+
+    private static Optional<ResolvableExpression> unary(UnaryExpression.Operator operator,
+                                                        List<ResolvableExpression> parameters, Positioned position) {
+        return Optional.of(new UnaryExpression(operator, parameters.get(0), position));
+    }
+}
@@ -4,9 +4,13 @@ import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
 import fr.insee.vtl.model.ListExpression;
 import fr.insee.vtl.model.Positioned;
 import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
 import fr.insee.vtl.model.VtlMethod;
 import fr.insee.vtl.model.exceptions.VtlScriptException;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.List;
@@ -23,6 +27,9 @@ public class FunctionExpression extends ResolvableExpression {
     private final Class<?> returnType;
     private final List<ResolvableExpression> parameters;
 
+    private transient MethodHandle handle;
+    private transient boolean reflective;
+
     public FunctionExpression(VtlMethod method, List<ResolvableExpression> parameters, Positioned position) throws VtlScriptException {
         super(position);
         this.method = Objects.requireNonNull(method);
@@ -51,14 +58,55 @@ public class FunctionExpression extends ResolvableExpression {
         }
     }
 
+    /**
+     * Returns a method handle taking the parameters as an <code>Object[]</code>, or null if the method cannot be
+     * accessed through a method handle. The handle is not serialized and is created again on first use.
+     */
+    private MethodHandle getHandle() throws VtlScriptException {
+        if (handle == null && !reflective) {
+            try {
+                handle = MethodHandles.lookup()
+                        .unreflect(method.getMethod(this))
+                        .asSpreader(Object[].class, parameters.size())
+                        .asType(MethodType.genericMethodType(0, true));
+            } catch (IllegalAccessException iae) {
+                // Fall back to reflection.
+                reflective = true;
+            }
+        }
+        return handle;
+    }
+
     @Override
     public Object resolve(Map<String, Object> context) {
-        Object[] evaluatedParameters = parameters.stream().map(p -> p.resolve(context)).toArray();
+        Object[] evaluatedParameters = new Object[parameters.size()];
+        for (int i = 0; i < evaluatedParameters.length; i++) {
+            evaluatedParameters[i] = parameters.get(i).resolve(context);
+        }
+        return invoke(evaluatedParameters);
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        Object[] evaluatedParameters = new Object[parameters.size()];
+        for (int i = 0; i < evaluatedParameters.length; i++) {
+            evaluatedParameters[i] = parameters.get(i).resolve(dataPoint, context);
+        }
+        return invoke(evaluatedParameters);
+    }
+
+    private Object invoke(Object[] evaluatedParameters) {
         try {
+            MethodHandle methodHandle = getHandle();
+            if (methodHandle != null) {
+                return (Object) methodHandle.invokeExact(evaluatedParameters);
+            }
             return method.getMethod(this).invoke(null, evaluatedParameters);
         } catch (InvocationTargetException ite) {
             var cause = ite.getCause();
-            if (cause instanceof Exception) {
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            } else if (cause instanceof Exception) {
                 throw new VtlRuntimeException(
                         new VtlScriptException((Exception) ite.getCause(), this));
             } else {
@@ -67,9 +115,23 @@ public class FunctionExpression extends ResolvableExpression {
             }
         } catch (Exception e) {
             throw new VtlRuntimeException(new VtlScriptException(e, this));
+        } catch (Throwable t) {
+            // invokeExact declares Throwable; errors such as OutOfMemoryError are not VTL errors.
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new VtlRuntimeException(new VtlScriptException(new Exception(t), this));
         }
     }
 
+    public VtlMethod getMethod() {
+        return method;
+    }
+
+    public List<ResolvableExpression> getParameters() {
+        return parameters;
+    }
+
     @Override
     public Class<?> getType() {
         return this.returnType;
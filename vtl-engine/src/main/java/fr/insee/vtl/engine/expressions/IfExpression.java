@@ -0,0 +1,76 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.model.exceptions.VtlScriptException;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An if-then-else expression.
+ * <p>
+ * Only the branch selected by the condition is evaluated. When the condition is null, the result is null and
+ * neither branch is evaluated.
+ */
+public class IfExpression extends ResolvableExpression {
+
+    private final ResolvableExpression condition;
+    private final ResolvableExpression thenExpression;
+    private final ResolvableExpression elseExpression;
+    private final Class<?> type;
+
+    public IfExpression(ResolvableExpression condition, ResolvableExpression thenExpression,
+                        ResolvableExpression elseExpression, Class<?> type, Positioned position) {
+        super(position);
+        this.condition = Objects.requireNonNull(condition);
+        this.thenExpression = Objects.requireNonNull(thenExpression);
+        this.elseExpression = Objects.requireNonNull(elseExpression);
+        this.type = Objects.requireNonNull(type);
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        Boolean conditionValue = toBoolean(condition.resolve(context));
+        if (conditionValue == null) {
+            return null;
+        }
+        return conditionValue ? thenExpression.resolve(context) : elseExpression.resolve(context);
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        Boolean conditionValue = toBoolean(condition.resolve(dataPoint, context));
+        if (conditionValue == null) {
+            return null;
+        }
+        return conditionValue ? thenExpression.resolve(dataPoint, context) : elseExpression.resolve(dataPoint, context);
+    }
+
+    private Boolean toBoolean(Object value) {
+        try {
+            return (Boolean) value;
+        } catch (ClassCastException cce) {
+            throw new VtlRuntimeException(new VtlScriptException(cce, this));
+        }
+    }
+
+    public ResolvableExpression getCondition() {
+        return condition;
+    }
+
+    public ResolvableExpression getThenExpression() {
+        return thenExpression;
+    }
+
+    public ResolvableExpression getElseExpression() {
+        return elseExpression;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+}
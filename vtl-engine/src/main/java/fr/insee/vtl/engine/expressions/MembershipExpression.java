@@ -0,0 +1,112 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+/**
+ * The <code>in</code> and <code>not_in</code> operators on a list of constants.
+ * <p>
+ * The list is indexed once when the expression is built: integers and numbers are kept in sorted primitive arrays
+ * and searched by dichotomy, other values in a hash set. The semantics are the ones of
+ * {@link fr.insee.vtl.engine.visitors.expression.ComparisonVisitor#in(Object, java.util.List)}: the result is null
+ * when the operand is null, and values are compared with <code>equals</code>, so a number never belongs to a list of
+ * integers and conversely. Null elements of the list are ignored, since a null operand is never tested.
+ */
+public class MembershipExpression extends ResolvableExpression {
+
+    private final ResolvableExpression operand;
+    private final boolean negated;
+    private final long[] longs;
+    private final double[] doubles;
+    private final Set<?> values;
+
+    /**
+     * @param operand  the expression tested for membership.
+     * @param elements the constant elements of the list, of the same type.
+     * @param negated  true for <code>not_in</code>.
+     */
+    public MembershipExpression(ResolvableExpression operand, Collection<?> elements, boolean negated,
+                                Positioned position) {
+        super(position);
+        this.operand = Objects.requireNonNull(operand);
+        this.negated = negated;
+        elements = elements.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        if (!elements.isEmpty() && elements.stream().allMatch(Long.class::isInstance)) {
+            this.longs = elements.stream().mapToLong(Long.class::cast).sorted().toArray();
+            this.doubles = null;
+            this.values = null;
+        } else if (!elements.isEmpty() && elements.stream().allMatch(Double.class::isInstance)) {
+            this.longs = null;
+            // Arrays.sort and Arrays.binarySearch order doubles like Double.equals: NaN is found and 0.0 is not -0.0.
+            this.doubles = elements.stream().mapToDouble(Double.class::cast).toArray();
+            Arrays.sort(this.doubles);
+            this.values = null;
+        } else {
+            this.longs = null;
+            this.doubles = null;
+            this.values = new HashSet<>(elements);
+        }
+    }
+
+    private Boolean test(Object value) {
+        if (value == null) {
+            return null;
+        }
+        boolean contained;
+        if (longs != null) {
+            contained = value instanceof Long && Arrays.binarySearch(longs, (Long) value) >= 0;
+        } else if (doubles != null) {
+            contained = value instanceof Double && Arrays.binarySearch(doubles, (Double) value) >= 0;
+        } else {
+            contained = values.contains(value);
+        }
+        return contained != negated;
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        return test(operand.resolve(context));
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        return test(operand.resolve(dataPoint, context));
+    }
+
+    public ResolvableExpression getOperand() {
+        return operand;
+    }
+
+    public boolean isNegated() {
+        return negated;
+    }
+
+    /**
+     * Returns the elements of the list, in no particular order.
+     */
+    public Collection<?> getElements() {
+        if (longs != null) {
+            return LongStream.of(longs).boxed().collect(Collectors.toList());
+        }
+        if (doubles != null) {
+            return DoubleStream.of(doubles).boxed().collect(Collectors.toList());
+        }
+        return values;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return Boolean.class;
+    }
+}
@@ -0,0 +1,52 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An expression that returns a default value when the value of another expression is null.
+ * <p>
+ * The default expression is only evaluated when needed.
+ */
+public class NvlExpression extends ResolvableExpression {
+
+    private final ResolvableExpression expression;
+    private final ResolvableExpression defaultExpression;
+    private final Class<?> type;
+
+    public NvlExpression(ResolvableExpression expression, ResolvableExpression defaultExpression, Class<?> type, Positioned position) {
+        super(position);
+        this.expression = Objects.requireNonNull(expression);
+        this.defaultExpression = Objects.requireNonNull(defaultExpression);
+        this.type = Objects.requireNonNull(type);
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        Object value = expression.resolve(context);
+        return value == null ? defaultExpression.resolve(context) : value;
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        Object value = expression.resolve(dataPoint, context);
+        return value == null ? defaultExpression.resolve(dataPoint, context) : value;
+    }
+
+    public ResolvableExpression getExpression() {
+        return expression;
+    }
+
+    public ResolvableExpression getDefaultExpression() {
+        return defaultExpression;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+}
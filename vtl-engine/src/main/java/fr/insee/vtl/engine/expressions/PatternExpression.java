@@ -0,0 +1,107 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * A regular expression operator whose pattern is known when the expression is built.
+ * <p>
+ * The pattern is compiled once instead of for each evaluation. The null semantics are the ones of
+ * {@link fr.insee.vtl.engine.visitors.expression.functions.ComparisonFunctionsVisitor#charsetMatch(String, String)}
+ * and {@link fr.insee.vtl.engine.visitors.expression.functions.StringFunctionsVisitor#replace(String, String, String)}.
+ */
+public class PatternExpression extends ResolvableExpression {
+
+    private final Operator operator;
+    private final ResolvableExpression operand;
+    private final Pattern pattern;
+    private final ResolvableExpression replacement;
+
+    private PatternExpression(Operator operator, ResolvableExpression operand, Pattern pattern,
+                              ResolvableExpression replacement, Positioned position) {
+        super(position);
+        this.operator = Objects.requireNonNull(operator);
+        this.operand = Objects.requireNonNull(operand);
+        this.pattern = Objects.requireNonNull(pattern);
+        this.replacement = replacement;
+    }
+
+    /**
+     * Returns an expression testing if the operand matches the pattern.
+     */
+    public static PatternExpression match(ResolvableExpression operand, Pattern pattern, Positioned position) {
+        return new PatternExpression(Operator.MATCH, operand, pattern, null, position);
+    }
+
+    /**
+     * Returns an expression replacing the matches of the pattern in the operand.
+     */
+    public static PatternExpression replace(ResolvableExpression operand, Pattern pattern,
+                                            ResolvableExpression replacement, Positioned position) {
+        return new PatternExpression(Operator.REPLACE, operand, pattern, Objects.requireNonNull(replacement), position);
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        var value = (String) operand.resolve(context);
+        if (value == null) {
+            return null;
+        }
+        return operator == Operator.MATCH
+                ? match(value)
+                : replace(value, (String) replacement.resolve(context));
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        var value = (String) operand.resolve(dataPoint, context);
+        if (value == null) {
+            return null;
+        }
+        return operator == Operator.MATCH
+                ? match(value)
+                : replace(value, (String) replacement.resolve(dataPoint, context));
+    }
+
+    private Boolean match(String value) {
+        return pattern.matcher(value).matches();
+    }
+
+    private String replace(String value, String with) {
+        return pattern.matcher(value).replaceAll(with == null ? "" : with);
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public ResolvableExpression getOperand() {
+        return operand;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the replacement expression, or null for a match.
+     */
+    public ResolvableExpression getReplacement() {
+        return replacement;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return operator == Operator.MATCH ? Boolean.class : String.class;
+    }
+
+    public enum Operator {
+        MATCH,
+        REPLACE
+    }
+}
@@ -0,0 +1,77 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.model.exceptions.VtlScriptException;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A unary operation (plus, minus, not) on an expression.
+ */
+public class UnaryExpression extends ResolvableExpression {
+
+    private final Operator operator;
+    private final ResolvableExpression operand;
+
+    public UnaryExpression(Operator operator, ResolvableExpression operand, Positioned position) {
+        super(position);
+        this.operator = Objects.requireNonNull(operator);
+        this.operand = Objects.requireNonNull(operand);
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> context) {
+        return apply(operand.resolve(context));
+    }
+
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        return apply(operand.resolve(dataPoint, context));
+    }
+
+    private Object apply(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            switch (operator) {
+                case PLUS:
+                    return getType().cast(value);
+                case MINUS:
+                    if (value instanceof Long) {
+                        return -(Long) value;
+                    }
+                    return -(Double) value;
+                case NOT:
+                    return !(Boolean) value;
+                default:
+                    throw new UnsupportedOperationException("unknown operator " + operator);
+            }
+        } catch (ClassCastException cce) {
+            throw new VtlRuntimeException(new VtlScriptException(cce, this));
+        }
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public ResolvableExpression getOperand() {
+        return operand;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return operand.getType();
+    }
+
+    public enum Operator {
+        PLUS,
+        MINUS,
+        NOT
+    }
+}
@@ -0,0 +1,296 @@
+package fr.insee.vtl.engine.processors;
+
+import fr.insee.vtl.engine.expressions.ComponentExpression;
+import fr.insee.vtl.model.AggregationExpression;
+import fr.insee.vtl.model.ColumnarDataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static fr.insee.vtl.model.Structured.DataPoint;
+import static fr.insee.vtl.model.Structured.DataStructure;
+
+/**
+ * Columnar version of the aggr operator used by the {@link InMemoryProcessingEngine}.
+ * <p>
+ * The rows are first assigned a group number by looking at the values of the group by columns only (the dictionary
+ * codes for string columns). Each aggregation then reads its column once and accumulates the primitive values in
+ * arrays indexed by group number, so no data point is created for the input rows.
+ * <p>
+ * Only count, and sum, avg, min and max of a long or double column are supported; {@link #of} returns null for the
+ * other aggregations, which are computed on data points. The result has the same values as the collectors of
+ * {@link AggregationExpression}: nulls are ignored by sum, avg and max, and make min null.
+ */
+final class ColumnarAggregation {
+
+    private final DataStructure structure;
+    private final int[] groupBySlots;
+    private final int[] groupByColumns;
+    private final int[] aggregationSlots;
+    private final Accumulator[] accumulators;
+
+    private ColumnarAggregation(DataStructure structure, int[] groupBySlots, int[] groupByColumns,
+                                int[] aggregationSlots, Accumulator[] accumulators) {
+        this.structure = structure;
+        this.groupBySlots = groupBySlots;
+        this.groupByColumns = groupByColumns;
+        this.aggregationSlots = aggregationSlots;
+        this.accumulators = accumulators;
+    }
+
+    /**
+     * Returns the columnar aggregation of a dataset, or null if one of the aggregations is not supported.
+     *
+     * @param dataset      the dataset to aggregate
+     * @param groupBy      the columns to group by
+     * @param collectorMap the aggregations, by name of their column in the result
+     * @param structure    the structure of the result
+     */
+    static ColumnarAggregation of(ColumnarDataset dataset, List<String> groupBy,
+                                  Map<String, AggregationExpression> collectorMap, DataStructure structure) {
+        var sourceStructure = dataset.getDataStructure();
+        var groupBySlots = new int[groupBy.size()];
+        var groupByColumns = new int[groupBy.size()];
+        for (int i = 0; i < groupBy.size(); i++) {
+            groupBySlots[i] = structure.indexOfKey(groupBy.get(i));
+            groupByColumns[i] = sourceStructure.indexOfKey(groupBy.get(i));
+            if (groupByColumns[i] < 0) {
+                return null;
+            }
+        }
+        var aggregationSlots = new int[collectorMap.size()];
+        var accumulators = new Accumulator[collectorMap.size()];
+        int i = 0;
+        for (Map.Entry<String, AggregationExpression> entry : collectorMap.entrySet()) {
+            aggregationSlots[i] = structure.indexOfKey(entry.getKey());
+            accumulators[i] = accumulator(dataset, entry.getValue());
+            if (accumulators[i] == null) {
+                return null;
+            }
+            i++;
+        }
+        return new ColumnarAggregation(structure, groupBySlots, groupByColumns, aggregationSlots, accumulators);
+    }
+
+    private static Accumulator accumulator(ColumnarDataset dataset, AggregationExpression aggregation) {
+        if (aggregation instanceof AggregationExpression.CountAggregationExpression) {
+            return new Count();
+        }
+        if (!(aggregation.getExpression() instanceof ComponentExpression)) {
+            return null;
+        }
+        var name = ((ComponentExpression) aggregation.getExpression()).getComponent().getName();
+        if (dataset.getDataStructure().indexOfKey(name) < 0) {
+            return null;
+        }
+        var column = dataset.getColumn(name);
+        Kind kind;
+        if (aggregation instanceof AggregationExpression.SumAggregationExpression) {
+            kind = Kind.SUM;
+        } else if (aggregation instanceof AggregationExpression.AverageAggregationExpression) {
+            kind = Kind.AVG;
+        } else if (aggregation instanceof AggregationExpression.MinAggregationExpression) {
+            kind = Kind.MIN;
+        } else if (aggregation instanceof AggregationExpression.MaxAggregationExpression) {
+            kind = Kind.MAX;
+        } else {
+            return null;
+        }
+        if (column instanceof ColumnarDataset.LongColumn) {
+            return new LongAccumulator((ColumnarDataset.LongColumn) column, kind);
+        }
+        if (column instanceof ColumnarDataset.DoubleColumn) {
+            return new DoubleAccumulator((ColumnarDataset.DoubleColumn) column, kind);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the group key component of a row for a column. String columns use their dictionary code.
+     */
+    private static Object keyOf(ColumnarDataset.Column column, int row) {
+        if (column instanceof ColumnarDataset.StringColumn) {
+            return ((ColumnarDataset.StringColumn) column).getCode(row);
+        }
+        return column.get(row);
+    }
+
+    /**
+     * Aggregates the dataset.
+     *
+     * @param dataset    the dataset to aggregate
+     * @param groupOrder the order of the groups in the result
+     * @return the aggregated dataset
+     */
+    ColumnarDataset aggregate(ColumnarDataset dataset, Comparator<DataPoint> groupOrder) {
+        int size = dataset.size();
+        var columns = dataset.getColumns();
+
+        // Group numbers, and the first row of each group to read the values of the group by columns.
+        var groups = new int[size];
+        var firstRows = new int[Math.max(size, 1)];
+        int groupCount = 0;
+        Map<Object, Integer> numbers = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            Object key;
+            if (groupByColumns.length == 1) {
+                key = keyOf(columns.get(groupByColumns[0]), row);
+            } else {
+                var values = new Object[groupByColumns.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = keyOf(columns.get(groupByColumns[i]), row);
+                }
+                key = Arrays.asList(values);
+            }
+            Integer number = numbers.get(key);
+            if (number == null) {
+                number = groupCount;
+                numbers.put(key, number);
+                firstRows[groupCount++] = row;
+            }
+            groups[row] = number;
+        }
+
+        List<DataPoint> result = new ArrayList<>(groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            var dataPoint = new DataPoint(structure);
+            for (int i = 0; i < groupBySlots.length; i++) {
+                dataPoint.set(groupBySlots[i], columns.get(groupByColumns[i]).get(firstRows[group]));
+            }
+            result.add(dataPoint);
+        }
+        for (int i = 0; i < accumulators.length; i++) {
+            var values = accumulators[i].aggregate(groups, groupCount);
+            for (int group = 0; group < groupCount; group++) {
+                result.get(group).set(aggregationSlots[i], values[group]);
+            }
+        }
+        result.sort(groupOrder);
+
+        var builder = new ColumnarDataset.Builder(structure, groupCount);
+        for (DataPoint dataPoint : result) {
+            builder.add(dataPoint);
+        }
+        return builder.build();
+    }
+
+    private enum Kind {
+        SUM, AVG, MIN, MAX
+    }
+
+    private interface Accumulator {
+
+        /**
+         * Returns the value of the aggregation for each group.
+         *
+         * @param groups     the group number of each row
+         * @param groupCount the number of groups
+         */
+        Object[] aggregate(int[] groups, int groupCount);
+    }
+
+    private static final class Count implements Accumulator {
+        @Override
+        public Object[] aggregate(int[] groups, int groupCount) {
+            var counts = new long[groupCount];
+            for (int group : groups) {
+                counts[group]++;
+            }
+            var values = new Object[groupCount];
+            for (int group = 0; group < groupCount; group++) {
+                values[group] = counts[group];
+            }
+            return values;
+        }
+    }
+
+    private static final class LongAccumulator implements Accumulator {
+
+        private final ColumnarDataset.LongColumn column;
+        private final Kind kind;
+
+        LongAccumulator(ColumnarDataset.LongColumn column, Kind kind) {
+            this.column = column;
+            this.kind = kind;
+        }
+
+        @Override
+        public Object[] aggregate(int[] groups, int groupCount) {
+            var accumulated = new long[groupCount];
+            var counts = new long[groupCount];
+            var hasNull = new boolean[groupCount];
+            for (int row = 0; row < groups.length; row++) {
+                int group = groups[row];
+                if (column.isNull(row)) {
+                    hasNull[group] = true;
+                    continue;
+                }
+                long value = column.getLong(row);
+                if (kind == Kind.SUM || kind == Kind.AVG) {
+                    accumulated[group] += value;
+                } else if (counts[group] == 0 || (kind == Kind.MAX ? value > accumulated[group] : value < accumulated[group])) {
+                    accumulated[group] = value;
+                }
+                counts[group]++;
+            }
+            var values = new Object[groupCount];
+            for (int group = 0; group < groupCount; group++) {
+                if (counts[group] == 0 || (kind == Kind.MIN && hasNull[group])) {
+                    values[group] = null;
+                } else if (kind == Kind.AVG) {
+                    values[group] = (double) accumulated[group] / counts[group];
+                } else {
+                    values[group] = accumulated[group];
+                }
+            }
+            return values;
+        }
+    }
+
+    private static final class DoubleAccumulator implements Accumulator {
+
+        private final ColumnarDataset.DoubleColumn column;
+        private final Kind kind;
+
+        DoubleAccumulator(ColumnarDataset.DoubleColumn column, Kind kind) {
+            this.column = column;
+            this.kind = kind;
+        }
+
+        @Override
+        public Object[] aggregate(int[] groups, int groupCount) {
+            var accumulated = new double[groupCount];
+            var counts = new long[groupCount];
+            var hasNull = new boolean[groupCount];
+            for (int row = 0; row < groups.length; row++) {
+                int group = groups[row];
+                if (column.isNull(row)) {
+                    hasNull[group] = true;
+                    continue;
+                }
+                double value = column.getDouble(row);
+                if (kind == Kind.SUM || kind == Kind.AVG) {
+                    accumulated[group] += value;
+                } else if (counts[group] == 0 || (kind == Kind.MAX ? value > accumulated[group] : value < accumulated[group])) {
+                    accumulated[group] = value;
+                }
+                counts[group]++;
+            }
+            var values = new Object[groupCount];
+            for (int group = 0; group < groupCount; group++) {
+                if (counts[group] == 0 || (kind == Kind.MIN && hasNull[group])) {
+                    values[group] = null;
+                } else if (kind == Kind.AVG) {
+                    values[group] = accumulated[group] / counts[group];
+                } else {
+                    values[group] = accumulated[group];
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package fr.insee.vtl.engine.processors;
 
-import fr.insee.vtl.engine.utils.KeyExtractor;
+import fr.insee.vtl.engine.VtlScriptEngine;
+import fr.insee.vtl.engine.utils.GroupKeyExtractor;
+import fr.insee.vtl.engine.utils.GroupingTable;
 import fr.insee.vtl.engine.utils.MapCollector;
 import fr.insee.vtl.model.AggregationExpression;
 import fr.insee.vtl.model.Analytics;
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.DataPointRuleset;
 import fr.insee.vtl.model.Dataset;
 import fr.insee.vtl.model.DatasetExpression;
@@ -12,15 +15,22 @@ import fr.insee.vtl.model.Positioned;
 import fr.insee.vtl.model.ProcessingEngine;
 import fr.insee.vtl.model.ProcessingEngineFactory;
 import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.StreamDataset;
 import fr.insee.vtl.model.Structured;
 
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -30,9 +40,54 @@ import static fr.insee.vtl.model.Structured.DataStructure;
 
 /**
  * The <code>InMemoryProcessingEngine</code> class is an implementation of a VTL engine that performs all operations in memory.
+ * <p>
+ * Row by row operators (calc, filter, rename, project) return lazy {@link StreamDataset}s so that a chain of clauses
+ * is evaluated in one pass. Consecutive calc, rename and project operations are furthermore fused into a single
+ * {@link ProjectionExpression}. The data is only collected by the blocking operators (aggregations, joins, unions) and
+ * when a dataset is bound to a variable.
+ * <p>
+ * When created with a {@link ForkJoinPool}, the row by row operators and the aggregations run in parallel in that
+ * pool. The order of the data points is preserved by calc, filter, rename and project.
+ * <p>
+ * Calc, filter and the usual aggregations of {@link ColumnarDataset}s read and write the columns directly.
+ * <p>
+ * When created with a median capacity, <code>median</code> is approximated in bounded memory, see
+ * {@link AggregationExpression#approximateMedian(ResolvableExpression, int)}.
  */
 public class InMemoryProcessingEngine implements ProcessingEngine {
 
+    private static final Comparator<Object> NULLS_FIRST = Comparator.nullsFirst(InMemoryProcessingEngine::compareValues);
+
+    private final ForkJoinPool pool;
+    private final int medianCapacity;
+
+    /**
+     * Constructor for a sequential engine.
+     */
+    public InMemoryProcessingEngine() {
+        this(null);
+    }
+
+    /**
+     * Constructor for a parallel engine.
+     *
+     * @param pool The pool in which the operations are executed, or null for sequential execution.
+     */
+    public InMemoryProcessingEngine(ForkJoinPool pool) {
+        this(pool, 0);
+    }
+
+    /**
+     * Constructor for a parallel engine approximating the median.
+     *
+     * @param pool           The pool in which the operations are executed, or null for sequential execution.
+     * @param medianCapacity The number of values per level of the median sketch, or 0 for the exact median.
+     */
+    public InMemoryProcessingEngine(ForkJoinPool pool, int medianCapacity) {
+        this.pool = pool;
+        this.medianCapacity = medianCapacity;
+    }
+
     @Override
     public DatasetExpression executeCalc(DatasetExpression expression, Map<String, ResolvableExpression> expressions,
                                          Map<String, Dataset.Role> roles, Map<String, String> expressionStrings) {
@@ -50,25 +105,8 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
             );
         }
 
-        return new DatasetExpression(expression) {
-            @Override
-            public Dataset resolve(Map<String, Object> context) {
-                var dataset = expression.resolve(context);
-                List<List<Object>> result = dataset.getDataPoints().stream().map(dataPoint -> {
-                    var newDataPoint = new DataPoint(newStructure, dataPoint);
-                    for (String columnName : expressions.keySet()) {
-                        newDataPoint.set(columnName, expressions.get(columnName).resolve(dataPoint));
-                    }
-                    return newDataPoint;
-                }).collect(Collectors.toList());
-                return new InMemoryDataset(result, newStructure);
-            }
-
-            @Override
-            public DataStructure getDataStructure() {
-                return newStructure;
-            }
-        };
+        // Merged with the preceding rename, keep or drop when possible.
+        return ProjectionExpression.of(expression, pool).calc(expression, newStructure, expressions);
     }
 
     @Override
@@ -83,14 +121,15 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
             @Override
             public Dataset resolve(Map<String, Object> context) {
                 Dataset resolve = expression.resolve(context);
-                List<List<Object>> result = resolve.getDataPoints().stream()
+                if (resolve instanceof ColumnarDataset) {
+                    return filterColumns((ColumnarDataset) resolve, filter, context);
+                }
+                return new StreamDataset(getDataStructure(), () -> resolve.getDataPointStream()
                         .filter(map -> {
-                            var res = filter.resolve(map);
+                            var res = filter.resolve(map, context);
                             if (res == null) return false;
                             return (boolean) res;
-                        })
-                        .collect(Collectors.toList());
-                return new InMemoryDataset(result, getDataStructure());
+                        }), pool);
             }
         };
     }
@@ -112,26 +151,7 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
                         )
                 ).collect(Collectors.toList());
         DataStructure renamedStructure = new DataStructure(structure);
-        return new DatasetExpression(expression) {
-            @Override
-            public Dataset resolve(Map<String, Object> context) {
-                var result = expression.resolve(context).getDataPoints().stream()
-                        .map(dataPoint -> {
-                            var newDataPoint = new DataPoint(renamedStructure, dataPoint);
-                            for (String fromName : fromTo.keySet()) {
-                                var toName = fromTo.get(fromName);
-                                newDataPoint.set(toName, dataPoint.get(fromName));
-                            }
-                            return newDataPoint;
-                        }).collect(Collectors.toList());
-                return new InMemoryDataset(result, getDataStructure());
-            }
-
-            @Override
-            public DataStructure getDataStructure() {
-                return renamedStructure;
-            }
-        };
+        return ProjectionExpression.of(expression, pool).rename(expression, renamedStructure);
     }
 
     @Override
@@ -141,28 +161,7 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
                 .filter(component -> columnNames.contains(component.getName()))
                 .collect(Collectors.toList());
         var newStructure = new DataStructure(structure);
-
-        return new DatasetExpression(expression) {
-            @Override
-            public Dataset resolve(Map<String, Object> context) {
-                var columnNames = getColumnNames();
-                List<List<Object>> result = expression.resolve(context).getDataPoints().stream()
-                        .map(data -> {
-                            var projectedDataPoint = new DataPoint(newStructure);
-                            for (String column : columnNames) {
-                                projectedDataPoint.set(column, data.get(column));
-                            }
-                            return projectedDataPoint;
-                        }).collect(Collectors.toList());
-                // TODO: Use List<Datapoint> type for result to avoid conversion.
-                return new InMemoryDataset(result, getDataStructure());
-            }
-
-            @Override
-            public DataStructure getDataStructure() {
-                return newStructure;
-            }
-        };
+        return ProjectionExpression.of(expression, pool).project(expression, newStructure);
     }
 
     @Override
@@ -173,7 +172,7 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
                 Stream<DataPoint> stream = Stream.empty();
                 for (DatasetExpression datasetExpression : datasets) {
                     var dataset = datasetExpression.resolve(context);
-                    stream = Stream.concat(stream, dataset.getDataPoints().stream());
+                    stream = Stream.concat(stream, dataset.getDataPointStream());
                 }
                 List<DataPoint> data = stream.distinct().collect(Collectors.toList());
                 return new InMemoryDataset(data, getDataStructure());
@@ -186,10 +185,23 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
         };
     }
 
+    /**
+     * Replaces the medians by approximate medians if the engine has a median capacity.
+     */
+    private Map<String, AggregationExpression> approximateMedians(Map<String, AggregationExpression> aggregations) {
+        if (medianCapacity == 0) {
+            return aggregations;
+        }
+        Map<String, AggregationExpression> collectorMap = new LinkedHashMap<>(aggregations);
+        collectorMap.replaceAll((name, aggregation) -> aggregation instanceof AggregationExpression.MedianAggregationExpression
+                ? AggregationExpression.approximateMedian(aggregation.getExpression(), medianCapacity)
+                : aggregation);
+        return collectorMap;
+    }
+
     @Override
-    public DatasetExpression executeAggr(DatasetExpression expression, List<String> groupBy, Map<String, AggregationExpression> collectorMap) {
-        // Create a keyExtractor with the columns we group by.
-        var keyExtractor = new KeyExtractor(groupBy);
+    public DatasetExpression executeAggr(DatasetExpression expression, List<String> groupBy, Map<String, AggregationExpression> aggregations) {
+        var collectorMap = approximateMedians(aggregations);
 
         // Compute the new data structure.
         Map<String, Dataset.Component> newStructure = new LinkedHashMap<>();
@@ -209,23 +221,46 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
         }
 
         Structured.DataStructure structure = new Structured.DataStructure(newStructure.values());
+        var groupBySlots = groupBy.stream().mapToInt(structure::indexOfKey).toArray();
+        Comparator<DataPoint> groupOrder = (left, right) -> {
+            for (int slot : groupBySlots) {
+                int result = NULLS_FIRST.compare(left.get(slot), right.get(slot));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
         return new DatasetExpression(expression) {
             @Override
             public Dataset resolve(Map<String, Object> context) {
+                Dataset dataset = expression.resolve(context);
+                if (dataset instanceof ColumnarDataset) {
+                    var columnar = (ColumnarDataset) dataset;
+                    var aggregation = ColumnarAggregation.of(columnar, groupBy, collectorMap, structure);
+                    if (aggregation != null) {
+                        return aggregation.aggregate(columnar, groupOrder);
+                    }
+                }
 
-                List<DataPoint> data = expression.resolve(Map.of()).getDataPoints();
-                MapCollector collector = new MapCollector(structure, collectorMap);
-                List<DataPoint> collect = data.stream()
-                        .collect(Collectors.groupingBy(keyExtractor, collector))
-                        .entrySet().stream()
-                        .map(e -> {
-                            DataPoint dataPoint = e.getValue();
-                            Map<String, Object> identifiers = e.getKey();
-                            for (Map.Entry<String, Object> identifierElement : identifiers.entrySet()) {
-                                dataPoint.set(identifierElement.getKey(), identifierElement.getValue());
-                            }
-                            return dataPoint;
-                        }).collect(Collectors.toList());
+                // The key columns are resolved against the structure of the data points actually read.
+                var keyExtractor = new GroupKeyExtractor(dataset.getDataStructure(), groupBy);
+                Stream<DataPoint> data = dataset.getDataPointStream();
+                var grouping = grouping(keyExtractor, new MapCollector(structure, collectorMap));
+                // In parallel, each thread groups its part of the data and the groups are merged with the
+                // combiner of the collector.
+                GroupingTable<DataPoint> groups = pool == null
+                        ? data.collect(grouping)
+                        : executeInPool(() -> data.parallel().collect(grouping));
+                List<DataPoint> collect = new ArrayList<>(groups.size());
+                groups.forEach((key, dataPoint) -> {
+                    for (int i = 0; i < groupBySlots.length; i++) {
+                        dataPoint.set(groupBySlots[i], keyExtractor.get(key, i));
+                    }
+                    collect.add(dataPoint);
+                });
+                // The groups are returned in the order of their keys, independently of the hash table.
+                collect.sort(groupOrder);
 
                 return new InMemoryDataset(collect, structure);
             }
@@ -313,6 +348,87 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Returns a collector grouping the data points by key in a {@link GroupingTable}. The states of the groups are
+     * created, accumulated and combined by the given collector, and finished at the end.
+     */
+    private static Collector<DataPoint, GroupingTable<DataPoint>, GroupingTable<DataPoint>> grouping(
+            GroupKeyExtractor keyExtractor, MapCollector collector) {
+        var supplier = collector.supplier();
+        var accumulator = collector.accumulator();
+        var combiner = collector.combiner();
+        var finisher = collector.finisher();
+        return Collector.of(
+                GroupingTable::new,
+                (table, dataPoint) -> accumulator.accept(table.getOrCreate(keyExtractor.apply(dataPoint), supplier), dataPoint),
+                (left, right) -> left.merge(right, combiner),
+                table -> {
+                    table.forEach((key, state) -> finisher.apply(state));
+                    return table;
+                }
+        );
+    }
+
+    /**
+     * Compares two non null values of a grouping column. Numbers are compared by value, other values of the same
+     * class by their natural order, and values of different classes by the name of their class.
+     */
+    private static int compareValues(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            return Long.compare((Long) left, (Long) right);
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (left.getClass() != right.getClass() || !(left instanceof Comparable)) {
+            return left.getClass().getName().compareTo(right.getClass().getName());
+        }
+        Comparator<Comparable<Object>> natural = Comparator.naturalOrder();
+        return natural.compare(asComparable(left), asComparable(right));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> asComparable(Object value) {
+        // Only called on values of the same comparable class.
+        return (Comparable<Object>) value;
+    }
+
+    /**
+     * Runs a task in the pool of the engine and waits for its result.
+     */
+    private <T> T executeInPool(Supplier<T> task) {
+        try {
+            return pool.submit(task::get).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new IllegalStateException(ee.getCause());
+        }
+    }
+
+    /**
+     * Columnar version of the filter operator. The selected row indexes are collected first and the columns
+     * are then copied in one pass.
+     */
+    private static ColumnarDataset filterColumns(ColumnarDataset dataset, ResolvableExpression filter,
+                                                 Map<String, Object> context) {
+        int size = dataset.size();
+        var selected = new int[size];
+        int count = 0;
+        var dataPoint = new DataPoint(dataset.getDataStructure());
+        for (int row = 0; row < size; row++) {
+            dataset.fill(row, dataPoint);
+            if (Boolean.TRUE.equals(filter.resolve(dataPoint, context))) {
+                selected[count++] = row;
+            }
+        }
+        return dataset.select(selected, count);
+    }
+
     /**
      * Returns a structure with the common identifiers only once.
      */
@@ -332,111 +448,116 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
     }
 
     /**
-     * Creates a datapoint comparator that operates on the given identifiers only.
+     * Extracts the values of the given identifiers from a datapoint. The resulting list is used as the key of
+     * the hash table built by {@link #handleHashJoin}.
      */
-    private Comparator<DataPoint> createPredicate(List<Component> identifiers) {
-        return (dl, dr) -> {
-            for (Component identifier : identifiers) {
-                if (!Objects.equals(dl.get(identifier.getName()), dr.get(identifier.getName()))) {
-                    return -1;
-                }
-            }
-            return 0;
-        };
+    private static List<Object> extractKey(List<Component> identifiers, DataPoint dataPoint) {
+        List<Object> key = new ArrayList<>(identifiers.size());
+        for (Component identifier : identifiers) {
+            key.add(dataPoint.get(identifier.getName()));
+        }
+        return key;
     }
 
     private DatasetExpression handleInnerJoin(List<Component> identifiers, DatasetExpression left, DatasetExpression right) {
-        var structure = createCommonStructure(identifiers, left, right);
-        var predicate = createPredicate(identifiers);
-
-        return new DatasetExpression(left) {
-            @Override
-            public Dataset resolve(Map<String, Object> context) {
-                var leftPoints = left.resolve(context).getDataPoints();
-                var rightPoints = right.resolve(context).getDataPoints();
-                List<DataPoint> result = new ArrayList<>();
-                for (DataPoint leftPoint : leftPoints) {
-                    List<DataPoint> matches = new ArrayList<>();
-                    for (DataPoint rightPoint : rightPoints) {
-                        // Check equality
-                        if (predicate.compare(leftPoint, rightPoint) == 0) {
-                            matches.add(rightPoint);
-                        }
-                    }
-
-                    if (!matches.isEmpty()) {
-                        // Create merge datapoint.
-                        var mergedPoint = new DataPoint(structure);
-                        for (String leftColumn : left.getDataStructure().keySet()) {
-                            mergedPoint.set(leftColumn, leftPoint.get(leftColumn));
-                        }
-                        for (DataPoint match : matches) {
-                            var matchPoint = new DataPoint(structure, mergedPoint);
-                            for (String rightColumn : right.getDataStructure().keySet()) {
-                                matchPoint.set(rightColumn, match.get(rightColumn));
-                            }
-                            result.add(matchPoint);
-                        }
-                    }
-                }
-                return new InMemoryDataset(result, structure);
-            }
-
-            @Override
-            public DataStructure getDataStructure() {
-                return structure;
-            }
-        };
+        return handleHashJoin(identifiers, left, right, false, false);
     }
 
     private DatasetExpression handleFullJoin(List<Component> identifiers, DatasetExpression left, DatasetExpression right) {
-        // Naive implementation, left and right union. Could be optimized.
-        return executeUnion(List.of(
-                handleLeftJoin(identifiers, left, right),
-                handleLeftJoin(identifiers, right, left)
-        ));
+        return handleHashJoin(identifiers, left, right, true, true);
     }
 
     private DatasetExpression handleLeftJoin(List<Component> identifiers, DatasetExpression left, DatasetExpression right) {
+        return handleHashJoin(identifiers, left, right, true, false);
+    }
+
+    /**
+     * Hash join implementation.
+     * <p>
+     * The hash table is built on the smaller side, keyed by the identifier values, and probed with the other
+     * side. Rows of the left (resp. right) side that have no match are kept with null values for the other side
+     * when <code>keepLeft</code> (resp. <code>keepRight</code>) is true.
+     *
+     * @param identifiers the identifiers to join on
+     * @param left        the left dataset
+     * @param right       the right dataset
+     * @param keepLeft    keep the left rows without match (left and full join)
+     * @param keepRight   keep the right rows without match (full join)
+     */
+    private DatasetExpression handleHashJoin(List<Component> identifiers, DatasetExpression left, DatasetExpression right,
+                                             boolean keepLeft, boolean keepRight) {
         var structure = createCommonStructure(identifiers, left, right);
-        var predicate = createPredicate(identifiers);
+        var leftColumns = left.getDataStructure().keySet();
+        var rightColumns = right.getDataStructure().keySet();
 
         return new DatasetExpression(left) {
             @Override
             public Dataset resolve(Map<String, Object> context) {
                 var leftPoints = left.resolve(context).getDataPoints();
                 var rightPoints = right.resolve(context).getDataPoints();
-                List<DataPoint> result = new ArrayList<>();
-                for (DataPoint leftPoint : leftPoints) {
-                    List<DataPoint> matches = new ArrayList<>();
-                    for (DataPoint rightPoint : rightPoints) {
-                        // Check equality
-                        if (predicate.compare(leftPoint, rightPoint) == 0) {
-                            matches.add(rightPoint);
+
+                boolean buildLeft = leftPoints.size() < rightPoints.size();
+                List<DataPoint> buildPoints = buildLeft ? leftPoints : rightPoints;
+                List<DataPoint> probePoints = buildLeft ? rightPoints : leftPoints;
+                boolean keepBuild = buildLeft ? keepLeft : keepRight;
+                boolean keepProbe = buildLeft ? keepRight : keepLeft;
+
+                // Build phase. The table holds the indexes of the build rows, so that the matches are tracked
+                // whatever the identity of the data points returned by the dataset.
+                Map<List<Object>, List<Integer>> table = new HashMap<>();
+                for (int i = 0; i < buildPoints.size(); i++) {
+                    table.computeIfAbsent(extractKey(identifiers, buildPoints.get(i)), k -> new ArrayList<>(1))
+                            .add(i);
+                }
+
+                // Probe phase.
+                List<DataPoint> result = new ArrayList<>(probePoints.size());
+                BitSet matched = new BitSet(keepBuild ? buildPoints.size() : 0);
+                for (DataPoint probePoint : probePoints) {
+                    var matches = table.get(extractKey(identifiers, probePoint));
+                    if (matches == null) {
+                        if (keepProbe) {
+                            result.add(buildLeft ? merge(null, probePoint) : merge(probePoint, null));
                         }
+                        continue;
                     }
-
-                    // Create merge datapoint.
-                    var mergedPoint = new DataPoint(structure);
-                    for (String leftColumn : left.getDataStructure().keySet()) {
-                        mergedPoint.set(leftColumn, leftPoint.get(leftColumn));
+                    for (int index : matches) {
+                        if (keepBuild) {
+                            matched.set(index);
+                        }
+                        var match = buildPoints.get(index);
+                        result.add(buildLeft ? merge(match, probePoint) : merge(probePoint, match));
                     }
+                }
 
-                    if (matches.isEmpty()) {
-                        result.add(mergedPoint);
-                    } else {
-                        for (DataPoint match : matches) {
-                            var matchPoint = new DataPoint(structure, mergedPoint);
-                            for (String rightColumn : right.getDataStructure().keySet()) {
-                                matchPoint.set(rightColumn, match.get(rightColumn));
-                            }
-                            result.add(matchPoint);
-                        }
+                // Rows of the build side without match.
+                if (keepBuild) {
+                    for (int i = matched.nextClearBit(0); i < buildPoints.size(); i = matched.nextClearBit(i + 1)) {
+                        var buildPoint = buildPoints.get(i);
+                        result.add(buildLeft ? merge(buildPoint, null) : merge(null, buildPoint));
                     }
                 }
                 return new InMemoryDataset(result, structure);
             }
 
+            /**
+             * Creates a merged datapoint. Either side can be null.
+             */
+            private DataPoint merge(DataPoint leftPoint, DataPoint rightPoint) {
+                var mergedPoint = new DataPoint(structure);
+                if (leftPoint != null) {
+                    for (String leftColumn : leftColumns) {
+                        mergedPoint.set(leftColumn, leftPoint.get(leftColumn));
+                    }
+                }
+                if (rightPoint != null) {
+                    for (String rightColumn : rightColumns) {
+                        mergedPoint.set(rightColumn, rightPoint.get(rightColumn));
+                    }
+                }
+                return mergedPoint;
+            }
+
             @Override
             public DataStructure getDataStructure() {
                 return structure;
@@ -487,6 +608,16 @@ public class InMemoryProcessingEngine implements ProcessingEngine {
 
         @Override
         public ProcessingEngine getProcessingEngine(ScriptEngine engine) {
+            return getProcessingEngine(engine, engine.getContext());
+        }
+
+        @Override
+        public ProcessingEngine getProcessingEngine(ScriptEngine engine, ScriptContext context) {
+            if (engine instanceof VtlScriptEngine) {
+                var vtlEngine = (VtlScriptEngine) engine;
+                return new InMemoryProcessingEngine(vtlEngine.getForkJoinPool(context).orElse(null),
+                        vtlEngine.getApproximateMedianCapacity(context));
+            }
             return new InMemoryProcessingEngine();
         }
     }
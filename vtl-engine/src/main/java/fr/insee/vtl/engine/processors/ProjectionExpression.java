@@ -0,0 +1,204 @@
+package fr.insee.vtl.engine.processors;
+
+import fr.insee.vtl.model.ColumnarDataset;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.DatasetExpression;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.StreamDataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static fr.insee.vtl.model.Structured.DataPoint;
+import static fr.insee.vtl.model.Structured.DataStructure;
+
+/**
+ * Row projection used by the {@link InMemoryProcessingEngine} to fuse consecutive rename, keep, drop and calc
+ * clauses.
+ * <p>
+ * Each column of the result is either copied from a column of the source, using a precomputed index, or computed
+ * by an expression evaluated against the source row. Renaming or projecting a projection only updates the index
+ * map, and a calc can be merged in as long as the projection did not rename nor compute any column, since the calc
+ * expressions must see the names of the source. The whole chain then allocates one output row per input row.
+ */
+final class ProjectionExpression extends DatasetExpression {
+
+    private final DatasetExpression source;
+    private final DataStructure structure;
+    private final int[] sourceIndexes;
+    private final ResolvableExpression[] expressions;
+    private final int[] expressionIndexes;
+    private final transient ForkJoinPool pool;
+
+    private ProjectionExpression(Positioned position, DatasetExpression source, DataStructure structure,
+                                 int[] sourceIndexes, ResolvableExpression[] expressions, int[] expressionIndexes,
+                                 ForkJoinPool pool) {
+        super(position);
+        this.pool = pool;
+        this.source = source;
+        this.structure = structure;
+        this.sourceIndexes = sourceIndexes;
+        this.expressions = expressions;
+        this.expressionIndexes = expressionIndexes;
+    }
+
+    /**
+     * Returns the expression itself if it is a projection, or an identity projection of the expression.
+     *
+     * @param pool the pool used to project the rows in parallel, or null
+     */
+    static ProjectionExpression of(DatasetExpression expression, ForkJoinPool pool) {
+        if (expression instanceof ProjectionExpression) {
+            return (ProjectionExpression) expression;
+        }
+        return identity(expression, pool);
+    }
+
+    private static ProjectionExpression identity(DatasetExpression expression, ForkJoinPool pool) {
+        var structure = expression.getDataStructure();
+        var indexes = new int[structure.size()];
+        Arrays.setAll(indexes, i -> i);
+        return new ProjectionExpression(expression, expression, structure, indexes,
+                new ResolvableExpression[0], new int[0], pool);
+    }
+
+    /**
+     * Returns the projection with renamed columns. The order of the columns is unchanged.
+     */
+    ProjectionExpression rename(Positioned position, DataStructure renamedStructure) {
+        return new ProjectionExpression(position, source, renamedStructure, sourceIndexes,
+                expressions, expressionIndexes, pool);
+    }
+
+    /**
+     * Returns the projection restricted to the columns of the given structure.
+     */
+    ProjectionExpression project(Positioned position, DataStructure projectedStructure) {
+        var indexes = new int[projectedStructure.size()];
+        List<ResolvableExpression> keptExpressions = new ArrayList<>();
+        List<Integer> keptIndexes = new ArrayList<>();
+        int target = 0;
+        for (String name : projectedStructure.keySet()) {
+            int previous = structure.indexOfKey(name);
+            indexes[target] = sourceIndexes[previous];
+            for (int i = 0; i < expressions.length; i++) {
+                if (expressionIndexes[i] == previous) {
+                    keptExpressions.add(expressions[i]);
+                    keptIndexes.add(target);
+                }
+            }
+            target++;
+        }
+        return new ProjectionExpression(position, source, projectedStructure, indexes,
+                keptExpressions.toArray(ResolvableExpression[]::new),
+                keptIndexes.stream().mapToInt(Integer::intValue).toArray(), pool);
+    }
+
+    /**
+     * Returns the projection extended with computed columns. The calc is merged into this projection when
+     * possible, otherwise a new projection is stacked on top of it.
+     *
+     * @param calcStructure the structure of the result of the calc
+     * @param calcs         the expressions of the calc, by column name
+     */
+    ProjectionExpression calc(Positioned position, DataStructure calcStructure,
+                              Map<String, ResolvableExpression> calcs) {
+        var base = isSelection() ? this : identity(this, pool);
+        var indexes = new int[calcStructure.size()];
+        int target = 0;
+        for (String name : calcStructure.keySet()) {
+            indexes[target++] = calcs.containsKey(name)
+                    ? -1
+                    : base.sourceIndexes[base.structure.indexOfKey(name)];
+        }
+        return new ProjectionExpression(position, base.source, calcStructure, indexes,
+                calcs.values().toArray(ResolvableExpression[]::new),
+                calcs.keySet().stream().mapToInt(calcStructure::indexOfKey).toArray(), pool);
+    }
+
+    /**
+     * Returns the expression the rows are read from.
+     */
+    DatasetExpression getSource() {
+        return source;
+    }
+
+    /**
+     * Tests if the projection only selects columns of the source, without renaming or computing any.
+     */
+    private boolean isSelection() {
+        if (expressions.length > 0) {
+            return false;
+        }
+        var sourceNames = new ArrayList<>(source.getDataStructure().keySet());
+        int target = 0;
+        for (String name : structure.keySet()) {
+            if (!name.equals(sourceNames.get(sourceIndexes[target++]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Dataset resolve(Map<String, Object> context) {
+        var dataset = source.resolve(context);
+        if (dataset instanceof ColumnarDataset) {
+            return resolveColumns((ColumnarDataset) dataset, context);
+        }
+        return new StreamDataset(structure, () -> dataset.getDataPointStream()
+                .map(sourcePoint -> project(sourcePoint, context)), pool);
+    }
+
+    private DataPoint project(DataPoint sourcePoint, Map<String, Object> context) {
+        var dataPoint = new DataPoint(structure);
+        for (int i = 0; i < sourceIndexes.length; i++) {
+            if (sourceIndexes[i] >= 0) {
+                dataPoint.set(i, sourcePoint.get(sourceIndexes[i]));
+            }
+        }
+        for (int i = 0; i < expressions.length; i++) {
+            dataPoint.set(expressionIndexes[i], expressions[i].resolve(sourcePoint, context));
+        }
+        return dataPoint;
+    }
+
+    /**
+     * Columnar version of the projection. The copied columns are shared with the result, only the computed
+     * columns are allocated.
+     */
+    private ColumnarDataset resolveColumns(ColumnarDataset dataset, Map<String, Object> context) {
+        var sourceColumns = dataset.getColumns();
+        List<ColumnarDataset.Column> columns = new ArrayList<>(sourceIndexes.length);
+        for (int index : sourceIndexes) {
+            columns.add(index >= 0 ? sourceColumns.get(index) : null);
+        }
+        if (expressions.length > 0) {
+            int size = dataset.size();
+            var builders = new ColumnarDataset.Column.Builder[expressions.length];
+            for (int i = 0; i < expressions.length; i++) {
+                builders[i] = ColumnarDataset.Column.builder(expressions[i].getType(), size);
+            }
+            var dataPoint = new DataPoint(dataset.getDataStructure());
+            for (int row = 0; row < size; row++) {
+                dataset.fill(row, dataPoint);
+                for (int i = 0; i < expressions.length; i++) {
+                    builders[i].add(expressions[i].resolve(dataPoint, context));
+                }
+            }
+            for (int i = 0; i < expressions.length; i++) {
+                columns.set(expressionIndexes[i], builders[i].build());
+            }
+        }
+        return new ColumnarDataset(structure, columns);
+    }
+
+    @Override
+    public DataStructure getDataStructure() {
+        return structure;
+    }
+}
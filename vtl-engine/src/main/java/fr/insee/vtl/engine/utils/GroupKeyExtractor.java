@@ -0,0 +1,92 @@
+package fr.insee.vtl.engine.utils;
+
+import fr.insee.vtl.model.Structured;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * GroupKeyExtractor extracts compact grouping keys from DataPoints.
+ * <p>
+ * Unlike {@link KeyExtractor}, the columns are resolved to slot indexes once, against the structure of the data
+ * points to group. With a single column the key is the value itself (a <code>Long</code> or <code>String</code> for
+ * instance, already held by the data point), otherwise it is a {@link Tuple} of the values with a cached hash.
+ */
+public class GroupKeyExtractor implements Function<Structured.DataPoint, Object> {
+
+    private final List<String> columns;
+    private final int[] slots;
+
+    /**
+     * Constructor taking the structure of the data points and the columns of the key.
+     *
+     * @param structure The structure of the data points.
+     * @param columns   The names of the columns forming the key.
+     * @throws IllegalArgumentException if a column is not in the structure.
+     */
+    public GroupKeyExtractor(Structured.DataStructure structure, List<String> columns) {
+        this.columns = List.copyOf(columns);
+        this.slots = this.columns.stream().mapToInt(structure::indexOfKey).toArray();
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] < 0) {
+                throw new IllegalArgumentException("unknown column " + this.columns.get(i));
+            }
+        }
+    }
+
+    @Override
+    public Object apply(Structured.DataPoint dataPoint) {
+        if (slots.length == 1) {
+            return dataPoint.get(slots[0]);
+        }
+        var values = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            values[i] = dataPoint.get(slots[i]);
+        }
+        return new Tuple(values);
+    }
+
+    /**
+     * Returns the value of a column of a key.
+     *
+     * @param key   A key returned by {@link #apply(Structured.DataPoint)}.
+     * @param index The index of the column in the list of columns of the key.
+     * @return The value of the column.
+     */
+    public Object get(Object key, int index) {
+        return columns.size() == 1 ? key : ((Tuple) key).values[index];
+    }
+
+    /**
+     * Immutable composite key.
+     */
+    static final class Tuple {
+
+        private final Object[] values;
+        private final int hash;
+
+        Tuple(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Tuple)) return false;
+            Tuple tuple = (Tuple) o;
+            return hash == tuple.hash && Arrays.equals(values, tuple.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(values);
+        }
+    }
+}
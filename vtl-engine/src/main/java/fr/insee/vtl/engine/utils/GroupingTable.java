@@ -0,0 +1,141 @@
+package fr.insee.vtl.engine.utils;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Hash table from grouping keys to aggregation states.
+ * <p>
+ * The table uses open addressing with linear probing over two parallel arrays, so that adding a row to an existing
+ * group does not allocate. Null keys are supported.
+ *
+ * @param <V> The type of the aggregation states.
+ */
+public class GroupingTable<V> {
+
+    private static final Object NULL_KEY = new Object();
+
+    private Object[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Creates an empty table.
+     */
+    public GroupingTable() {
+        keys = new Object[16];
+        values = new Object[16];
+    }
+
+    private static int index(Object key, int mask) {
+        int hash = key.hashCode();
+        // Spread the bits of the hash, as done by HashMap.
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the state of a group, creating it if needed.
+     *
+     * @param key      The key of the group.
+     * @param supplier The supplier of new states.
+     * @return The state of the group.
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrCreate(Object key, Supplier<V> supplier) {
+        var k = key == null ? NULL_KEY : key;
+        int i = find(k);
+        if (keys[i] != null) {
+            return (V) values[i];
+        }
+        V value = supplier.get();
+        insert(i, k, value);
+        return value;
+    }
+
+    /**
+     * Merges the groups of another table into this table.
+     *
+     * @param other    The other table.
+     * @param combiner The function combining the states of a group present in both tables.
+     * @return This table.
+     */
+    @SuppressWarnings("unchecked")
+    public GroupingTable<V> merge(GroupingTable<V> other, BinaryOperator<V> combiner) {
+        for (int j = 0; j < other.keys.length; j++) {
+            var k = other.keys[j];
+            if (k == null) {
+                continue;
+            }
+            int i = find(k);
+            if (keys[i] == null) {
+                insert(i, k, other.values[j]);
+            } else {
+                values[i] = combiner.apply((V) values[i], (V) other.values[j]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the index of the key, or of the empty slot where it should be inserted.
+     */
+    private int find(Object k) {
+        int mask = keys.length - 1;
+        int i = index(k, mask);
+        Object current;
+        while ((current = keys[i]) != null && current != k && !current.equals(k)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void insert(int i, Object k, Object value) {
+        keys[i] = k;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Calls an action for each group.
+     *
+     * @param action The action taking the key and the state of a group.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Object, V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i] == NULL_KEY ? null : keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of groups.
+     *
+     * @return The number of groups.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        var oldKeys = keys;
+        var oldValues = values;
+        keys = new Object[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = index(oldKeys[j], mask);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
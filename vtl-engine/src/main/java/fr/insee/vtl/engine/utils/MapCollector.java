@@ -2,7 +2,6 @@ package fr.insee.vtl.engine.utils;
 
 import fr.insee.vtl.model.Structured;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -14,14 +13,18 @@ import java.util.stream.Collector;
 
 /**
  * The <code>MapCollector</code> class represents a collector operating on columns of a dataset.
+ * <p>
+ * The collectors are stored by slot, the index of their column in the structure, so that no lookup by name is
+ * needed per data point.
  */
 public class MapCollector implements Collector<Structured.DataPoint, Structured.DataPoint, Structured.DataPoint> {
 
     private final Structured.DataStructure structure;
-    private final Map<String, Supplier<Object>> supplierMap = new HashMap<>();
-    private final Map<String, BiConsumer<Object, Structured.DataPoint>> accumulatorMap = new HashMap<>();
-    private final Map<String, BinaryOperator<Object>> combinerMap = new HashMap<>();
-    private final Map<String, Function<Object, Object>> finisherMap = new HashMap<>();
+    private final int[] slots;
+    private final Supplier<Object>[] suppliers;
+    private final BiConsumer<Object, Structured.DataPoint>[] accumulators;
+    private final BinaryOperator<Object>[] combiners;
+    private final Function<Object, Object>[] finishers;
 
     /**
      * Constructor taking a dataset structure and a map between component names and associated collectors.
@@ -29,16 +32,26 @@ public class MapCollector implements Collector<Structured.DataPoint, Structured.
      * @param structure    The dataset structure on which to operate.
      * @param collectorMap A map between column names and collectors.
      */
+    @SuppressWarnings("unchecked")
     public MapCollector(Structured.DataStructure structure, Map<String, ? extends Collector<Structured.DataPoint, Object, Object>> collectorMap) {
         this.structure = Objects.requireNonNull(structure);
         if (!structure.keySet().containsAll(collectorMap.keySet())) {
             throw new IllegalArgumentException("inconsistent collector map");
         }
+        int size = collectorMap.size();
+        slots = new int[size];
+        suppliers = new Supplier[size];
+        accumulators = new BiConsumer[size];
+        combiners = new BinaryOperator[size];
+        finishers = new Function[size];
+        int i = 0;
         for (Map.Entry<String, ? extends Collector<Structured.DataPoint, Object, Object>> entry : collectorMap.entrySet()) {
-            supplierMap.put(entry.getKey(), entry.getValue().supplier());
-            accumulatorMap.put(entry.getKey(), entry.getValue().accumulator());
-            combinerMap.put(entry.getKey(), entry.getValue().combiner());
-            finisherMap.put(entry.getKey(), entry.getValue().finisher());
+            slots[i] = structure.indexOfKey(entry.getKey());
+            suppliers[i] = entry.getValue().supplier();
+            accumulators[i] = entry.getValue().accumulator();
+            combiners[i] = entry.getValue().combiner();
+            finishers[i] = entry.getValue().finisher();
+            i++;
         }
     }
 
@@ -46,9 +59,8 @@ public class MapCollector implements Collector<Structured.DataPoint, Structured.
     public Supplier<Structured.DataPoint> supplier() {
         return () -> {
             Structured.DataPoint dataPoint = new Structured.DataPoint(structure);
-            for (Map.Entry<String, Supplier<Object>> entry : supplierMap.entrySet()) {
-                String column = entry.getKey();
-                dataPoint.set(column, entry.getValue().get());
+            for (int i = 0; i < slots.length; i++) {
+                dataPoint.set(slots[i], suppliers[i].get());
             }
             return dataPoint;
         };
@@ -57,10 +69,8 @@ public class MapCollector implements Collector<Structured.DataPoint, Structured.
     @Override
     public BiConsumer<Structured.DataPoint, Structured.DataPoint> accumulator() {
         return (map, context) -> {
-            for (Map.Entry<String, BiConsumer<Object, Structured.DataPoint>> entry : accumulatorMap.entrySet()) {
-                String column = entry.getKey();
-                Object accumulatorValue = map.get(column);
-                entry.getValue().accept(accumulatorValue, context);
+            for (int i = 0; i < slots.length; i++) {
+                accumulators[i].accept(map.get(slots[i]), context);
             }
         };
     }
@@ -68,10 +78,8 @@ public class MapCollector implements Collector<Structured.DataPoint, Structured.
     @Override
     public BinaryOperator<Structured.DataPoint> combiner() {
         return (map, map2) -> {
-            for (Map.Entry<String, BinaryOperator<Object>> entry : combinerMap.entrySet()) {
-                String column = entry.getKey();
-                Object newValue = entry.getValue().apply(map.get(column), map2.get(column));
-                map.set(column, newValue);
+            for (int i = 0; i < slots.length; i++) {
+                map.set(slots[i], combiners[i].apply(map.get(slots[i]), map2.get(slots[i])));
             }
             return map;
         };
@@ -80,9 +88,8 @@ public class MapCollector implements Collector<Structured.DataPoint, Structured.
     @Override
     public Function<Structured.DataPoint, Structured.DataPoint> finisher() {
         return map -> {
-            for (Map.Entry<String, Function<Object, Object>> entry : finisherMap.entrySet()) {
-                String column = entry.getKey();
-                map.set(column, entry.getValue().apply(map.get(column)));
+            for (int i = 0; i < slots.length; i++) {
+                map.set(slots[i], finishers[i].apply(map.get(slots[i])));
             }
             return map;
         };
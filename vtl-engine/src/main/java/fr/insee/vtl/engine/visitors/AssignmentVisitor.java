@@ -9,7 +9,6 @@ import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
-import javax.script.Bindings;
 import javax.script.ScriptContext;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +27,7 @@ public class AssignmentVisitor extends VtlBaseVisitor<Object> {
     private final VtlScriptEngine engine;
     private final ProcessingEngine processingEngine;
     private final ExpressionVisitor expressionVisitor;
+    private final Map<String, Object> bindings;
 
     /**
      * Constructor taking a scripting engine and a processing engine.
@@ -36,19 +36,32 @@ public class AssignmentVisitor extends VtlBaseVisitor<Object> {
      * @param processingEngine The processing engine.
      */
     public AssignmentVisitor(VtlScriptEngine engine, ProcessingEngine processingEngine) {
+        this(engine, processingEngine, engine.getBindings(ScriptContext.ENGINE_SCOPE));
+    }
+
+    /**
+     * Constructor taking a scripting engine, a processing engine and the bindings the variables are read from and
+     * assigned to.
+     *
+     * @param engine           The scripting engine.
+     * @param processingEngine The processing engine.
+     * @param bindings         The bindings.
+     */
+    public AssignmentVisitor(VtlScriptEngine engine, ProcessingEngine processingEngine, Map<String, Object> bindings) {
         this.engine = Objects.requireNonNull(engine);
         this.processingEngine = Objects.requireNonNull(processingEngine);
-        expressionVisitor = new ExpressionVisitor(
-                engine.getBindings(ScriptContext.ENGINE_SCOPE),
-                processingEngine,
-                engine);
+        this.bindings = Objects.requireNonNull(bindings);
+        expressionVisitor = new ExpressionVisitor(bindings, processingEngine, engine);
     }
 
     @Override
     public Object visitTemporaryAssignment(VtlParser.TemporaryAssignmentContext ctx) {
         ResolvableExpression resolvableExpression = expressionVisitor.visit(ctx.expr());
-        Bindings bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
         Object assignedObject = resolvableExpression.resolve(bindings);
+        if (assignedObject instanceof StreamDataset) {
+            // Run the pipeline once, the bound dataset can then be read many times.
+            assignedObject = ((StreamDataset) assignedObject).materialize();
+        }
         String variableIdentifier = ctx.varID().getText();
         bindings.put(variableIdentifier, assignedObject);
         return assignedObject;
@@ -135,7 +148,6 @@ public class AssignmentVisitor extends VtlBaseVisitor<Object> {
                 alias,
                 erCodeType,
                 erLevelType);
-        Bindings bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
         bindings.put(rulesetName, dataPointRuleset);
         return dataPointRuleset;
     }
@@ -3,6 +3,7 @@ package fr.insee.vtl.engine.visitors;
 import fr.insee.vtl.engine.VtlScriptEngine;
 import fr.insee.vtl.engine.exceptions.InvalidArgumentException;
 import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.engine.expressions.ComponentExpression;
 import fr.insee.vtl.engine.visitors.expression.ExpressionVisitor;
 import fr.insee.vtl.model.AggregationExpression;
 import fr.insee.vtl.model.Dataset;
@@ -224,17 +225,7 @@ public class ClauseVisitor extends VtlBaseVisitor<DatasetExpression> {
                 var aggregationFunction = convertToAggregation(
                         // Note that here we replace the expression by the name of the columns.
                         (VtlParser.AggrDatasetContext) functionCtx.aggrOperatorsGrouping(),
-                        new ResolvableExpression(fromContext(ctx)) {
-                            @Override
-                            public Object resolve(Map<String, Object> context) {
-                                return context.get(alias);
-                            }
-
-                            @Override
-                            public Class<?> getType() {
-                                return normalizedComponent.getType();
-                            }
-                        }
+                        new ComponentExpression(normalizedComponent, fromContext(ctx))
                 );
                 collectorMap.put(alias, aggregationFunction);
             } else {
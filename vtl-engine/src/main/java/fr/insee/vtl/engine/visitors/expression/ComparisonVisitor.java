@@ -41,7 +41,7 @@ public class ComparisonVisitor extends VtlBaseVisitor<ResolvableExpression> {
         this.genericFunctionsVisitor = genericFunctionsVisitor;
     }
 
-    private static Integer compare(Object left, Object right) throws Exception {
+    public static Integer compare(Object left, Object right) throws Exception {
         if (left == null || right == null) {
             return null;
         }
@@ -4,6 +4,7 @@ import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
 import fr.insee.vtl.engine.visitors.expression.functions.GenericFunctionsVisitor;
 import fr.insee.vtl.model.Positioned;
 import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
 import fr.insee.vtl.model.exceptions.VtlScriptException;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
@@ -93,6 +94,9 @@ public class ConditionalVisitor extends VtlBaseVisitor<ResolvableExpression> {
             Positioned position = fromContext(ctx);
             ResolvableExpression expression = genericFunctionsVisitor.invokeFunction("ifThenElse", List.of(conditionalExpr, thenExpression, elseExpression), position);
             Class<?> actualType = thenExpression.getType();
+            if (actualType.equals(expression.getType())) {
+                return expression;
+            }
             return new CastExpression(position, expression, actualType);
         } catch (VtlScriptException e) {
             throw new VtlRuntimeException(e);
@@ -133,6 +137,11 @@ public class ConditionalVisitor extends VtlBaseVisitor<ResolvableExpression> {
             return type.cast(expression.resolve(context));
         }
 
+        @Override
+        public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+            return type.cast(expression.resolve(dataPoint, context));
+        }
+
         @Override
         public Class<?> getType() {
             return type;
@@ -55,6 +55,7 @@ public class ExpressionVisitor extends VtlBaseVisitor<ResolvableExpression> {
     private final ValidationFunctionsVisitor validationFunctionsVisitor;
     private final ProcessingEngine processingEngine;
     private final VtlScriptEngine engine;
+    private final Map<String, Object> context;
 
     /**
      * Constructor taking a scripting context and a processing engine.
@@ -64,7 +65,7 @@ public class ExpressionVisitor extends VtlBaseVisitor<ResolvableExpression> {
      */
     // TODO: Use script context to get bindings
     public ExpressionVisitor(Map<String, Object> context, ProcessingEngine processingEngine, VtlScriptEngine engine) {
-        Objects.requireNonNull(context);
+        this.context = Objects.requireNonNull(context);
         genericFunctionsVisitor = new GenericFunctionsVisitor(this, engine);
         varIdVisitor = new VarIdVisitor(context);
         booleanVisitor = new BooleanVisitor(this, genericFunctionsVisitor);
@@ -79,12 +80,30 @@ public class ExpressionVisitor extends VtlBaseVisitor<ResolvableExpression> {
         joinFunctionsVisitor = new JoinFunctionsVisitor(this, processingEngine);
         numericFunctionsVisitor = new NumericFunctionsVisitor(this, genericFunctionsVisitor);
         distanceFunctionsVisitor = new DistanceFunctionsVisitor(this, genericFunctionsVisitor);
-        timeFunctionsVisitor = new TimeFunctionsVisitor();
+        timeFunctionsVisitor = new TimeFunctionsVisitor(context);
         validationFunctionsVisitor = new ValidationFunctionsVisitor(this, processingEngine, engine);
         this.processingEngine = Objects.requireNonNull(processingEngine);
         this.engine = Objects.requireNonNull(engine);
     }
 
+    /**
+     * Returns the context the variables are read from.
+     *
+     * @return The map representing the context.
+     */
+    public Map<String, Object> getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the processing engine the expressions are built with.
+     *
+     * @return The processing engine.
+     */
+    public ProcessingEngine getProcessingEngine() {
+        return processingEngine;
+    }
+
     /**
      * Visits constant expressions.
      *
@@ -133,7 +152,7 @@ public class ExpressionVisitor extends VtlBaseVisitor<ResolvableExpression> {
                     .filter(Structured.Component::isIdentifier)
                     .map(Structured.Component::getName).collect(Collectors.toCollection(ArrayList::new));
             components.add(componentName);
-            return this.engine.getProcessingEngine().executeProject((DatasetExpression) ds, components);
+            return processingEngine.executeProject((DatasetExpression) ds, components);
         } catch (VtlScriptException vse) {
             throw new VtlRuntimeException(vse);
         }
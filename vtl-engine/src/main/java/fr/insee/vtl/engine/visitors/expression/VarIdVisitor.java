@@ -43,6 +43,11 @@ public class VarIdVisitor extends VtlBaseVisitor<ResolvableExpression> implement
         }
 
         Object value = context.get(variableName);
+        if (value instanceof ResolvableExpression) {
+            // Variable bound by a compiled script, read from the bindings at execution time.
+            return (ResolvableExpression) value;
+        }
+
         if (value instanceof Dataset) {
             return DatasetExpression.of((Dataset) value, pos);
         }
@@ -6,8 +6,10 @@ import fr.insee.vtl.engine.exceptions.InvalidArgumentException;
 import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
 import fr.insee.vtl.engine.expressions.CastExpression;
 import fr.insee.vtl.engine.expressions.ComponentExpression;
+import fr.insee.vtl.engine.expressions.ExpressionCompiler;
 import fr.insee.vtl.engine.expressions.FunctionExpression;
 import fr.insee.vtl.engine.visitors.expression.ExpressionVisitor;
+import fr.insee.vtl.model.ConstantExpression;
 import fr.insee.vtl.model.Dataset;
 import fr.insee.vtl.model.DatasetExpression;
 import fr.insee.vtl.model.Positioned;
@@ -15,6 +17,7 @@ import fr.insee.vtl.model.ProcessingEngine;
 import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.model.Structured;
 import fr.insee.vtl.model.TypedExpression;
+import fr.insee.vtl.model.VtlMethod;
 import fr.insee.vtl.model.exceptions.VtlScriptException;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
@@ -77,7 +80,7 @@ public class GenericFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression
     }
 
     public List<DatasetExpression> splitToMonoMeasure(DatasetExpression dataset) {
-        ProcessingEngine proc = engine.getProcessingEngine();
+        ProcessingEngine proc = exprVisitor.getProcessingEngine();
         List<Structured.Component> identifiers = dataset.getIdentifiers();
         return dataset.getMeasures().stream().map(measure -> {
             List<String> idAndMeasure = Stream.concat(identifiers.stream(), Stream.of(measure))
@@ -98,7 +101,7 @@ public class GenericFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression
                 );
             }
 
-            ProcessingEngine proc = engine.getProcessingEngine();
+            ProcessingEngine proc = exprVisitor.getProcessingEngine();
 
             // TODO: if (noMonoDs has not same shape) throw
 
@@ -114,7 +117,7 @@ public class GenericFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression
                 if (method == null) {
                     method = engine.findMethod(funcName, parameterTypes);
                 }
-                return new FunctionExpression(method, parameters, position);
+                return createFunctionExpression(method, parameters, position);
             } else if (noMonoDs.isEmpty()) {
                 finalRes = invokeFunctionOnDataset(funcName, parameters, position);
             } else {
@@ -147,8 +150,21 @@ public class GenericFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression
         }
     }
 
+    /**
+     * Creates the expression invoking a method. Native operators are compiled into dedicated expressions,
+     * other methods are invoked by reflection. Native operators on constants are folded.
+     */
+    private ResolvableExpression createFunctionExpression(VtlMethod method, List<ResolvableExpression> parameters,
+                                                          Positioned position) throws VtlScriptException {
+        // The function expression checks the parameters.
+        var functionExpression = new FunctionExpression(method, parameters, position);
+        var expression = ExpressionCompiler.compile(method.getMethod(position), parameters, position)
+                .orElse(functionExpression);
+        return ExpressionCompiler.fold(method.getMethod(position), expression, parameters, position);
+    }
+
     private DatasetExpression invokeFunctionOnDataset(String funcName, List<ResolvableExpression> parameters, Positioned position) throws NoSuchMethodException, VtlScriptException {
-        ProcessingEngine proc = engine.getProcessingEngine();
+        ProcessingEngine proc = exprVisitor.getProcessingEngine();
 
         // Normalize all parameters to datasets first.
         // 1. Join all the datasets together and build a new expression map.
@@ -188,7 +204,7 @@ public class GenericFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression
                 .map(TypedExpression::getType)
                 .collect(Collectors.toList());
         var method = engine.findMethod(funcName, parametersTypes);
-        var funcExrp = new FunctionExpression(method, normalizedParams, position);
+        var funcExrp = createFunctionExpression(method, normalizedParams, position);
         ds = proc.executeCalc(ds, Map.of(result, funcExrp), Map.of(result, Dataset.Role.MEASURE), Map.of());
         ds = proc.executeProject(ds, Stream.concat(ds.getIdentifiers().stream().map(Structured.Component::getName), Stream.of(result)).collect(Collectors.toList()));
         return proc.executeRename(ds, Map.of(result, measureNames.iterator().next()));
@@ -233,7 +249,10 @@ public class GenericFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression
             return ResolvableExpression.withType(outputClass).withPosition(fromContext(ctx)).using(c -> null);
         }
         try {
-            return new CastExpression(fromContext(ctx), expression, mask, outputClass);
+            var cast = new CastExpression(fromContext(ctx), expression, mask, outputClass);
+            return expression instanceof ConstantExpression
+                    ? ExpressionCompiler.fold(cast, fromContext(ctx))
+                    : cast;
         } catch (VtlScriptException e) {
             throw new VtlRuntimeException(e);
         }
@@ -1,12 +1,15 @@
 package fr.insee.vtl.engine.visitors.expression.functions;
 
-import fr.insee.vtl.model.ConstantExpression;
+import fr.insee.vtl.engine.expressions.CurrentDateExpression;
 import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
 
 import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
 
+import static fr.insee.vtl.engine.VtlScriptEngine.CURRENT_DATE;
 import static fr.insee.vtl.engine.VtlScriptEngine.fromContext;
 
 /**
@@ -14,14 +17,29 @@ import static fr.insee.vtl.engine.VtlScriptEngine.fromContext;
  */
 public class TimeFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression> {
 
+    private final Map<String, Object> context;
+
+    /**
+     * Constructor taking a scripting context.
+     *
+     * @param context The context for the visitor.
+     */
+    public TimeFunctionsVisitor(Map<String, Object> context) {
+        this.context = Objects.requireNonNull(context);
+    }
+
     /**
      * Visits the current date expression.
      *
-     * @param ctx The scripting context for the expression (left and right expressions should be the string parameters).
-     * @return A <code>ResolvableExpression</code> resolving to a long integer representing the Levenshtein distance between the parameters.
+     * @param ctx The scripting context for the expression.
+     * @return A <code>ResolvableExpression</code> resolving to the instant of the evaluation.
+     * @see CurrentDateExpression
      */
     @Override
     public ResolvableExpression visitCurrentDateAtom(VtlParser.CurrentDateAtomContext ctx) {
-        return new ConstantExpression(Instant.now(), fromContext(ctx));
+        // Instant of the evaluation being visited, for the contexts that do not have one.
+        Object visited = context.get(CURRENT_DATE);
+        Instant fallback = visited instanceof Instant ? (Instant) visited : Instant.now();
+        return new CurrentDateExpression(fallback, fromContext(ctx));
     }
 }
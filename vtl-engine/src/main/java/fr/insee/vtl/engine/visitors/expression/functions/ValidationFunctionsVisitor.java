@@ -56,7 +56,9 @@ public class ValidationFunctionsVisitor extends VtlBaseVisitor<ResolvableExpress
     public ResolvableExpression visitValidateDPruleset(VtlParser.ValidateDPrulesetContext ctx) {
         // get DataPointRuleset
         String dprName = ctx.dpName.getText();
-        Object dprObject = engine.getContext().getAttribute((dprName));
+        Object dprObject = expressionVisitor.getContext().containsKey(dprName)
+                ? expressionVisitor.getContext().get(dprName)
+                : engine.getContext().getAttribute(dprName);
         String output = getValidationOutput(ctx.validationOutput());
         if (!(dprObject instanceof DataPointRuleset))
             throw new VtlRuntimeException(new UndefinedVariableException(dprName, fromContext(ctx)));
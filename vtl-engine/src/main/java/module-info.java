@@ -12,6 +12,7 @@ import javax.script.ScriptEngineFactory;
  */
 module fr.insee.vtl.engine {
     exports fr.insee.vtl.engine.exceptions;
+    exports fr.insee.vtl.engine.expressions;
 
     requires transitive java.scripting;
     requires transitive fr.insee.vtl.parser;
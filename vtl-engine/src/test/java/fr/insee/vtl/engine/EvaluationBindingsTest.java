@@ -0,0 +1,33 @@
+package fr.insee.vtl.engine;
+
+import org.junit.jupiter.api.Test;
+
+import javax.script.SimpleBindings;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EvaluationBindingsTest {
+
+    @Test
+    public void testCurrentDateIsNotWritten() {
+        var bindings = new SimpleBindings();
+        bindings.put("a", 1L);
+        bindings.put(VtlScriptEngine.CURRENT_DATE, Instant.EPOCH);
+
+        var first = new EvaluationBindings(bindings);
+        bindings.put(VtlScriptEngine.CURRENT_DATE, Instant.MAX);
+        var second = new EvaluationBindings(bindings);
+        bindings.remove(VtlScriptEngine.CURRENT_DATE);
+
+        assertThat(first.get(VtlScriptEngine.CURRENT_DATE)).isEqualTo(Instant.EPOCH);
+        assertThat(second.get(VtlScriptEngine.CURRENT_DATE)).isEqualTo(Instant.MAX);
+        assertThat(first).containsEntry("a", 1L).hasSize(2);
+
+        first.put("b", 2L);
+        assertThat(bindings).containsEntry("b", 2L).doesNotContainKey(VtlScriptEngine.CURRENT_DATE);
+        assertThatThrownBy(() -> first.remove(VtlScriptEngine.CURRENT_DATE))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
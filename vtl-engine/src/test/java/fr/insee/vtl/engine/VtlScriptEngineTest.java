@@ -14,15 +14,28 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 public class VtlScriptEngineTest {
 
@@ -65,6 +78,307 @@ public class VtlScriptEngineTest {
         assertThat(processingEngines).isNotNull();
     }
 
+    @Test
+    public void testParallelExecution() throws ScriptException {
+        List<List<Object>> data = new ArrayList<>();
+        for (long i = 0; i < 10_000; i++) {
+            data.add(List.of("id" + i, i % 7, i));
+        }
+        var ds = new InMemoryDataset(data, List.of(
+                new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                new Structured.Component("grp", Long.class, Dataset.Role.MEASURE),
+                new Structured.Component("amount", Long.class, Dataset.Role.MEASURE)
+        ));
+        var script = "filtered := ds[filter amount > 100][calc twice := amount * 2];\n" +
+                "grouped := ds[aggr sumAmount := sum(amount), n := count(amount) group by grp];";
+
+        engine.put("ds", ds);
+        engine.eval(script);
+        var expectedFiltered = ((Dataset) engine.get("filtered")).getDataAsList();
+        var expectedGrouped = ((Dataset) engine.get("grouped")).getDataAsMap();
+
+        var pool = new ForkJoinPool(4);
+        try {
+            engine.put(VtlScriptEngine.PROCESSING_ENGINE_PARALLELISM, pool);
+            engine.eval(script);
+            assertThat(((Dataset) engine.get("filtered")).getDataAsList()).isEqualTo(expectedFiltered);
+            assertThat(((Dataset) engine.get("grouped")).getDataAsMap())
+                    .containsExactlyInAnyOrderElementsOf(expectedGrouped);
+        } finally {
+            pool.shutdown();
+        }
+
+        engine.put(VtlScriptEngine.PROCESSING_ENGINE_PARALLELISM, 4);
+        assertThatThrownBy(() -> ((VtlScriptEngine) engine).getProcessingEngine())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testApproximateMedian() throws ScriptException {
+        List<List<Object>> data = new ArrayList<>();
+        for (long i = 0; i < 100_000; i++) {
+            data.add(List.of("id" + i, i % 2, i));
+        }
+        engine.put("ds", new InMemoryDataset(data, List.of(
+                new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                new Structured.Component("grp", Long.class, Dataset.Role.MEASURE),
+                new Structured.Component("amount", Long.class, Dataset.Role.MEASURE)
+        )));
+        var script = "res := ds[aggr m := median(amount) group by grp];";
+        var compiled = ((Compilable) engine).compile(script);
+
+        engine.eval(script);
+        assertThat(((Dataset) engine.get("res")).getDataAsList()).containsExactly(
+                List.of(0L, 49_999.0), List.of(1L, 50_000.0)
+        );
+
+        // The approximation has a rank error below 1% of the 50 000 values of each group.
+        engine.put(VtlScriptEngine.APPROXIMATE_MEDIAN, 256);
+        var pool = new ForkJoinPool(4);
+        try {
+            engine.eval(script);
+            assertThat(((Dataset) engine.get("res")).getDataAsList()).isNotEqualTo(List.of(
+                    List.of(0L, 49_999.0), List.of(1L, 50_000.0)
+            ));
+            assertMedians((Dataset) engine.get("res"), 50_000.0, 1_000.0);
+            engine.put(VtlScriptEngine.PROCESSING_ENGINE_PARALLELISM, pool);
+            assertMedians((Dataset) compiled.eval(), 50_000.0, 1_000.0);
+        } finally {
+            pool.shutdown();
+        }
+
+        // A plan compiled for the exact median is not reused.
+        engine.put(VtlScriptEngine.PROCESSING_ENGINE_PARALLELISM, false);
+        engine.put(VtlScriptEngine.APPROXIMATE_MEDIAN, false);
+        assertThat(((Dataset) compiled.eval()).getDataAsList()).containsExactly(
+                List.of(0L, 49_999.0), List.of(1L, 50_000.0)
+        );
+
+        engine.put(VtlScriptEngine.APPROXIMATE_MEDIAN, 1);
+        assertThatThrownBy(() -> engine.eval(script))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertMedians(Dataset dataset, double expected, double tolerance) {
+        for (Map<String, Object> row : dataset.getDataAsMap()) {
+            assertThat((Double) row.get("m")).isCloseTo(expected, within(tolerance));
+        }
+    }
+
+    @Test
+    public void testParseCache() throws ScriptException {
+        engine.put(VtlScriptEngine.PARSE_CACHE_SIZE, 1);
+        engine.put("a", 1L);
+        engine.eval("b := a + 1;");
+        assertThat(engine.get("b")).isEqualTo(2L);
+        engine.put("a", 2L);
+        engine.eval("b := a + 1;");
+        assertThat(engine.get("b")).isEqualTo(3L);
+        engine.eval("c := b * 2;");
+        engine.eval("b := a + 1;");
+        assertThat(engine.get("c")).isEqualTo(6L);
+
+        assertThatThrownBy(() -> engine.eval("var := 40 + 42"))
+                .isInstanceOf(VtlSyntaxException.class);
+        assertThatThrownBy(() -> engine.eval("var := 40 + 42"))
+                .isInstanceOf(VtlSyntaxException.class);
+
+        engine.put(VtlScriptEngine.PARSE_CACHE_SIZE, true);
+        assertThatThrownBy(() -> engine.eval("b := a + 1;"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // The setting of the script engine applies to other bindings, unless they have their own.
+        Bindings bindings = engine.createBindings();
+        bindings.put("a", 1L);
+        assertThatThrownBy(() -> engine.eval("b := a + 1;", bindings))
+                .isInstanceOf(IllegalArgumentException.class);
+        engine.put(VtlScriptEngine.PARSE_CACHE_SIZE, 1);
+        engine.eval("b := a + 1;", bindings);
+        assertThat(bindings.get("b")).isEqualTo(2L);
+        bindings.put(VtlScriptEngine.PARSE_CACHE_SIZE, "x");
+        assertThatThrownBy(() -> engine.eval("b := a + 1;", bindings))
+                .isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void testCompiledScript() throws ScriptException {
+        var structure = List.of(
+                new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                new Structured.Component("grp", Long.class, Dataset.Role.MEASURE),
+                new Structured.Component("amount", Long.class, Dataset.Role.MEASURE)
+        );
+        var compiled = ((Compilable) engine).compile(
+                "limit := threshold * 2;\n" +
+                        "filtered := ds[filter amount > 1][calc twice := amount * 2];\n" +
+                        "grouped := filtered[aggr sumAmount := sum(amount) group by grp];");
+
+        Bindings first = engine.createBindings();
+        first.put("threshold", 1L);
+        first.put("ds", new InMemoryDataset(List.of(
+                List.of("a", 1L, 1L),
+                List.of("b", 1L, 2L),
+                List.of("c", 2L, 3L)
+        ), structure));
+        compiled.eval(first);
+        assertThat(((Dataset) first.get("filtered")).getDataAsList()).containsExactly(
+                List.of("b", 1L, 2L, 4L),
+                List.of("c", 2L, 3L, 6L)
+        );
+
+        Bindings second = engine.createBindings();
+        second.put("threshold", 1L);
+        second.put("ds", new InMemoryDataset(List.of(
+                List.of("d", 3L, 10L),
+                List.of("e", 3L, 20L)
+        ), structure));
+        var result = compiled.eval(second);
+        assertThat(((Dataset) result).getDataAsList()).containsExactly(List.of(3L, 30L));
+        assertThat(((Dataset) first.get("grouped")).getDataAsList()).containsExactly(
+                List.of(1L, 2L),
+                List.of(2L, 3L)
+        );
+
+        assertThat(second.get("limit")).isEqualTo(2L);
+
+        second.put("threshold", 5L);
+        compiled.eval(second);
+        assertThat(second.get("limit")).isEqualTo(10L);
+        assertThat(first.get("limit")).isEqualTo(2L);
+
+        second.put("threshold", 4);
+        compiled.eval(second);
+        assertThat(second.get("limit")).isEqualTo(8L);
+
+        Bindings missing = engine.createBindings();
+        assertThatThrownBy(() -> compiled.eval(missing))
+                .isInstanceOf(UndefinedVariableException.class);
+        assertThatThrownBy(() -> ((Compilable) engine).compile("var := 40 + 42"))
+                .isInstanceOf(VtlSyntaxException.class);
+    }
+
+    @Test
+    public void testCompiledScriptCurrentDate() throws Exception {
+        var structure = List.of(
+                new Structured.Component("id", Long.class, Dataset.Role.IDENTIFIER)
+        );
+        List<List<Object>> rows = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            rows.add(List.of(i));
+        }
+        var compiled = ((Compilable) engine).compile(
+                "now := current_date();\nsame := now;\nres := ds[calc today := current_date()];");
+
+        Bindings bindings = engine.createBindings();
+        bindings.put("ds", new InMemoryDataset(rows, structure));
+        compiled.eval(bindings);
+        var now = (Instant) bindings.get("now");
+        assertThat(bindings.get("same")).isEqualTo(now);
+        assertThat(((Dataset) bindings.get("res")).getDataAsMap())
+                .allSatisfy(row -> assertThat(row.get("today")).isEqualTo(now));
+        assertThat(bindings).doesNotContainKey(VtlScriptEngine.CURRENT_DATE);
+
+        for (Instant date : List.of(Instant.EPOCH, Instant.parse("2021-06-01T00:00:00Z"))) {
+            bindings.put(VtlScriptEngine.CURRENT_DATE, date);
+            compiled.eval(bindings);
+            assertThat(bindings.get("now")).isEqualTo(date);
+            assertThat(bindings.get("same")).isEqualTo(date);
+            assertThat(((Dataset) bindings.get("res")).getDataAsMap())
+                    .allSatisfy(row -> assertThat(row.get("today")).isEqualTo(date));
+            assertThat(bindings).containsEntry(VtlScriptEngine.CURRENT_DATE, date);
+        }
+    }
+
+    @Test
+    public void testCompiledScriptSettingsFromContext() throws Exception {
+        var structure = List.of(
+                new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                new Structured.Component("amount", Long.class, Dataset.Role.MEASURE)
+        );
+        var compiled = ((Compilable) engine).compile("res := ds[filter amount > 1];");
+
+        var pool = new ForkJoinPool(2);
+        try {
+            Bindings bindings = engine.createBindings();
+            bindings.put(VtlScriptEngine.PROCESSING_ENGINE_PARALLELISM, pool);
+            bindings.put("ds", new InMemoryDataset(List.of(List.of("a", 1L), List.of("b", 2L)), structure));
+            var context = new SimpleScriptContext();
+            context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+            assertThat(((VtlScriptEngine) engine).getForkJoinPool(context)).containsSame(pool);
+            assertThat(((VtlScriptEngine) engine).getForkJoinPool()).isEmpty();
+
+            assertThat(((Dataset) compiled.eval(context)).getDataAsList()).isEqualTo(List.of(List.of("b", 2L)));
+        } finally {
+            pool.shutdown();
+        }
+
+        Bindings bindings = engine.createBindings();
+        bindings.put(VtlScriptEngine.PROCESSING_ENGINE_PARALLELISM, 4);
+        bindings.put("ds", new InMemoryDataset(List.of(List.of("a", 1L)), structure));
+        assertThatThrownBy(() -> compiled.eval(bindings))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testSettingsFromScriptEngine() throws Exception {
+        var compiled = ((Compilable) engine).compile("b := a + 1;");
+
+        // Settings put on the script engine apply to evaluations with other bindings.
+        engine.put(VtlScriptEngine.PROCESSING_ENGINE_NAMES, "unknown");
+        Bindings bindings = new SimpleBindings(new HashMap<>(Map.of("a", 1L)));
+        assertThatThrownBy(() -> engine.eval("b := a + 1;", bindings))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> compiled.eval(bindings))
+                .isInstanceOf(NoSuchElementException.class);
+
+        // The bindings of the evaluation take precedence.
+        bindings.put(VtlScriptEngine.PROCESSING_ENGINE_NAMES, "memory");
+        engine.eval("b := a + 1;", bindings);
+        assertThat(bindings.get("b")).isEqualTo(2L);
+        bindings.put("a", 2L);
+        compiled.eval(bindings);
+        assertThat(bindings.get("b")).isEqualTo(3L);
+
+        var pool = new ForkJoinPool(2);
+        try {
+            engine.put(VtlScriptEngine.PROCESSING_ENGINE_PARALLELISM, pool);
+            var context = new SimpleScriptContext();
+            context.setBindings(new SimpleBindings(), ScriptContext.ENGINE_SCOPE);
+            assertThat(((VtlScriptEngine) engine).getForkJoinPool(context)).containsSame(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompiledScriptConcurrently() throws Exception {
+        var structure = List.of(
+                new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                new Structured.Component("amount", Long.class, Dataset.Role.MEASURE)
+        );
+        var compiled = ((Compilable) engine).compile("res := ds[calc twice := amount * 2][filter twice > 2];");
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (long i = 0; i < 32; i++) {
+                long amount = i;
+                results.add(executor.submit(() -> {
+                    Bindings bindings = engine.createBindings();
+                    bindings.put("ds", new InMemoryDataset(List.of(
+                            List.of("a", 1L),
+                            List.of("b", amount)
+                    ), structure));
+                    return compiled.eval(bindings);
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                var expected = i > 1 ? List.of(List.<Object>of("b", (long) i, 2L * i)) : List.of();
+                assertThat(((Dataset) results.get(i).get()).getDataAsList()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testFunctionsExpression() throws NoSuchMethodException, ScriptException {
 
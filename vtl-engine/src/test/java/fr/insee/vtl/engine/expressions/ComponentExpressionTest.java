@@ -0,0 +1,34 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.Structured;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ComponentExpressionTest {
+
+    private static final Positioned POSITION = () -> new Positioned.Position(0, 0, 0, 0);
+
+    @Test
+    public void testResolveByPosition() {
+        var id = new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER);
+        var measure = new Structured.Component("m", Long.class, Dataset.Role.MEASURE);
+        var expression = new ComponentExpression(measure, POSITION);
+
+        var structure = new Structured.DataStructure(List.of(id, measure));
+        var point = new Structured.DataPoint(structure, Arrays.asList("a", 1L));
+        assertThat(expression.resolve(point)).isEqualTo(1L);
+        assertThat(expression.resolve(new Structured.DataPointMap(point))).isEqualTo(1L);
+
+        // The position is resolved again when the structure changes.
+        var otherStructure = new Structured.DataStructure(List.of(measure, id));
+        var otherPoint = new Structured.DataPoint(otherStructure, Arrays.asList(2L, "b"));
+        assertThat(expression.resolve(otherPoint)).isEqualTo(2L);
+        assertThat(expression.resolve(point)).isEqualTo(1L);
+    }
+}
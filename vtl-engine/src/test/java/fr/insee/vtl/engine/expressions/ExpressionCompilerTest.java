@@ -0,0 +1,199 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.engine.TextFunctions;
+import fr.insee.vtl.engine.visitors.expression.ArithmeticExprOrConcatVisitor;
+import fr.insee.vtl.engine.visitors.expression.ArithmeticVisitor;
+import fr.insee.vtl.engine.visitors.expression.ComparisonVisitor;
+import fr.insee.vtl.engine.visitors.expression.functions.ComparisonFunctionsVisitor;
+import fr.insee.vtl.engine.visitors.expression.functions.StringFunctionsVisitor;
+import fr.insee.vtl.model.ConstantExpression;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.ListExpression;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpressionCompilerTest {
+
+    private static final Positioned POSITION = () -> new Positioned.Position(0, 0, 0, 0);
+
+    /**
+     * Finds the method by reflection: the lambdas of this package cannot be read by {@code Fun.toMethod}, the
+     * package not being open.
+     */
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static ResolvableExpression constant(Object value) {
+        return new ConstantExpression(value, POSITION);
+    }
+
+    @Test
+    public void testCompileArithmetic() {
+        var addition = ExpressionCompiler.compile(
+                method(ArithmeticExprOrConcatVisitor.class, "addition", Long.class, Long.class),
+                List.of(constant(1L), constant(2L)),
+                POSITION
+        ).orElseThrow();
+        assertThat(addition).isInstanceOf(ArithmeticExpression.class);
+        assertThat(addition.getType()).isEqualTo(Long.class);
+        assertThat(addition.resolve(Map.of())).isEqualTo(3L);
+
+        var division = ExpressionCompiler.compile(
+                method(ArithmeticVisitor.class, "division", Long.class, Long.class),
+                List.of(constant(1L), constant(2L)),
+                POSITION
+        ).orElseThrow();
+        assertThat(division.getType()).isEqualTo(Double.class);
+        assertThat(division.resolve(Map.of())).isEqualTo(0.5D);
+
+        var withNull = ExpressionCompiler.compile(
+                method(ArithmeticVisitor.class, "multiplication", Double.class, Long.class),
+                List.of(constant(1.5D), new ResolvableExpression(POSITION) {
+                    @Override
+                    public Object resolve(Map<String, Object> context) {
+                        return null;
+                    }
+
+                    @Override
+                    public Class<?> getType() {
+                        return Long.class;
+                    }
+                }),
+                POSITION
+        ).orElseThrow();
+        assertThat(withNull.resolve(Map.of())).isNull();
+    }
+
+    @Test
+    public void testCompileComparison() {
+        var lessThan = ExpressionCompiler.compile(
+                method(ComparisonVisitor.class, "isLessThan", Object.class, Object.class),
+                List.of(constant(1L), constant(1.5D)),
+                POSITION
+        ).orElseThrow();
+        assertThat(lessThan).isInstanceOf(ComparisonExpression.class);
+        assertThat(lessThan.resolve(Map.of())).isEqualTo(true);
+    }
+
+    @Test
+    public void testUserMethodsAreNotCompiled() {
+        var compiled = ExpressionCompiler.compile(
+                method(TextFunctions.class, "testUpper", String.class),
+                List.of(constant("foo")),
+                POSITION
+        );
+        assertThat(compiled.isPresent()).isFalse();
+    }
+
+    @Test
+    public void testCompilePatterns() {
+        var component = new ComponentExpression(
+                new Structured.Component("label", String.class, Dataset.Role.MEASURE), POSITION);
+        var match = ExpressionCompiler.compile(
+                method(ComparisonFunctionsVisitor.class, "charsetMatch", String.class, String.class),
+                List.of(component, constant("[A-Z]{3}")),
+                POSITION
+        ).orElseThrow();
+        assertThat(match).isInstanceOf(PatternExpression.class);
+        assertThat(match.resolve(Map.of("label", "ABC"))).isEqualTo(true);
+        assertThat(match.resolve(Map.of("label", "ABCD"))).isEqualTo(false);
+
+        var replace = ExpressionCompiler.compile(
+                method(StringFunctionsVisitor.class, "replace", String.class, String.class, String.class),
+                List.of(component, constant("\\s+"), constant(null)),
+                POSITION
+        ).orElseThrow();
+        assertThat(replace.getType()).isEqualTo(String.class);
+        assertThat(replace.resolve(Map.of("label", "a b  c"))).isEqualTo("abc");
+
+        // Patterns that are not literals, or invalid, are left to the function.
+        assertThat(ExpressionCompiler.compile(
+                method(ComparisonFunctionsVisitor.class, "charsetMatch", String.class, String.class),
+                List.of(constant("ABC"), component),
+                POSITION
+        ).isPresent()).isFalse();
+        assertThat(ExpressionCompiler.compile(
+                method(ComparisonFunctionsVisitor.class, "charsetMatch", String.class, String.class),
+                List.of(component, constant("[A-Z")),
+                POSITION
+        ).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testFold() {
+        var method = method(ArithmeticExprOrConcatVisitor.class, "addition", Long.class, Long.class);
+        var parameters = List.of(constant(1L), constant(2L));
+        var addition = ExpressionCompiler.compile(method, parameters, POSITION).orElseThrow();
+        var folded = ExpressionCompiler.fold(method, addition, parameters, POSITION);
+        assertThat(folded).isInstanceOf(ConstantExpression.class);
+        assertThat(folded.getType()).isEqualTo(Long.class);
+        assertThat(folded.resolve(Map.of())).isEqualTo(3L);
+
+        var withNull = List.of(constant(1L), constant(null));
+        var nullAddition = ExpressionCompiler.compile(method, withNull, POSITION).orElseThrow();
+        assertThat(ExpressionCompiler.fold(method, nullAddition, withNull, POSITION)).isSameAs(nullAddition);
+
+        var userMethod = method(TextFunctions.class, "testUpper", String.class);
+        var call = constant("foo");
+        assertThat(ExpressionCompiler.fold(userMethod, call, List.of(call), POSITION)).isSameAs(call);
+    }
+
+    @Test
+    public void testCompileMembership() {
+        var in = method(ComparisonVisitor.class, "in", Object.class, List.class);
+        var notIn = method(ComparisonVisitor.class, "notIn", Object.class, List.class);
+        var longs = ListExpression.withContainedType(List.of(3L, 1L, 2L), Long.class, POSITION);
+        var doubles = ListExpression.withContainedType(List.of(1.5D, 0.5D), Double.class, POSITION);
+        var strings = ListExpression.withContainedType(List.of("a", "b"), String.class, POSITION);
+
+        var compiled = ExpressionCompiler.compile(in, List.of(constant(2L), longs), POSITION).orElseThrow();
+        assertThat(compiled).isInstanceOf(MembershipExpression.class);
+        assertThat(compiled.getType()).isEqualTo(Boolean.class);
+        assertThat(compiled.resolve(Map.of())).isEqualTo(true);
+        assertThat(ExpressionCompiler.compile(in, List.of(constant(4L), longs), POSITION)
+                .orElseThrow().resolve(Map.of())).isEqualTo(false);
+        assertThat(ExpressionCompiler.compile(notIn, List.of(constant(4L), longs), POSITION)
+                .orElseThrow().resolve(Map.of())).isEqualTo(true);
+        assertThat(ExpressionCompiler.compile(in, List.of(constant(0.5D), doubles), POSITION)
+                .orElseThrow().resolve(Map.of())).isEqualTo(true);
+        assertThat(ExpressionCompiler.compile(in, List.of(constant("b"), strings), POSITION)
+                .orElseThrow().resolve(Map.of())).isEqualTo(true);
+        assertThat(ExpressionCompiler.compile(notIn, List.of(constant("c"), strings), POSITION)
+                .orElseThrow().resolve(Map.of())).isEqualTo(true);
+
+        // Same semantics as List.contains: no conversion between integers and numbers, null propagates.
+        assertThat(ExpressionCompiler.compile(in, List.of(constant(1D), longs), POSITION)
+                .orElseThrow().resolve(Map.of())).isEqualTo(false);
+        assertThat(ExpressionCompiler.compile(in, List.of(constant(1L), doubles), POSITION)
+                .orElseThrow().resolve(Map.of())).isEqualTo(false);
+        assertThat(ExpressionCompiler.compile(notIn, List.of(constant(null), longs), POSITION)
+                .orElseThrow().resolve(Map.of())).isNull();
+    }
+
+    @Test
+    public void testMembershipWithNullElements() {
+        var longs = new MembershipExpression(constant(2L), Arrays.asList(null, 1L, 2L), false, POSITION);
+        assertThat(longs.resolve(Map.of())).isEqualTo(true);
+        assertThat(List.<Object>copyOf(longs.getElements())).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(new MembershipExpression(constant(3L), Arrays.asList(null, 1L, 2L), true, POSITION)
+                .resolve(Map.of())).isEqualTo(true);
+        assertThat(new MembershipExpression(constant("a"), Arrays.asList("a", null), false, POSITION)
+                .resolve(Map.of())).isEqualTo(true);
+        assertThat(new MembershipExpression(constant(null), Arrays.asList("a", null), false, POSITION)
+                .resolve(Map.of())).isNull();
+    }
+}
@@ -0,0 +1,37 @@
+package fr.insee.vtl.engine.expressions;
+
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.model.ConstantExpression;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.VtlMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FunctionExpressionTest {
+
+    private static final Positioned POSITION = () -> new Positioned.Position(0, 0, 0, 0);
+
+    public static Long fail(Long value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("zero");
+        }
+        throw new StackOverflowError();
+    }
+
+    @Test
+    public void testErrorsAreNotWrapped() throws Exception {
+        var method = new VtlMethod(FunctionExpressionTest.class.getMethod("fail", Long.class));
+
+        var exception = new FunctionExpression(method, List.of(new ConstantExpression(0L, POSITION)), POSITION);
+        assertThatThrownBy(() -> exception.resolve(Map.of()))
+                .isInstanceOf(VtlRuntimeException.class)
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+
+        var error = new FunctionExpression(method, List.of(new ConstantExpression(1L, POSITION)), POSITION);
+        assertThatThrownBy(() -> error.resolve(Map.of())).isExactlyInstanceOf(StackOverflowError.class);
+    }
+}
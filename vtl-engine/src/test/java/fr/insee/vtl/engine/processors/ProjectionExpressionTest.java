@@ -0,0 +1,82 @@
+package fr.insee.vtl.engine.processors;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.DatasetExpression;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectionExpressionTest {
+
+    private static final Positioned.Position POSITION = new Positioned.Position(0, 0, 0, 0);
+
+    private final InMemoryProcessingEngine engine = new InMemoryProcessingEngine();
+
+    private final DatasetExpression source = DatasetExpression.of(new InMemoryDataset(
+            List.of(
+                    new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                    new Structured.Component("a", Long.class, Dataset.Role.MEASURE),
+                    new Structured.Component("b", Long.class, Dataset.Role.MEASURE)
+            ),
+            Arrays.asList("x", 1L, 10L),
+            Arrays.asList("y", 2L, null)
+    ), () -> POSITION);
+
+    private static ResolvableExpression sum(String left, String right) {
+        return ResolvableExpression.withType(Long.class).withPosition(() -> POSITION).using(context -> {
+            var l = (Long) context.get(left);
+            var r = (Long) context.get(right);
+            return l == null || r == null ? null : l + r;
+        });
+    }
+
+    @Test
+    public void testCalcRenameDropAreFused() {
+        var calc = engine.executeCalc(source, Map.of("c", sum("a", "b")),
+                Map.of("c", Dataset.Role.MEASURE), Map.of());
+        var renamed = engine.executeRename(calc, Map.of("a", "alpha"));
+        var projected = engine.executeProject(renamed, List.of("id", "alpha", "c"));
+
+        assertThat(projected).isInstanceOf(ProjectionExpression.class);
+        assertThat(((ProjectionExpression) projected).getSource()).isSameAs(source);
+        assertThat(projected.getDataStructure().keySet()).containsExactly("id", "alpha", "c");
+        assertThat(projected.resolve(Map.of()).getDataAsList()).containsExactly(
+                List.of("x", 1L, 11L),
+                Arrays.asList("y", 2L, null)
+        );
+    }
+
+    @Test
+    public void testCalcAfterKeepIsFused() {
+        var projected = engine.executeProject(source, List.of("id", "a"));
+        var calc = engine.executeCalc(projected, Map.of("a", sum("a", "a")),
+                Map.of("a", Dataset.Role.MEASURE), Map.of());
+
+        assertThat(((ProjectionExpression) calc).getSource()).isSameAs(source);
+        assertThat(calc.resolve(Map.of()).getDataAsList()).containsExactly(
+                List.of("x", 2L),
+                List.of("y", 4L)
+        );
+    }
+
+    @Test
+    public void testCalcAfterRenameIsStacked() {
+        var renamed = engine.executeRename(source, Map.of("a", "alpha"));
+        var calc = engine.executeCalc(renamed, Map.of("c", sum("alpha", "b")),
+                Map.of("c", Dataset.Role.MEASURE), Map.of());
+
+        assertThat(((ProjectionExpression) calc).getSource()).isNotSameAs(source);
+        assertThat(calc.resolve(Map.of()).getDataAsList()).containsExactly(
+                List.of("x", 1L, 10L, 11L),
+                Arrays.asList("y", 2L, null, null)
+        );
+    }
+}
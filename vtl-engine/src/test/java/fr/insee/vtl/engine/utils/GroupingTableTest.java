@@ -0,0 +1,69 @@
+package fr.insee.vtl.engine.utils;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.Structured;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GroupingTableTest {
+
+    private final Structured.DataStructure structure = new Structured.DataStructure(List.of(
+            new Structured.Component("country", String.class, Dataset.Role.IDENTIFIER),
+            new Structured.Component("year", Long.class, Dataset.Role.IDENTIFIER),
+            new Structured.Component("value", Long.class, Dataset.Role.MEASURE)
+    ));
+
+    @Test
+    public void testKeys() {
+        var point = new Structured.DataPoint(structure, List.of("france", 2020L, 1L));
+        var same = new Structured.DataPoint(structure, List.of("france", 2020L, 2L));
+
+        var single = new GroupKeyExtractor(structure, List.of("country"));
+        assertThat(single.apply(point)).isEqualTo("france");
+        assertThat(single.get(single.apply(point), 0)).isEqualTo("france");
+
+        var composite = new GroupKeyExtractor(structure, List.of("year", "country"));
+        var key = composite.apply(point);
+        assertThat(key).isEqualTo(composite.apply(same));
+        assertThat(key.hashCode()).isEqualTo(composite.apply(same).hashCode());
+        assertThat(composite.get(key, 0)).isEqualTo(2020L);
+        assertThat(composite.get(key, 1)).isEqualTo("france");
+    }
+
+    @Test
+    public void testMapKeys() {
+        var point = new Structured.DataPoint(structure, List.of("france", 2020L, 1L));
+
+        var key = new KeyExtractor(List.of("year", "country")).apply(point);
+        assertThat(key).isEqualTo(Map.of("year", 2020L, "country", "france"));
+    }
+
+    @Test
+    public void testGroupAndMerge() {
+        var left = new GroupingTable<AtomicLong>();
+        var right = new GroupingTable<AtomicLong>();
+        for (long i = 0; i < 1000; i++) {
+            left.getOrCreate(i % 100, AtomicLong::new).addAndGet(i);
+            right.getOrCreate(i % 150, AtomicLong::new).addAndGet(i);
+        }
+        left.getOrCreate(null, AtomicLong::new).incrementAndGet();
+        right.getOrCreate(null, AtomicLong::new).incrementAndGet();
+
+        assertThat(left.size()).isEqualTo(101);
+        left.merge(right, (a, b) -> new AtomicLong(a.get() + b.get()));
+        assertThat(left.size()).isEqualTo(151);
+
+        Map<Object, Long> groups = new HashMap<>();
+        left.forEach((key, value) -> groups.put(key, value.get()));
+        assertThat(groups.get(null)).isEqualTo(2L);
+        // Group 0: 0 + 100 + ... + 900 from the left, 0 + 150 + ... + 900 from the right.
+        assertThat(groups.get(0L)).isEqualTo(4500L + Arrays.stream(new long[]{0, 150, 300, 450, 600, 750, 900}).sum());
+    }
+}
@@ -1,7 +1,9 @@
 package fr.insee.vtl.engine.visitors;
 
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.Dataset;
 import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.StreamDataset;
 import fr.insee.vtl.model.Structured;
 import fr.insee.vtl.model.exceptions.InvalidTypeException;
 import fr.insee.vtl.model.exceptions.VtlScriptException;
@@ -16,6 +18,7 @@ import javax.script.ScriptException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static fr.insee.vtl.engine.VtlScriptEngineTest.atPosition;
 import static fr.insee.vtl.model.Dataset.Role;
@@ -66,6 +69,103 @@ public class ClauseVisitorTest {
         ));
     }
 
+    @Test
+    public void testColumnarDataset() throws ScriptException {
+
+        var dataset = ColumnarDataset.of(new InMemoryDataset(
+                List.of(
+                        new Structured.Component("name", String.class, Role.IDENTIFIER),
+                        new Structured.Component("age", Long.class, Role.MEASURE),
+                        new Structured.Component("weight", Double.class, Role.MEASURE)
+                ),
+                Arrays.asList("Toto", null, 100D),
+                Arrays.asList("Hadrien", 10L, 11D),
+                Arrays.asList("Nico", 11L, 10D),
+                Arrays.asList("Franck", 12L, 9D)
+        ));
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[filter age >= 11][calc ratio := weight / age][rename age to wisdom][drop weight];");
+
+        var ds = (Dataset) engine.getContext().getAttribute("ds");
+        assertThat(ds).isInstanceOf(ColumnarDataset.class);
+        assertThat(ds.getDataAsMap()).containsExactly(
+                Map.of("name", "Nico", "wisdom", 11L, "ratio", 10D / 11L),
+                Map.of("name", "Franck", "wisdom", 12L, "ratio", 9D / 12L)
+        );
+    }
+
+    @Test
+    public void testColumnarAggregation() throws ScriptException {
+
+        var rows = new InMemoryDataset(
+                List.of(
+                        new Structured.Component("country", String.class, Role.IDENTIFIER),
+                        new Structured.Component("year", Long.class, Role.IDENTIFIER),
+                        new Structured.Component("age", Long.class, Role.MEASURE),
+                        new Structured.Component("weight", Double.class, Role.MEASURE)
+                ),
+                Arrays.asList("fr", 2020L, 10L, 11D),
+                Arrays.asList("uk", 2020L, 12L, null),
+                Arrays.asList("fr", 2021L, null, 9D),
+                Arrays.asList("fr", 2020L, 14L, 12D),
+                Arrays.asList("uk", 2021L, 11L, 10D)
+        );
+        String script = "res := ds1[aggr n := count(), sumAge := sum(age), avgAge := avg(age), " +
+                "minAge := min(age), maxWeight := max(weight), minWeight := min(weight) group by country, year];";
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", rows, ScriptContext.ENGINE_SCOPE);
+        engine.eval(script);
+        var expected = ((Dataset) context.getAttribute("res")).getDataAsList();
+
+        context.setAttribute("ds1", ColumnarDataset.of(rows), ScriptContext.ENGINE_SCOPE);
+        engine.eval(script);
+        var res = (Dataset) context.getAttribute("res");
+        assertThat(res).isInstanceOf(ColumnarDataset.class);
+        assertThat(res.getDataAsList()).isEqualTo(expected);
+        assertThat(res.getDataAsMap().get(0)).isEqualTo(Map.of(
+                "country", "fr", "year", 2020L, "n", 2L, "sumAge", 24L, "avgAge", 12D,
+                "minAge", 10L, "maxWeight", 12D, "minWeight", 11D
+        ));
+        assertThat(res.getDataAsMap().get(1).get("minAge")).isNull();
+        assertThat(res.getDataAsMap().get(2).get("minWeight")).isNull();
+        assertThat(res.getDataAsMap().get(2).get("maxWeight")).isNull();
+    }
+
+    @Test
+    public void testClausesAreEvaluatedInOnePass() throws ScriptException {
+        var source = new InMemoryDataset(
+                List.of(
+                        Map.of("name", "Hadrien", "age", 10L, "weight", 11L),
+                        Map.of("name", "Nico", "age", 11L, "weight", 10L),
+                        Map.of("name", "Franck", "age", 12L, "weight", 9L)
+                ),
+                Map.of("name", String.class, "age", Long.class, "weight", Long.class),
+                Map.of("name", Role.IDENTIFIER, "age", Role.MEASURE, "weight", Role.MEASURE)
+        );
+        var reads = new AtomicInteger();
+        var dataset = new StreamDataset(source.getDataStructure(), () -> {
+            reads.incrementAndGet();
+            return source.getDataPoints().stream();
+        });
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[filter age > 10][calc wisdom := age * 2][rename weight to mass][keep name, wisdom, mass];");
+
+        var ds = (Dataset) engine.getContext().getAttribute("ds");
+        assertThat(reads.get()).isEqualTo(1);
+        assertThat(ds.getDataAsMap()).containsExactly(
+                Map.of("name", "Nico", "mass", 10L, "wisdom", 22L),
+                Map.of("name", "Franck", "mass", 9L, "wisdom", 24L)
+        );
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
     @Test
     public void testManyCalc() throws ScriptException {
         InMemoryDataset dataset = new InMemoryDataset(
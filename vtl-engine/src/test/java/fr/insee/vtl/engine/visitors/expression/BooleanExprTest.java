@@ -1,5 +1,6 @@
 package fr.insee.vtl.engine.visitors.expression;
 
+import fr.insee.vtl.engine.VtlScriptEngine;
 import fr.insee.vtl.engine.exceptions.FunctionNotFoundException;
 import fr.insee.vtl.engine.samples.DatasetSamples;
 import fr.insee.vtl.model.Dataset;
@@ -69,6 +70,26 @@ public class BooleanExprTest {
         }
     }
 
+    @Test
+    public void testShortCircuit() throws ScriptException, NoSuchMethodException {
+        ScriptContext context = engine.getContext();
+        ((VtlScriptEngine) engine).registerMethod("explode", BooleanExprTest.class.getMethod("explode", Boolean.class));
+
+        engine.eval("andRes := false and explode(true);" +
+                "orRes := true or explode(true);");
+        assertThat(context.getAttribute("andRes")).isEqualTo(false);
+        assertThat(context.getAttribute("orRes")).isEqualTo(true);
+
+        assertThatThrownBy(() -> engine.eval("andRes := true and explode(true);"))
+                .hasMessageContaining("explode was evaluated");
+        assertThatThrownBy(() -> engine.eval("orRes := cast(null, boolean) or explode(true);"))
+                .hasMessageContaining("explode was evaluated");
+    }
+
+    public static Boolean explode(Boolean value) {
+        throw new IllegalStateException("explode was evaluated");
+    }
+
     @Test
     public void testBooleanTypeExceptions() {
         assertThatThrownBy(() -> {
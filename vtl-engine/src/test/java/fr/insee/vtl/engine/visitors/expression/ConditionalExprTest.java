@@ -1,5 +1,6 @@
 package fr.insee.vtl.engine.visitors.expression;
 
+import fr.insee.vtl.engine.VtlScriptEngine;
 import fr.insee.vtl.engine.exceptions.FunctionNotFoundException;
 import fr.insee.vtl.engine.samples.DatasetSamples;
 import fr.insee.vtl.model.Dataset;
@@ -83,6 +84,28 @@ public class ConditionalExprTest {
                 .hasMessage("function 'nvl(Long, String)' not found");
     }
 
+    @Test
+    public void testIfEvaluatesOneBranch() throws ScriptException, NoSuchMethodException {
+        ScriptContext context = engine.getContext();
+        ((VtlScriptEngine) engine).registerMethod("explode", ConditionalExprTest.class.getMethod("explode", Long.class));
+
+        engine.eval("a := if true then 1 else explode(2);" +
+                "b := if false then explode(1) else 2;" +
+                "c := if cast(null, boolean) then explode(1) else explode(2);" +
+                "d := nvl(3, explode(4));");
+        assertThat(context.getAttribute("a")).isEqualTo(1L);
+        assertThat(context.getAttribute("b")).isEqualTo(2L);
+        assertThat(context.getAttribute("c")).isNull();
+        assertThat(context.getAttribute("d")).isEqualTo(3L);
+
+        assertThatThrownBy(() -> engine.eval("e := if false then 1 else explode(2);"))
+                .hasMessageContaining("explode was evaluated");
+    }
+
+    public static Long explode(Long value) {
+        throw new IllegalStateException("explode was evaluated");
+    }
+
     @Test
     public void testIfTypeExceptions() {
         assertThatThrownBy(() -> {
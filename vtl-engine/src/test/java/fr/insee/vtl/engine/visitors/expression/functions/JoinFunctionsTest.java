@@ -1,6 +1,7 @@
 package fr.insee.vtl.engine.visitors.expression.functions;
 
 import fr.insee.vtl.engine.exceptions.InvalidArgumentException;
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.Dataset;
 import fr.insee.vtl.model.InMemoryDataset;
 import fr.insee.vtl.model.Structured;
@@ -233,6 +234,97 @@ public class JoinFunctionsTest {
         );
     }
 
+    @Test
+    public void testLeftJoinWithSmallerLeft() throws ScriptException {
+        InMemoryDataset dataset1 = new InMemoryDataset(
+                List.of(
+                        List.of("a", 1L),
+                        List.of("e", 2L)
+                ),
+                List.of(
+                        new Structured.Component("id", String.class, Role.IDENTIFIER),
+                        new Structured.Component("m1", Long.class, Role.MEASURE)
+                )
+        );
+        InMemoryDataset dataset2 = new InMemoryDataset(
+                List.of(
+                        List.of("a", 10L),
+                        List.of("b", 20L),
+                        List.of("c", 30L),
+                        List.of("d", 40L)
+                ),
+                List.of(
+                        new Structured.Component("id", String.class, Role.IDENTIFIER),
+                        new Structured.Component("m2", Long.class, Role.MEASURE)
+                )
+        );
+
+        engine.getContext().setAttribute("ds_1", dataset1, ScriptContext.ENGINE_SCOPE);
+        engine.getContext().setAttribute("ds_2", dataset2, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("result := left_join(ds_1, ds_2);");
+        var result = (Dataset) engine.getContext().getAttribute("result");
+        assertThat(result.getDataAsList()).containsExactlyInAnyOrder(
+                Arrays.asList("a", 1L, 10L),
+                Arrays.asList("e", 2L, null)
+        );
+
+        engine.eval("result := full_join(ds_1, ds_2);");
+        result = (Dataset) engine.getContext().getAttribute("result");
+        assertThat(result.getDataAsList()).containsExactlyInAnyOrder(
+                Arrays.asList("a", 1L, 10L),
+                Arrays.asList("b", null, 20L),
+                Arrays.asList("c", null, 30L),
+                Arrays.asList("d", null, 40L),
+                Arrays.asList("e", 2L, null)
+        );
+    }
+
+    @Test
+    public void testLeftJoinWithColumnarDatasets() throws ScriptException {
+        var dataset1 = ColumnarDataset.of(new InMemoryDataset(
+                List.of(
+                        List.of("a", 1L),
+                        List.of("e", 2L)
+                ),
+                List.of(
+                        new Structured.Component("id", String.class, Role.IDENTIFIER),
+                        new Structured.Component("m1", Long.class, Role.MEASURE)
+                )
+        ));
+        var dataset2 = ColumnarDataset.of(new InMemoryDataset(
+                List.of(
+                        List.of("a", 10L),
+                        List.of("b", 20L),
+                        List.of("c", 30L)
+                ),
+                List.of(
+                        new Structured.Component("id", String.class, Role.IDENTIFIER),
+                        new Structured.Component("m2", Long.class, Role.MEASURE)
+                )
+        ));
+
+        engine.getContext().setAttribute("ds_1", dataset1, ScriptContext.ENGINE_SCOPE);
+        engine.getContext().setAttribute("ds_2", dataset2, ScriptContext.ENGINE_SCOPE);
+
+        // The smaller left dataset is the build side of the hash join.
+        engine.eval("result := left_join(ds_1, ds_2);");
+        var result = (Dataset) engine.getContext().getAttribute("result");
+        assertThat(result.getDataAsList()).containsExactlyInAnyOrder(
+                Arrays.asList("a", 1L, 10L),
+                Arrays.asList("e", 2L, null)
+        );
+
+        engine.eval("result := full_join(ds_1, ds_2);");
+        result = (Dataset) engine.getContext().getAttribute("result");
+        assertThat(result.getDataAsList()).containsExactlyInAnyOrder(
+                Arrays.asList("a", 1L, 10L),
+                Arrays.asList("b", null, 20L),
+                Arrays.asList("c", null, 30L),
+                Arrays.asList("e", 2L, null)
+        );
+    }
+
     @Test
     public void testInnerJoin() throws ScriptException {
 
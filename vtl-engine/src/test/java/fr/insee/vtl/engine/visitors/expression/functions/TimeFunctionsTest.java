@@ -1,5 +1,6 @@
 package fr.insee.vtl.engine.visitors.expression.functions;
 
+import fr.insee.vtl.engine.VtlScriptEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -25,5 +26,9 @@ public class TimeFunctionsTest {
         ScriptContext context = engine.getContext();
         engine.eval("a := current_date();");
         assertThat(((Instant) context.getAttribute("a"))).isNotNull();
+
+        engine.eval("b := current_date(); c := current_date();");
+        assertThat(context.getAttribute("c")).isEqualTo(context.getAttribute("b"));
+        assertThat(context.getAttribute(VtlScriptEngine.CURRENT_DATE)).isNull();
     }
 }
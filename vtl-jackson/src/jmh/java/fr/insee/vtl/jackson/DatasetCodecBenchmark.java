@@ -0,0 +1,89 @@
+package fr.insee.vtl.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.insee.vtl.model.ColumnarDataset;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON and Smile encodings of a dataset, both going through the {@link TrevasModule}.
+ * <p>
+ * The datasets are written to a null output stream, and read back from bytes written beforehand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DatasetCodecBenchmark {
+
+    @Param({"json", "smile"})
+    private String format;
+
+    @Param({"100000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private Dataset dataset;
+    private Dataset columnar;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<List<Object>> data = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            data.add(Arrays.asList("id" + i, "group" + i % 100, i % 7 == 0 ? null : i, i * 1.5, i % 2 == 0));
+        }
+        dataset = new InMemoryDataset(data, List.of(
+                new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                new Structured.Component("grp", String.class, Dataset.Role.IDENTIFIER),
+                new Structured.Component("count", Long.class, Dataset.Role.MEASURE),
+                new Structured.Component("amount", Double.class, Dataset.Role.MEASURE),
+                new Structured.Component("valid", Boolean.class, Dataset.Role.ATTRIBUTE)
+        ));
+        columnar = ColumnarDataset.of(dataset);
+        if ("smile".equals(format)) {
+            mapper = SmileMappers.create();
+        } else {
+            mapper = new ObjectMapper();
+            mapper.registerModule(new TrevasModule());
+        }
+        bytes = mapper.writeValueAsBytes(dataset);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), dataset);
+    }
+
+    @Benchmark
+    public void writeColumnar() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), columnar);
+    }
+
+    @Benchmark
+    public Dataset read() throws IOException {
+        return mapper.readValue(bytes, Dataset.class);
+    }
+}
@@ -12,6 +12,9 @@ import java.io.IOException;
 
 /**
  * <code>BindingsDeserializer</code> is a JSON deserializer specialized for data bindings.
+ * <p>
+ * All the datasets are deserialized eagerly. {@link LazyBindings} reads the same format from a file and deserializes
+ * the datasets on first access.
  */
 public class BindingsDeserializer extends StdDeserializer<Bindings> {
 
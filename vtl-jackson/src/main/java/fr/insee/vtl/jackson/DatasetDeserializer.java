@@ -2,7 +2,6 @@ package fr.insee.vtl.jackson;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.util.TokenBuffer;
@@ -15,7 +14,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static com.fasterxml.jackson.databind.JsonMappingException.from;
 
@@ -36,6 +34,10 @@ public class DatasetDeserializer extends StdDeserializer<Dataset> {
 
     /**
      * Deserializes a JSON dataset into a <code>Dataset</code> object.
+     * <p>
+     * The cells are read with the parser method matching the type of their component, directly into the data points
+     * of the dataset. When the data points precede the structure, their tokens are buffered once and read when the
+     * structure is known.
      *
      * @param p    The base JSON parser.
      * @param ctxt A deserialization context.
@@ -50,67 +52,59 @@ public class DatasetDeserializer extends StdDeserializer<Dataset> {
             ctxt.handleUnexpectedToken(Dataset.class, p);
         }
 
-        List<Structured.Component> structure = null;
-        List<List<Object>> dataPoints = null;
+        Structured.DataStructure structure = null;
+        List<Structured.DataPoint> dataPoints = null;
+        TokenBuffer bufferedDataPoints = null;
 
         while (p.nextToken() != JsonToken.END_OBJECT) {
             if (STRUCTURE_NAMES.contains(p.currentName())) {
-                structure = deserializeStructure(p, ctxt);
-                if (dataPoints != null) {
-                    convertDataPoints(p, dataPoints, structure);
-                }
+                structure = new Structured.DataStructure(deserializeStructure(p, ctxt));
             } else if (DATAPOINT_NAMES.contains(p.currentName())) {
+                p.nextToken();
                 if (structure != null) {
                     dataPoints = deserializeDataPoints(p, ctxt, structure);
                 } else {
-                    dataPoints = deserializeUncheckedDataPoint(p, ctxt);
+                    bufferedDataPoints = ctxt.bufferAsCopyOfValue(p);
                 }
             }
         }
 
-        return new InMemoryDataset(dataPoints, structure);
-
-    }
-
-    private void convertDataPoints(JsonParser p, List<List<Object>> objects, List<Structured.Component> components) throws IOException {
-        // Create a list of functions for each type. This require the structure
-        // to be before the data.
-        List<PointDeserializer> deserializers = components.stream()
-                .map(PointDeserializer::new)
-                .collect(Collectors.toList());
-
-        for (List<Object> object : objects) {
-            for (int i = 0; i < object.size(); i++) {
-                var converted = deserializers.get(i).convert(p, object.get(i));
-                object.set(i, converted);
+        if (structure == null) {
+            return ctxt.reportInputMismatch(this, "missing dataset structure");
+        }
+        if (bufferedDataPoints != null) {
+            try (JsonParser buffered = bufferedDataPoints.asParser(p.getCodec())) {
+                buffered.nextToken();
+                dataPoints = deserializeDataPoints(buffered, ctxt, structure);
             }
         }
-    }
 
-    private List<List<Object>> deserializeDataPoints(JsonParser p, DeserializationContext ctxt, List<Structured.Component> components) throws IOException {
-        var fieldName = p.currentName();
-        if (!DATAPOINT_NAMES.contains(fieldName)) {
-            ctxt.handleUnexpectedToken(Dataset.class, p);
-        }
+        return new InMemoryDataset(dataPoints != null ? dataPoints : new ArrayList<>(), structure);
 
+    }
+
+    private List<Structured.DataPoint> deserializeDataPoints(JsonParser p, DeserializationContext ctxt,
+                                                             Structured.DataStructure structure) throws IOException {
         // row != array.
-        var token = p.nextToken();
-        if (token != JsonToken.START_ARRAY) {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
             ctxt.handleUnexpectedToken(Dataset.class, p);
         }
 
         // Create a list of functions for each type. This require the structure
-        // to be before the data.
-        List<PointDeserializer> deserializers = components.stream()
+        // to be known.
+        PointDeserializer[] deserializers = structure.values().stream()
                 .map(PointDeserializer::new)
-                .collect(Collectors.toList());
+                .toArray(PointDeserializer[]::new);
 
-        List<List<Object>> dataPoints = new ArrayList<>();
+        List<Structured.DataPoint> dataPoints = new ArrayList<>();
         while (p.nextToken() == JsonToken.START_ARRAY) {
-            var row = new ArrayList<>();
-            for (var deserializer : deserializers) {
-                p.nextValue();
-                row.add(deserializer.deserialize(p, ctxt));
+            var row = new Structured.DataPoint(structure);
+            for (int i = 0; i < deserializers.length; i++) {
+                // row < component size.
+                if (p.nextToken() == JsonToken.END_ARRAY) {
+                    ctxt.handleUnexpectedToken(Dataset.class, p);
+                }
+                row.set(i, deserializers[i].deserialize(p, ctxt));
             }
 
             // row > component size.
@@ -123,18 +117,6 @@ public class DatasetDeserializer extends StdDeserializer<Dataset> {
         return dataPoints;
     }
 
-    private List<List<Object>> deserializeUncheckedDataPoint(JsonParser p, DeserializationContext ctxt) throws IOException {
-        var fieldName = p.currentName();
-        if (!DATAPOINT_NAMES.contains(fieldName)) {
-            ctxt.handleUnexpectedToken(Dataset.class, p);
-        }
-        p.nextToken();
-
-        var listOfComponentType = ctxt.getTypeFactory().constructCollectionLikeType(List.class, List.class);
-        return ctxt.readValue(p, listOfComponentType);
-
-    }
-
     private List<Structured.Component> deserializeStructure(JsonParser p, DeserializationContext ctxt) throws IOException {
         var fieldName = p.currentName();
         if (!STRUCTURE_NAMES.contains(fieldName)) {
@@ -150,28 +132,49 @@ public class DatasetDeserializer extends StdDeserializer<Dataset> {
     private static class PointDeserializer {
 
         private final Structured.Component component;
+        private final JsonToken expected;
 
         PointDeserializer(Structured.Component component) {
             this.component = Objects.requireNonNull(component);
+            this.expected = expectedToken(component.getType());
         }
 
-        Object convert(JsonParser p, Object object) throws IOException {
-            return convert(p.getCodec(), object, component.getType());
-        }
-
-        Object convert(ObjectCodec codec, Object node, Class<?> type) throws IOException {
-            var buf = new TokenBuffer(codec, false);
-            codec.writeValue(buf, node);
-            return buf.asParser().readValueAs(type);
+        /**
+         * Returns the token read without conversion for the given type.
+         */
+        private static JsonToken expectedToken(Class<?> type) {
+            if (Long.class.equals(type)) {
+                return JsonToken.VALUE_NUMBER_INT;
+            } else if (Double.class.equals(type)) {
+                return JsonToken.VALUE_NUMBER_FLOAT;
+            } else if (Boolean.class.equals(type)) {
+                return JsonToken.VALUE_TRUE;
+            } else if (String.class.equals(type)) {
+                return JsonToken.VALUE_STRING;
+            }
+            return null;
         }
 
         Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
             try {
-                if (p.currentToken() == JsonToken.VALUE_NULL) {
+                var token = p.currentToken();
+                if (token == JsonToken.VALUE_NULL) {
                     return null;
-                } else {
-                    return ctxt.readValue(p, component.getType());
                 }
+                if (expected == JsonToken.VALUE_NUMBER_INT && token == JsonToken.VALUE_NUMBER_INT) {
+                    return p.getLongValue();
+                }
+                if (expected == JsonToken.VALUE_NUMBER_FLOAT && token.isNumeric()) {
+                    return p.getDoubleValue();
+                }
+                if (expected == JsonToken.VALUE_TRUE && token.isBoolean()) {
+                    return token == JsonToken.VALUE_TRUE;
+                }
+                if (expected == JsonToken.VALUE_STRING && token == JsonToken.VALUE_STRING) {
+                    return p.getText();
+                }
+                // Other types and conversions.
+                return ctxt.readValue(p, component.getType());
             } catch (IOException ioe) {
                 throw from(
                         p,
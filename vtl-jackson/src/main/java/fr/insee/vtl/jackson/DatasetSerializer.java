@@ -3,12 +3,20 @@ package fr.insee.vtl.jackson;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.Structured;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * <code>DatasetSerializer</code> is a JSON serializer specialized for datasets.
+ * <p>
+ * The data points are written one by one from the stream of the dataset, so that the serialization does not copy
+ * the rows of the dataset. The values are written with the generator method matching the type of their component,
+ * and the columns of a {@link ColumnarDataset} are read without boxing.
  */
 public class DatasetSerializer extends StdSerializer<Dataset> {
 
@@ -19,6 +27,69 @@ public class DatasetSerializer extends StdSerializer<Dataset> {
         super(Dataset.class);
     }
 
+    /**
+     * Returns the writer of the values of the given type.
+     */
+    private static ValueWriter valueWriter(Class<?> type) {
+        if (Long.class.equals(type)) {
+            return (value, gen, provider) -> {
+                if (value instanceof Long) {
+                    gen.writeNumber((Long) value);
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            };
+        } else if (Double.class.equals(type)) {
+            return (value, gen, provider) -> {
+                if (value instanceof Double) {
+                    gen.writeNumber((Double) value);
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            };
+        } else if (Boolean.class.equals(type)) {
+            return (value, gen, provider) -> {
+                if (value instanceof Boolean) {
+                    gen.writeBoolean((Boolean) value);
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            };
+        } else if (String.class.equals(type)) {
+            return (value, gen, provider) -> {
+                if (value instanceof String) {
+                    gen.writeString((String) value);
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            };
+        } else {
+            return (value, gen, provider) -> provider.defaultSerializeValue(value, gen);
+        }
+    }
+
+    /**
+     * Returns the writer of the rows of a column.
+     */
+    private static RowWriter rowWriter(ColumnarDataset.Column column, SerializerProvider provider) {
+        if (column instanceof ColumnarDataset.LongColumn) {
+            var longs = (ColumnarDataset.LongColumn) column;
+            return (row, gen) -> gen.writeNumber(longs.getLong(row));
+        } else if (column instanceof ColumnarDataset.DoubleColumn) {
+            var doubles = (ColumnarDataset.DoubleColumn) column;
+            return (row, gen) -> gen.writeNumber(doubles.getDouble(row));
+        } else if (column instanceof ColumnarDataset.BooleanColumn) {
+            var booleans = (ColumnarDataset.BooleanColumn) column;
+            return (row, gen) -> gen.writeBoolean(booleans.getBoolean(row));
+        } else if (column instanceof ColumnarDataset.StringColumn) {
+            var strings = (ColumnarDataset.StringColumn) column;
+            var dictionary = strings.getDictionary();
+            return (row, gen) -> gen.writeString(dictionary.get(strings.getCode(row)));
+        } else {
+            return (row, gen) -> provider.defaultSerializeValue(column.get(row), gen);
+        }
+    }
+
     /**
      * Serializes a <code>Dataset</code> object in JSON.
      *
@@ -31,7 +102,66 @@ public class DatasetSerializer extends StdSerializer<Dataset> {
     public void serialize(Dataset value, JsonGenerator gen, SerializerProvider provider) throws IOException {
         gen.writeStartObject();
         gen.writeObjectField("dataStructure", value.getDataStructure().values());
-        gen.writeObjectField("dataPoints", value.getDataAsList());
+        gen.writeArrayFieldStart("dataPoints");
+        if (value instanceof ColumnarDataset) {
+            serializeColumns((ColumnarDataset) value, gen, provider);
+        } else {
+            serializeDataPoints(value, gen, provider);
+        }
+        gen.writeEndArray();
         gen.writeEndObject();
     }
+
+    private void serializeDataPoints(Dataset value, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        var writers = value.getDataStructure().values().stream()
+                .map(component -> valueWriter(component.getType()))
+                .toArray(ValueWriter[]::new);
+        try (var stream = value.getDataPointStream()) {
+            Iterator<Structured.DataPoint> dataPoints = stream.iterator();
+            while (dataPoints.hasNext()) {
+                var dataPoint = dataPoints.next();
+                gen.writeStartArray();
+                for (int i = 0; i < writers.length; i++) {
+                    Object cell = dataPoint.get(i);
+                    if (cell == null) {
+                        gen.writeNull();
+                    } else {
+                        writers[i].write(cell, gen, provider);
+                    }
+                }
+                gen.writeEndArray();
+            }
+        }
+    }
+
+    private void serializeColumns(ColumnarDataset value, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        List<ColumnarDataset.Column> columns = value.getColumns();
+        var writers = columns.stream()
+                .map(column -> rowWriter(column, provider))
+                .toArray(RowWriter[]::new);
+        int size = value.size();
+        for (int row = 0; row < size; row++) {
+            gen.writeStartArray();
+            for (int i = 0; i < writers.length; i++) {
+                if (columns.get(i).isNull(row)) {
+                    gen.writeNull();
+                } else {
+                    writers[i].write(row, gen);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(int row, JsonGenerator gen) throws IOException;
+    }
 }
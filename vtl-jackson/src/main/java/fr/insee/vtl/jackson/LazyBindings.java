@@ -0,0 +1,228 @@
+package fr.insee.vtl.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import fr.insee.vtl.model.Dataset;
+
+import javax.script.Bindings;
+import java.io.IOException;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <code>LazyBindings</code> are data bindings read from a JSON file, whose datasets are deserialized on first access.
+ * <p>
+ * The file is scanned once, without building the datasets, to index the byte range of each top-level dataset. The
+ * ranges are memory-mapped, in parts of at most 2 GB, the limit of a mapping, and a dataset is deserialized the first
+ * time it is read from the bindings (when a script first references it for instance) and cached afterwards. Scalar
+ * values are read when the file is scanned. The format of the file is the one of the {@link BindingsDeserializer}.
+ * <p>
+ * The names of the bindings are known without reading the datasets: {@link #keySet()}, {@link #containsKey(Object)}
+ * and {@link #size()} do not deserialize them. Iterating over the entries or the values deserializes all the
+ * datasets. These bindings are not thread-safe.
+ */
+public class LazyBindings extends AbstractMap<String, Object> implements Bindings {
+
+    private final ObjectMapper mapper;
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private final Map<String, List<ByteBuffer>> datasets = new LinkedHashMap<>();
+
+    private LazyBindings(ObjectMapper mapper) {
+        this.mapper = Objects.requireNonNull(mapper);
+    }
+
+    /**
+     * Indexes the bindings of a JSON file.
+     *
+     * @param mapper The mapper used to read the values, with the {@link TrevasModule} registered.
+     * @param path   The path of the JSON file.
+     * @return The bindings.
+     * @throws IOException In case of problem while reading the file.
+     */
+    public static LazyBindings read(ObjectMapper mapper, Path path) throws IOException {
+        return read(mapper, path, Integer.MAX_VALUE);
+    }
+
+    static LazyBindings read(ObjectMapper mapper, Path path, long maxMappingSize) throws IOException {
+        var bindings = new LazyBindings(mapper);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             JsonParser p = mapper.createParser(Channels.newInputStream(channel))) {
+
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw MismatchedInputException.from(p, Bindings.class, "bindings must be a JSON object");
+            }
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                var name = p.currentName();
+                var value = p.nextToken();
+                if (value.isStructStart()) {
+                    // Dataset, only its position is read.
+                    long start = p.getTokenLocation().getByteOffset();
+                    p.skipChildren();
+                    long end = p.getCurrentLocation().getByteOffset();
+                    bindings.datasets.put(name, map(channel, start, end - start, maxMappingSize));
+                } else {
+                    // Scalar
+                    bindings.values.put(name, mapper.readValue(p, Object.class));
+                }
+            }
+        }
+        // The mappings stay valid once the channel is closed.
+        return bindings;
+    }
+
+    private static List<ByteBuffer> map(FileChannel channel, long position, long size, long maxMappingSize)
+            throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (long offset = 0; offset < size; offset += maxMappingSize) {
+            buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, position + offset,
+                    Math.min(maxMappingSize, size - offset)));
+        }
+        return buffers;
+    }
+
+    private Dataset load(String name) {
+        var buffers = datasets.remove(name);
+        var streams = buffers.stream()
+                .map(buffer -> new ByteBufferBackedInputStream(buffer.duplicate()))
+                .collect(Collectors.toList());
+        try (var stream = new SequenceInputStream(Collections.enumeration(streams))) {
+            var dataset = mapper.readValue(stream, Dataset.class);
+            values.put(name, dataset);
+            return dataset;
+        } catch (IOException ioe) {
+            // Keep the dataset to report the error again.
+            datasets.put(name, buffers);
+            throw new UncheckedIOException(String.format("failed to deserialize dataset %s", name), ioe);
+        }
+    }
+
+    /**
+     * Tests if a dataset is not deserialized yet.
+     *
+     * @param name The name of the binding.
+     * @return <code>true</code> if the binding is a dataset that was not read yet.
+     */
+    public boolean isPending(String name) {
+        return datasets.containsKey(name);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (datasets.containsKey(key)) {
+            return load((String) key);
+        }
+        return values.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return values.containsKey(key) || datasets.containsKey(key);
+    }
+
+    @Override
+    public Object put(String name, Object value) {
+        if (Objects.requireNonNull(name, "key can not be null").isEmpty()) {
+            throw new IllegalArgumentException("key can not be empty");
+        }
+        datasets.remove(name);
+        return values.put(name, value);
+    }
+
+    /**
+     * Removes a binding. Removing a dataset that was not read yet returns <code>null</code> instead of
+     * deserializing it.
+     */
+    @Override
+    public Object remove(Object key) {
+        if (datasets.remove(key) != null) {
+            // The dataset was never read.
+            return null;
+        }
+        return values.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return values.size() + datasets.size();
+    }
+
+    /**
+     * Returns the names of the bindings, without deserializing the datasets. The set is a view supporting removal.
+     */
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                List<String> names = new ArrayList<>(values.keySet());
+                names.addAll(datasets.keySet());
+                var iterator = names.iterator();
+                return new Iterator<>() {
+                    private String current;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        current = iterator.next();
+                        return current;
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        LazyBindings.this.remove(current);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return LazyBindings.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                boolean contained = containsKey(o);
+                LazyBindings.this.remove(o);
+                return contained;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        for (String name : new ArrayList<>(datasets.keySet())) {
+            load(name);
+        }
+        return values.entrySet();
+    }
+}
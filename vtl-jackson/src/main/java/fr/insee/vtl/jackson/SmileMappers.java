@@ -0,0 +1,28 @@
+package fr.insee.vtl.jackson;
+
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+/**
+ * <code>SmileMappers</code> creates mappers for the Smile binary format with the {@link TrevasModule} registered.
+ */
+public final class SmileMappers {
+
+    private SmileMappers() {
+    }
+
+    /**
+     * Returns a new Smile mapper with the {@link TrevasModule} registered.
+     * <p>
+     * Shared string values are enabled, so the repeated string values of the datasets are written once.
+     *
+     * @return a new Smile mapper.
+     */
+    public static SmileMapper create() {
+        SmileMapper mapper = SmileMapper.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        mapper.registerModule(new TrevasModule());
+        return mapper;
+    }
+}
@@ -1,4 +1,8 @@
 /**
  * This package contains JSON serializers and deserializers for VTL datasets, components and bindings.
+ * <p>
+ * The serializers only use the streaming API of Jackson, so the {@link fr.insee.vtl.jackson.TrevasModule} can also
+ * be registered on the mapper of a binary format. {@link fr.insee.vtl.jackson.SmileMappers} creates a mapper for the
+ * Smile format with the module registered.
  */
-package fr.insee.vtl.jackson;
\ No newline at end of file
+package fr.insee.vtl.jackson;
@@ -6,5 +6,6 @@ module fr.insee.vtl.jackson {
     requires java.scripting;
     requires fr.insee.vtl.model;
     requires com.fasterxml.jackson.databind;
+    requires com.fasterxml.jackson.dataformat.smile;
     exports fr.insee.vtl.jackson;
 }
\ No newline at end of file
@@ -1,13 +1,16 @@
 package fr.insee.vtl.jackson;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
 import fr.insee.vtl.model.Dataset;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class DatasetDeserializerTest extends AbstractMapperTest {
 
@@ -64,4 +67,31 @@ public class DatasetDeserializerTest extends AbstractMapperTest {
         );
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDeserializeTypedCells() throws IOException {
+        var structure = "[{\"name\": \"ID\", \"type\": \"INTEGER\", \"role\": \"IDENTIFIER\"}," +
+                "{\"name\": \"AMOUNT\", \"type\": \"NUMBER\", \"role\": \"MEASURE\"}," +
+                "{\"name\": \"VALID\", \"type\": \"BOOLEAN\", \"role\": \"MEASURE\"}]";
+        var data = "[[1, 2, true], [\"2\", 2.5, false], [3, null, null]]";
+        List<List<Object>> expected = List.of(
+                List.of(1L, 2.0, true),
+                List.of(2L, 2.5, false),
+                new ArrayList<>(Arrays.asList(3L, null, null))
+        );
+
+        var dataset = mapper.readValue("{\"structure\": " + structure + ", \"data\": " + data + "}", Dataset.class);
+        assertThat(dataset.getDataAsList()).isEqualTo(expected);
+
+        // The data points are buffered until the structure is read.
+        var inverted = mapper.readValue("{\"data\": " + data + ", \"structure\": " + structure + "}", Dataset.class);
+        assertThat(inverted.getDataAsList()).isEqualTo(expected);
+
+        assertThatThrownBy(() -> mapper.readValue("{\"structure\": " + structure + ", \"data\": [[1, 2.0]]}",
+                Dataset.class)).isInstanceOf(JsonMappingException.class);
+        assertThatThrownBy(() -> mapper.readValue("{\"structure\": " + structure + ", \"data\": [[1, 2.0, true, 4]]}",
+                Dataset.class)).isInstanceOf(JsonMappingException.class);
+        assertThatThrownBy(() -> mapper.readValue("{\"data\": " + data + "}", Dataset.class))
+                .isInstanceOf(JsonMappingException.class);
+    }
+}
@@ -1,12 +1,16 @@
 package fr.insee.vtl.jackson;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.Structured;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -33,4 +37,40 @@ public class DatasetSerializerTest extends AbstractMapperTest {
 
         assertThat(serialized).isEqualTo(expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testColumnarDatasetSerialization() throws IOException {
+        var columnar = ColumnarDataset.of(dataset);
+
+        JsonNode serialized = mapper.readValue(mapper.writeValueAsBytes(columnar), JsonNode.class);
+        JsonNode expected = mapper.readValue(original, JsonNode.class);
+
+        assertThat(serialized).isEqualTo(expected);
+    }
+
+    @Test
+    public void testStreamedDatasetSerialization() throws IOException {
+        // The rows are only available as a stream.
+        var streamed = new Dataset() {
+            @Override
+            public Stream<DataPoint> getDataPointStream() {
+                return dataset.getDataPointStream();
+            }
+
+            @Override
+            public List<DataPoint> getDataPoints() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Structured.DataStructure getDataStructure() {
+                return dataset.getDataStructure();
+            }
+        };
+
+        JsonNode serialized = mapper.readValue(mapper.writeValueAsBytes(streamed), JsonNode.class);
+        JsonNode expected = mapper.readValue(original, JsonNode.class);
+
+        assertThat(serialized).isEqualTo(expected);
+    }
+}
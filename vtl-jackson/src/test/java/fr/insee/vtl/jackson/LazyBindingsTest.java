@@ -0,0 +1,110 @@
+package fr.insee.vtl.jackson;
+
+import fr.insee.vtl.model.Dataset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LazyBindingsTest extends AbstractMapperTest {
+
+    @Test
+    public void testLazyBindings(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("bindings.json");
+        Files.copy(getClass().getResourceAsStream("/bindings.json"), file);
+
+        var bindings = LazyBindings.read(mapper, file);
+
+        assertThat(bindings.size()).isEqualTo(5);
+        assertThat(bindings.containsKey("dataset")).isTrue();
+        assertThat(bindings.keySet()).hasSize(5).contains("dataset", "string");
+        assertThat(bindings.isPending("dataset")).isTrue();
+        assertThat(bindings.get("string")).isEqualTo("string");
+        assertThat(bindings.get("int")).isEqualTo(1);
+
+        var dataset = bindings.get("dataset");
+        assertThat(bindings.isPending("dataset")).isFalse();
+        assertThat(bindings.get("dataset")).isSameAs(dataset);
+
+        var eager = mapper.readValue(getClass().getResourceAsStream("/bindings.json"), Bindings.class);
+        assertThat(((Dataset) dataset).getDataAsList())
+                .isEqualTo(((Dataset) eager.get("dataset")).getDataAsList());
+        assertThat(bindings.keySet()).isEqualTo(eager.keySet());
+    }
+
+    @Test
+    public void testDatasetsAreReadOnAccess(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("bindings.json");
+        Files.writeString(file, "{\"broken\": {\"data\": [[1]]}, \"other\": {\"data\": [[1]], " +
+                "\"structure\": [{\"name\": \"ID\", \"type\": \"INTEGER\", \"role\": \"IDENTIFIER\"}]}}");
+
+        var bindings = LazyBindings.read(mapper, file);
+
+        // The broken dataset is only read when accessed.
+        assertThat(((Dataset) bindings.get("other")).getDataAsList()).containsExactly(List.of(1L));
+        assertThatThrownBy(() -> bindings.get("broken")).isInstanceOf(UncheckedIOException.class);
+        assertThat(bindings.isPending("broken")).isTrue();
+
+        bindings.put("broken", 1L);
+        assertThat(bindings.get("broken")).isEqualTo(1L);
+    }
+
+    @Test
+    public void testDatasetsMappedInParts(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("bindings.json");
+        Files.copy(getClass().getResourceAsStream("/bindings.json"), file);
+
+        var bindings = LazyBindings.read(mapper, file, 16);
+        var eager = mapper.readValue(getClass().getResourceAsStream("/bindings.json"), Bindings.class);
+        assertThat(((Dataset) bindings.get("dataset")).getDataAsList())
+                .isEqualTo(((Dataset) eager.get("dataset")).getDataAsList());
+    }
+
+    @Test
+    public void testRemoveNames(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("bindings.json");
+        Files.copy(getClass().getResourceAsStream("/bindings.json"), file);
+
+        var bindings = LazyBindings.read(mapper, file);
+        bindings.keySet().removeIf(name -> !name.equals("string"));
+
+        assertThat(bindings).containsOnlyKeys("string");
+    }
+
+    @Test
+    public void testScriptReadsOnlyReferencedDatasets(@TempDir Path directory) throws IOException, ScriptException {
+        var file = directory.resolve("bindings.json");
+        Files.writeString(file, "{\"threshold\": 1, " +
+                "\"ds1\": {\"data\": [[1], [2]], " +
+                "\"structure\": [{\"name\": \"ID\", \"type\": \"INTEGER\", \"role\": \"IDENTIFIER\"}]}, " +
+                "\"ds2\": {\"data\": [[3]], " +
+                "\"structure\": [{\"name\": \"ID\", \"type\": \"INTEGER\", \"role\": \"IDENTIFIER\"}]}}");
+        var engine = new ScriptEngineManager().getEngineByName("vtl");
+        var script = "res := ds1[filter ID > 1]; next := threshold + 1;";
+
+        var bindings = LazyBindings.read(mapper, file);
+        engine.eval(script, bindings);
+        assertThat(((Dataset) bindings.get("res")).getDataAsList()).containsExactly(List.of(2L));
+        assertThat(bindings.get("next")).isEqualTo(2L);
+        assertThat(bindings.isPending("ds1")).isFalse();
+        assertThat(bindings.isPending("ds2")).isTrue();
+
+        var compiled = ((Compilable) engine).compile(script);
+        var compiledBindings = LazyBindings.read(mapper, file);
+        compiled.eval(compiledBindings);
+        assertThat(((Dataset) compiledBindings.get("res")).getDataAsList()).containsExactly(List.of(2L));
+        assertThat(compiledBindings.isPending("ds1")).isFalse();
+        assertThat(compiledBindings.isPending("ds2")).isTrue();
+    }
+}
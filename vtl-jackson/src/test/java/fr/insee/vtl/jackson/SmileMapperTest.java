@@ -0,0 +1,63 @@
+package fr.insee.vtl.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import fr.insee.vtl.model.ColumnarDataset;
+import fr.insee.vtl.model.Dataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.script.Bindings;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SmileMapperTest extends AbstractMapperTest {
+
+    private SmileMapper smileMapper;
+    private Dataset dataset;
+
+    @Override
+    @BeforeEach
+    public void setUp() throws IOException {
+        super.setUp();
+        smileMapper = SmileMappers.create();
+        dataset = mapper.readValue(getClass().getResourceAsStream("/dataset-std.json"), Dataset.class);
+    }
+
+    @Test
+    public void testDatasetRoundTrip() throws IOException {
+        byte[] smile = smileMapper.writeValueAsBytes(dataset);
+        var deserialized = smileMapper.readValue(new ByteArrayInputStream(smile), Dataset.class);
+
+        assertThat(deserialized.getDataStructure()).isEqualTo(dataset.getDataStructure());
+        assertThat(deserialized.getDataAsList()).isEqualTo(dataset.getDataAsList());
+        assertThat(smile.length).isLessThan(mapper.writeValueAsBytes(dataset).length);
+
+        var columnar = smileMapper.readValue(smileMapper.writeValueAsBytes(ColumnarDataset.of(dataset)), Dataset.class);
+        assertThat(columnar.getDataAsList()).isEqualTo(dataset.getDataAsList());
+    }
+
+    @Test
+    public void testInvertedDataset() throws IOException {
+        JsonNode inverted = mapper.readTree(getClass().getResourceAsStream("/dataset-inverted.json"));
+        var deserialized = smileMapper.readValue(smileMapper.writeValueAsBytes(inverted), Dataset.class);
+
+        assertThat(deserialized.getDataAsList())
+                .isEqualTo(mapper.treeToValue(inverted, Dataset.class).getDataAsList());
+    }
+
+    @Test
+    public void testBindings() throws IOException {
+        JsonNode json = mapper.readTree(getClass().getResourceAsStream("/bindings.json"));
+        var bindings = smileMapper.readValue(smileMapper.writeValueAsBytes(json), Bindings.class);
+
+        assertThat(bindings)
+                .containsEntry("string", "string")
+                .containsEntry("int", 1)
+                .containsEntry("float", 1.2)
+                .containsEntry("bool", true);
+        assertThat(bindings.get("dataset")).isInstanceOf(Dataset.class);
+    }
+}
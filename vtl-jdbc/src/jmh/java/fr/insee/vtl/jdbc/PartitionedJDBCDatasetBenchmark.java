@@ -0,0 +1,82 @@
+package fr.insee.vtl.jdbc;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single cursor read of a table with the partitioned read, on an H2 database.
+ * <p>
+ * The <code>cursor</code> benchmark reads the table with a {@link JDBCDataset}, the other ones with a
+ * {@link PartitionedJDBCDataset} split in <code>partitions</code> ranges or buckets of the identifier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PartitionedJDBCDatasetBenchmark {
+
+    private static final String QUERY = "select * from ds";
+
+    @Param({"1", "2", "4", "8"})
+    private int partitions;
+
+    @Param({"1000000"})
+    private int size;
+
+    private JdbcConnectionPool dataSource;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = JdbcConnectionPool.create("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "", "");
+        connection = dataSource.getConnection();
+        var statement = connection.createStatement();
+        statement.executeUpdate("create table ds (id bigint primary key, grp varchar, amount double)");
+        statement.executeUpdate("insert into ds select x, 'group' || mod(x, 100), x * 1.5 " +
+                "from system_range(1, " + size + ")");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.createStatement().executeUpdate("drop table ds");
+        connection.close();
+        dataSource.dispose();
+    }
+
+    @Benchmark
+    public int cursor() throws SQLException {
+        try (Connection cursorConnection = dataSource.getConnection()) {
+            return new JDBCDataset(cursorConnection, QUERY).getDataPoints().size();
+        }
+    }
+
+    @Benchmark
+    public int ranges() {
+        return new PartitionedJDBCDataset(dataSource, QUERY, Partitioning.ranges("ID", partitions))
+                .getDataPoints().size();
+    }
+
+    @Benchmark
+    public int modulo() {
+        return new PartitionedJDBCDataset(dataSource, QUERY, Partitioning.modulo("ID", partitions))
+                .getDataPoints().size();
+    }
+}
@@ -2,30 +2,117 @@ package fr.insee.vtl.jdbc;
 
 import fr.insee.vtl.model.Dataset;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The <code>JDBCDataset</code> class is a wrapper around a SQL result set.
+ * <p>
+ * The rows are streamed from the result set by {@link #getDataPointStream()}, so that tables larger than the memory
+ * can be processed. Each column is read by a reader chosen once from the SQL type of the column. Large queries can
+ * be read in parallel with a {@link PartitionedJDBCDataset}.
  */
 public class JDBCDataset implements Dataset {
 
+    /**
+     * Default number of rows fetched from the database at once by the streaming constructor.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     private final Supplier<ResultSet> resultSetSupplier;
-    private DataStructure structure;
+    private final Supplier<DataStructure> structureSupplier;
+    private final Connection connection;
+    private final String query;
+    private final int fetchSize;
+    private volatile DataStructure structure;
 
     /**
      * Creates a new JDBC Dataset.
      * <p>
-     * The given supplier is called to create a new result set whenever the data or the
-     * data structure is requested.
+     * The given supplier is called to create a new result set whenever the data is requested. The first result set
+     * is also used to read the data structure.
      */
     public JDBCDataset(Supplier<ResultSet> resultSetSupplier) {
         this.resultSetSupplier = resultSetSupplier;
+        this.structureSupplier = null;
+        this.connection = null;
+        this.query = null;
+        this.fetchSize = 0;
+    }
+
+    /**
+     * Creates a new JDBC Dataset streaming the result of a query, see
+     * {@link #JDBCDataset(Connection, String, int)}.
+     */
+    public JDBCDataset(Connection connection, String query) {
+        this(connection, query, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Creates a new JDBC Dataset streaming the result of a query.
+     * <p>
+     * The query is executed with a forward-only and read-only cursor whenever the data is requested, and the
+     * statement is closed with the result set. The data structure is read from the metadata of the prepared
+     * statement, without executing the query. Note that some drivers (PostgreSQL for instance) only honor the fetch
+     * size when the auto-commit mode of the connection is disabled.
+     *
+     * @param connection the connection used to execute the query, it is not closed by the dataset.
+     * @param query      the SQL query.
+     * @param fetchSize  the number of rows fetched from the database at once.
+     */
+    public JDBCDataset(Connection connection, String query, int fetchSize) {
+        this(connection, query, null, fetchSize);
+    }
+
+    /**
+     * Creates a new JDBC Dataset streaming the result of a query with a known data structure.
+     * <p>
+     * The columns of the query are read in the order of the components of the structure, whatever their names, so
+     * that the roles and names of the VTL components can differ from the ones of the SQL columns.
+     *
+     * @param connection the connection used to execute the query, it is not closed by the dataset.
+     * @param query      the SQL query.
+     * @param structure  the data structure of the result of the query, or null to read it from the metadata.
+     * @param fetchSize  the number of rows fetched from the database at once.
+     */
+    public JDBCDataset(Connection connection, String query, DataStructure structure, int fetchSize) {
+        this.connection = connection;
+        this.query = query;
+        this.fetchSize = fetchSize;
+        this.structure = structure;
+        this.resultSetSupplier = () -> {
+            try {
+                PreparedStatement statement = connection.prepareStatement(query,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.closeOnCompletion();
+                return statement.executeQuery();
+            } catch (SQLException se) {
+                throw new RuntimeException(se);
+            }
+        };
+        this.structureSupplier = () -> {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                ResultSetMetaData metaData = statement.getMetaData();
+                // Some drivers only provide the metadata once the statement is executed.
+                return metaData == null ? null : toDataStructure(metaData);
+            } catch (SQLException se) {
+                throw new RuntimeException(se);
+            }
+        };
     }
 
     /**
@@ -81,38 +168,74 @@ public class JDBCDataset implements Dataset {
         return new DataStructure(components);
     }
 
+    /**
+     * Returns the reader of the columns of the given type. SQL nulls are read as null.
+     */
+    static ColumnReader toColumnReader(Class<?> type) {
+        if (String.class.equals(type)) {
+            return ResultSet::getString;
+        } else if (Long.class.equals(type)) {
+            return (resultSet, index) -> {
+                long value = resultSet.getLong(index);
+                return resultSet.wasNull() ? null : value;
+            };
+        } else if (Double.class.equals(type)) {
+            return (resultSet, index) -> {
+                double value = resultSet.getDouble(index);
+                return resultSet.wasNull() ? null : value;
+            };
+        } else if (Boolean.class.equals(type)) {
+            return (resultSet, index) -> {
+                boolean value = resultSet.getBoolean(index);
+                return resultSet.wasNull() ? null : value;
+            };
+        } else {
+            throw new IllegalStateException("Unexpected value: " + type);
+        }
+    }
+
+    /**
+     * Returns the connection of a dataset created from a query, or null.
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns the query of a dataset created from a query, or null.
+     */
+    String getQuery() {
+        return query;
+    }
+
+    int getFetchSize() {
+        return fetchSize;
+    }
+
     @Override
     public List<DataPoint> getDataPoints() {
-        try (var resultSet = this.resultSetSupplier.get()) {
-            var result = new ArrayList<DataPoint>();
-            while (resultSet.next()) {
-                result.add(toDataPoint(resultSet));
-            }
-            return result;
-        } catch (SQLException se) {
-            throw new RuntimeException(se);
+        try (var stream = getDataPointStream()) {
+            return stream.collect(Collectors.toList());
         }
     }
 
-    private DataPoint toDataPoint(ResultSet resultSet) {
+    /**
+     * Streams the rows of a new result set. The result set is closed when all the rows are read or when the stream
+     * is closed.
+     */
+    @Override
+    public Stream<DataPoint> getDataPointStream() {
+        var resultSet = resultSetSupplier.get();
         try {
-            DataPoint point = new DataPoint(getDataStructure(resultSet));
-            for (String column : structure.keySet()) {
-                if (String.class.equals(structure.get(column).getType())) {
-                    point.set(column, resultSet.getString(column));
-                } else if (Long.class.equals(structure.get(column).getType())) {
-                    point.set(column, resultSet.getLong(column));
-                } else if (Double.class.equals(structure.get(column).getType())) {
-                    point.set(column, resultSet.getDouble(column));
-                } else if (Boolean.class.equals(structure.get(column).getType())) {
-                    point.set(column, resultSet.getBoolean(column));
-                } else {
-                    throw new IllegalStateException("Unexpected value: " + structure.get(column).getType());
-                }
+            var rows = new RowSpliterator(resultSet, getDataStructure(resultSet), null);
+            return StreamSupport.stream(rows, false).onClose(rows::close);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                resultSet.close();
+            } catch (SQLException se) {
+                e.addSuppressed(se);
             }
-            return point;
-        } catch (SQLException se) {
-            throw new RuntimeException(se);
+            throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
         }
     }
 
@@ -125,10 +248,89 @@ public class JDBCDataset implements Dataset {
 
     @Override
     public DataStructure getDataStructure() {
+        if (structure != null) {
+            return structure;
+        }
+        if (structureSupplier != null) {
+            var preparedStructure = structureSupplier.get();
+            if (preparedStructure != null) {
+                structure = preparedStructure;
+                return structure;
+            }
+        }
         try (var resultSet = this.resultSetSupplier.get()) {
             return getDataStructure(resultSet);
         } catch (SQLException se) {
             throw new RuntimeException(se);
         }
     }
+
+    /**
+     * Reads the value of a column of the current row of a result set.
+     */
+    @FunctionalInterface
+    interface ColumnReader {
+        Object read(ResultSet resultSet, int index) throws SQLException;
+    }
+
+    /**
+     * Reads the rows of a result set one at a time.
+     */
+    static final class RowSpliterator extends Spliterators.AbstractSpliterator<DataPoint> {
+
+        private final ResultSet resultSet;
+        private final DataStructure structure;
+        private final AutoCloseable resource;
+        private final ColumnReader[] readers;
+        private boolean closed;
+
+        /**
+         * @param resultSet the result set to read, closed with the spliterator.
+         * @param structure the structure of the rows, in the order of the columns.
+         * @param resource  a resource closed after the result set, or null.
+         */
+        RowSpliterator(ResultSet resultSet, DataStructure structure, AutoCloseable resource) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+            this.structure = structure;
+            this.resource = resource;
+            this.readers = structure.values().stream()
+                    .map(component -> toColumnReader(component.getType()))
+                    .toArray(ColumnReader[]::new);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DataPoint> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!resultSet.next()) {
+                    close();
+                    return false;
+                }
+                var point = new DataPoint(structure);
+                for (int i = 0; i < readers.length; i++) {
+                    point.set(i, readers[i].read(resultSet, i + 1));
+                }
+                action.accept(point);
+                return true;
+            } catch (SQLException se) {
+                close();
+                throw new RuntimeException(se);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (resource) {
+                resultSet.close();
+            } catch (Exception e) {
+                throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+            }
+        }
+    }
 }
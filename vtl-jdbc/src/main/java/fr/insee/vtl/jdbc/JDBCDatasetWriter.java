@@ -0,0 +1,375 @@
+package fr.insee.vtl.jdbc;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.Structured;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static fr.insee.vtl.jdbc.SqlTranslator.quote;
+
+/**
+ * The <code>JDBCDatasetWriter</code> class writes datasets to SQL tables.
+ * <p>
+ * The rows are read from the stream of the dataset and inserted with batched prepared statements, so that datasets
+ * larger than the memory can be written. The transaction is committed every <code>commitSize</code> rows: a failure
+ * rolls back the current chunk only, the previous chunks stay in the table.
+ * <p>
+ * With a parallelism greater than one, the chunks are written concurrently, each writer thread using its own
+ * connection from the data source. The rows are then not inserted in the order of the dataset.
+ */
+public class JDBCDatasetWriter {
+
+    /**
+     * Default number of rows sent to the database at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Default number of rows written by transaction.
+     */
+    public static final int DEFAULT_COMMIT_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final int batchSize;
+    private final int commitSize;
+    private final int parallelism;
+
+    /**
+     * Creates a new sequential writer with the default batch and commit sizes.
+     *
+     * @param dataSource the source of the connections.
+     */
+    public JDBCDatasetWriter(DataSource dataSource) {
+        this(dataSource, DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_SIZE, 1);
+    }
+
+    /**
+     * Creates a new writer.
+     *
+     * @param dataSource  the source of the connections, one connection is opened per writer thread.
+     * @param batchSize   the number of rows sent to the database at once.
+     * @param commitSize  the number of rows written by transaction, rounded up to a multiple of the batch size.
+     * @param parallelism the number of chunks written concurrently.
+     */
+    public JDBCDatasetWriter(DataSource dataSource, int batchSize, int commitSize, int parallelism) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+        if (batchSize < 1 || commitSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("batch size, commit size and parallelism must be positive");
+        }
+        this.batchSize = batchSize;
+        // Every transaction but the last one ends with a full batch.
+        this.commitSize = (int) Math.min(((long) commitSize + batchSize - 1) / batchSize * batchSize,
+                Integer.MAX_VALUE / batchSize * batchSize);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Translates a VTL data type into a SQL data type.
+     *
+     * @param type the VTL data type to translate.
+     * @return The corresponding SQL data type (as an integer).
+     */
+    public static int toSqlType(Class<?> type) {
+        if (Long.class.equals(type)) {
+            return Types.BIGINT;
+        } else if (Double.class.equals(type)) {
+            return Types.DOUBLE;
+        } else if (Boolean.class.equals(type)) {
+            return Types.BOOLEAN;
+        } else if (String.class.equals(type)) {
+            return Types.VARCHAR;
+        } else {
+            throw new UnsupportedOperationException("unsupported type " + type);
+        }
+    }
+
+    private static String toSqlTypeName(Class<?> type) {
+        switch (toSqlType(type)) {
+            case Types.BIGINT:
+                return "BIGINT";
+            case Types.DOUBLE:
+                return "DOUBLE PRECISION";
+            case Types.BOOLEAN:
+                return "BOOLEAN";
+            default:
+                return "VARCHAR";
+        }
+    }
+
+    /**
+     * Returns the statement creating a table for a data structure. The identifiers are the primary key of the
+     * table. The name of the table is used as is, the names of the columns are quoted.
+     *
+     * @param table     the name of the table.
+     * @param structure the data structure.
+     * @return The <code>CREATE TABLE</code> statement.
+     */
+    public static String createTableStatement(String table, Structured.DataStructure structure) {
+        List<String> definitions = new ArrayList<>();
+        for (Structured.Component component : structure.values()) {
+            definitions.add(quote(component.getName()) + " " + toSqlTypeName(component.getType())
+                    + (component.isIdentifier() ? " NOT NULL" : ""));
+        }
+        var identifiers = structure.values().stream()
+                .filter(Structured.Component::isIdentifier)
+                .map(component -> quote(component.getName()))
+                .collect(Collectors.toList());
+        if (!identifiers.isEmpty()) {
+            definitions.add("PRIMARY KEY (" + String.join(", ", identifiers) + ")");
+        }
+        return "CREATE TABLE " + table + " (" + String.join(", ", definitions) + ")";
+    }
+
+    /**
+     * Returns the statement inserting a row of a data structure in a table.
+     *
+     * @param table     the name of the table.
+     * @param structure the data structure.
+     * @return The <code>INSERT</code> statement, with one parameter per component.
+     */
+    public static String insertStatement(String table, Structured.DataStructure structure) {
+        return "INSERT INTO " + table
+                + " (" + structure.keySet().stream().map(SqlTranslator::quote).collect(Collectors.joining(", "))
+                + ") VALUES (" + structure.keySet().stream().map(name -> "?").collect(Collectors.joining(", "))
+                + ")";
+    }
+
+    /**
+     * Returns the writer of the parameters of the given type. Null values are written as SQL nulls.
+     */
+    static ParameterWriter toParameterWriter(Class<?> type) {
+        int sqlType = toSqlType(type);
+        ParameterWriter writer;
+        switch (sqlType) {
+            case Types.BIGINT:
+                writer = (statement, index, value) -> statement.setLong(index, (Long) value);
+                break;
+            case Types.DOUBLE:
+                writer = (statement, index, value) -> statement.setDouble(index, (Double) value);
+                break;
+            case Types.BOOLEAN:
+                writer = (statement, index, value) -> statement.setBoolean(index, (Boolean) value);
+                break;
+            default:
+                writer = (statement, index, value) -> statement.setString(index, (String) value);
+        }
+        return (statement, index, value) -> {
+            if (value == null) {
+                statement.setNull(index, sqlType);
+            } else {
+                writer.write(statement, index, value);
+            }
+        };
+    }
+
+    /**
+     * Creates a table for a data structure, see {@link #createTableStatement(String, Structured.DataStructure)}.
+     *
+     * @param table     the name of the table.
+     * @param structure the data structure.
+     */
+    public void createTable(String table, Structured.DataStructure structure) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(createTableStatement(table, structure));
+        }
+    }
+
+    /**
+     * Writes the rows of a dataset to an existing table whose columns have the names of the components.
+     *
+     * @param table   the name of the table.
+     * @param dataset the dataset to write.
+     * @return The number of rows written.
+     */
+    public long write(String table, Dataset dataset) throws SQLException {
+        var structure = dataset.getDataStructure();
+        var insert = insertStatement(table, structure);
+        var writers = structure.values().stream()
+                .map(component -> toParameterWriter(component.getType()))
+                .toArray(ParameterWriter[]::new);
+        try (var stream = dataset.getDataPointStream()) {
+            if (parallelism == 1) {
+                return writeSequentially(insert, writers, stream.iterator());
+            }
+            return writeConcurrently(insert, writers, stream.iterator());
+        }
+    }
+
+    private long writeSequentially(String insert, ParameterWriter[] writers,
+                                   Iterator<Structured.DataPoint> rows) throws SQLException {
+        try (var chunkWriter = new ChunkWriter(insert, writers)) {
+            List<Structured.DataPoint> chunk = new ArrayList<>(Math.min(commitSize, 1 << 16));
+            long count = 0;
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == commitSize) {
+                    count += chunkWriter.write(chunk);
+                    chunk.clear();
+                }
+            }
+            return count + chunkWriter.write(chunk);
+        }
+    }
+
+    /**
+     * Reads the chunks of rows in the calling thread and writes them in a pool of writer threads. The queue of
+     * chunks is bounded, so the memory used does not depend on the size of the dataset.
+     */
+    private long writeConcurrently(String insert, ParameterWriter[] writers,
+                                   Iterator<Structured.DataPoint> rows) throws SQLException {
+        BlockingQueue<List<Structured.DataPoint>> chunks = new ArrayBlockingQueue<>(parallelism);
+        List<Structured.DataPoint> end = List.of();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Long>> results = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                results.add(executor.submit(() -> {
+                    long written = 0;
+                    try (var chunkWriter = new ChunkWriter(insert, writers)) {
+                        for (var chunk = chunks.take(); chunk != end; chunk = chunks.take()) {
+                            written += chunkWriter.write(chunk);
+                        }
+                    }
+                    return written;
+                }));
+            }
+
+            List<Structured.DataPoint> chunk = new ArrayList<>(commitSize);
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == commitSize) {
+                    offer(chunks, chunk, results);
+                    chunk = new ArrayList<>(commitSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                offer(chunks, chunk, results);
+            }
+            for (int i = 0; i < parallelism; i++) {
+                offer(chunks, end, results);
+            }
+
+            long count = 0;
+            for (Future<Long> result : results) {
+                count += result.get();
+            }
+            return count;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof SQLException) {
+                throw (SQLException) ee.getCause();
+            }
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new IllegalStateException(ee.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Puts a chunk in the queue, and stops when a writer failed instead of waiting forever.
+     */
+    private static void offer(BlockingQueue<List<Structured.DataPoint>> chunks, List<Structured.DataPoint> chunk,
+                              List<Future<Long>> results) throws InterruptedException, ExecutionException {
+        while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<Long> result : results) {
+                if (result.isDone()) {
+                    // Throws the failure of the writer.
+                    result.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a value as a parameter of a prepared statement.
+     */
+    @FunctionalInterface
+    interface ParameterWriter {
+        void write(PreparedStatement statement, int index, Object value) throws SQLException;
+    }
+
+    /**
+     * Writes chunks of rows with a connection, committing after each chunk.
+     */
+    private final class ChunkWriter implements AutoCloseable {
+
+        private final ParameterWriter[] writers;
+        private final Connection connection;
+        private final boolean autoCommit;
+        private final PreparedStatement statement;
+
+        ChunkWriter(String insert, ParameterWriter[] writers) throws SQLException {
+            this.writers = writers;
+            this.connection = dataSource.getConnection();
+            try {
+                this.autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                this.statement = connection.prepareStatement(insert);
+            } catch (SQLException se) {
+                connection.close();
+                throw se;
+            }
+        }
+
+        long write(List<Structured.DataPoint> chunk) throws SQLException {
+            if (chunk.isEmpty()) {
+                return 0;
+            }
+            try {
+                int batched = 0;
+                for (Structured.DataPoint row : chunk) {
+                    for (int i = 0; i < writers.length; i++) {
+                        writers[i].write(statement, i + 1, row.get(i));
+                    }
+                    statement.addBatch();
+                    if (++batched == batchSize) {
+                        statement.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    statement.executeBatch();
+                }
+                connection.commit();
+                return chunk.size();
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException re) {
+                    e.addSuppressed(re);
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try (connection; statement) {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package fr.insee.vtl.jdbc;
+
+import fr.insee.vtl.engine.processors.InMemoryProcessingEngine;
+import fr.insee.vtl.model.AggregationExpression;
+import fr.insee.vtl.model.Analytics;
+import fr.insee.vtl.model.DataPointRuleset;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.DatasetExpression;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.ProcessingEngine;
+import fr.insee.vtl.model.ProcessingEngineFactory;
+import fr.insee.vtl.model.ResolvableExpression;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static fr.insee.vtl.jdbc.SqlTranslator.quote;
+import static fr.insee.vtl.jdbc.SqlTranslator.subquery;
+import static fr.insee.vtl.model.Structured.Component;
+import static fr.insee.vtl.model.Structured.DataStructure;
+
+/**
+ * The <code>JDBCProcessingEngine</code> class is an implementation of a VTL engine that pushes the operations on SQL
+ * datasets down to the database.
+ * <p>
+ * The filter, calc, rename, project and aggr clauses and the inner and left joins on identifiers applied to a
+ * {@link JDBCDataset} created from a query are translated into a SQL query wrapping the query of the dataset, so
+ * that a chain of operators is executed by the database in a single query. The result is a {@link JDBCDataset}
+ * streaming the rows of that query.
+ * <p>
+ * The operations the engine cannot translate, because an expression has no SQL equivalent with the same semantics
+ * (see {@link SqlTranslator}), because the datasets do not come from a SQL query or because the joined datasets use
+ * different connections, are delegated to an {@link InMemoryProcessingEngine}. Their results, and the operations
+ * applied to them, are then evaluated in memory.
+ * <p>
+ * The database compares strings with its collation: string equalities in filters and calcs, and the string columns
+ * of the group by of aggr and of the identifiers of joins, only give the same results as in memory when the columns
+ * use a binary collation. With a case-insensitive collation, the default of MySQL and SQL Server, <code>"a"</code>
+ * and <code>"A"</code> are equal and fall in the same group.
+ */
+public class JDBCProcessingEngine implements ProcessingEngine {
+
+    private final ProcessingEngine delegate;
+
+    /**
+     * Constructor for an engine delegating the operations it cannot translate to a sequential in-memory engine.
+     */
+    public JDBCProcessingEngine() {
+        this(new InMemoryProcessingEngine());
+    }
+
+    /**
+     * Constructor taking the engine the operations that cannot be translated are delegated to.
+     *
+     * @param delegate The engine executing the operations that cannot be translated into SQL.
+     */
+    public JDBCProcessingEngine(ProcessingEngine delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    private static String columns(DataStructure structure) {
+        return structure.keySet().stream().map(SqlTranslator::quote).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Returns the SQL expression of the given dataset expression, or null if it is not computed by a query.
+     * <p>
+     * Like the other distributed engines, the datasets bound to variables are resolved when the script is visited.
+     * The results of the operations executed in memory are never resolved.
+     */
+    private static SqlDatasetExpression toSql(DatasetExpression expression) {
+        if (expression instanceof SqlDatasetExpression) {
+            return (SqlDatasetExpression) expression;
+        }
+        if (expression instanceof InMemoryExpression) {
+            return null;
+        }
+        Dataset dataset = expression.resolve(Map.of());
+        if (!(dataset instanceof JDBCDataset) || ((JDBCDataset) dataset).getQuery() == null) {
+            return null;
+        }
+        var jdbcDataset = (JDBCDataset) dataset;
+        return new SqlDatasetExpression(jdbcDataset.getConnection(), jdbcDataset.getQuery(),
+                expression.getDataStructure(), jdbcDataset.getFetchSize(), expression);
+    }
+
+    private static SqlDatasetExpression select(SqlDatasetExpression source, List<String> selectList, String clauses,
+                                               DataStructure structure) {
+        String query = "SELECT " + String.join(", ", selectList) + " FROM " + subquery(source.getQuery()) + " t"
+                + clauses;
+        return new SqlDatasetExpression(source.getConnection(), query, structure, source.getFetchSize(), source);
+    }
+
+    private static DatasetExpression unwrap(DatasetExpression expression) {
+        return expression instanceof InMemoryExpression ? ((InMemoryExpression) expression).expression : expression;
+    }
+
+    private static Map<String, DatasetExpression> unwrap(Map<String, DatasetExpression> datasets) {
+        Map<String, DatasetExpression> unwrapped = new LinkedHashMap<>();
+        datasets.forEach((alias, expression) -> unwrapped.put(alias, unwrap(expression)));
+        return unwrapped;
+    }
+
+    private static DatasetExpression inMemory(DatasetExpression expression) {
+        if (expression instanceof InMemoryExpression || expression instanceof SqlDatasetExpression) {
+            return expression;
+        }
+        return new InMemoryExpression(expression);
+    }
+
+    @Override
+    public DatasetExpression executeCalc(DatasetExpression expression, Map<String, ResolvableExpression> expressions,
+                                         Map<String, Dataset.Role> roles, Map<String, String> expressionStrings) {
+        var source = toSql(expression);
+        if (source == null) {
+            return inMemory(delegate.executeCalc(unwrap(expression), expressions, roles, expressionStrings));
+        }
+        Map<String, String> translated = new LinkedHashMap<>();
+        for (Map.Entry<String, ResolvableExpression> entry : expressions.entrySet()) {
+            String sql = SqlTranslator.translate(entry.getValue());
+            if (sql == null) {
+                return inMemory(delegate.executeCalc(unwrap(expression), expressions, roles, expressionStrings));
+            }
+            translated.put(entry.getKey(), sql);
+        }
+
+        // Same structure as the in-memory engine: the computed columns replace or follow the existing ones.
+        var structure = new DataStructure(expression.getDataStructure());
+        for (String columnName : expressions.keySet()) {
+            structure.put(columnName, new Dataset.Component(
+                    columnName,
+                    expressions.get(columnName).getType(),
+                    roles.get(columnName),
+                    true
+            ));
+        }
+        List<String> selectList = new ArrayList<>();
+        for (String columnName : structure.keySet()) {
+            selectList.add(translated.containsKey(columnName)
+                    ? translated.get(columnName) + " AS " + quote(columnName)
+                    : quote(columnName));
+        }
+        return select(source, selectList, "", structure);
+    }
+
+    @Override
+    public DatasetExpression executeFilter(DatasetExpression expression, ResolvableExpression filter, String filterText) {
+        var source = toSql(expression);
+        String condition = source == null ? null : SqlTranslator.translate(filter);
+        if (condition == null) {
+            return inMemory(delegate.executeFilter(unwrap(expression), filter, filterText));
+        }
+        // Rows where the condition is null are dropped, like in memory.
+        var structure = source.getDataStructure();
+        return select(source, List.of(columns(structure)), " WHERE " + condition, structure);
+    }
+
+    @Override
+    public DatasetExpression executeRename(DatasetExpression expression, Map<String, String> fromTo) {
+        if (fromTo.isEmpty()) {
+            return expression;
+        }
+        var source = toSql(expression);
+        if (source == null) {
+            return inMemory(delegate.executeRename(unwrap(expression), fromTo));
+        }
+        List<Component> components = new ArrayList<>();
+        List<String> selectList = new ArrayList<>();
+        for (Component component : source.getDataStructure().values()) {
+            String name = component.getName();
+            if (!fromTo.containsKey(name)) {
+                components.add(component);
+                selectList.add(quote(name));
+                continue;
+            }
+            components.add(new Dataset.Component(
+                    fromTo.get(name),
+                    component.getType(),
+                    component.getRole(),
+                    component.getNullable()
+            ));
+            selectList.add(quote(name) + " AS " + quote(fromTo.get(name)));
+        }
+        return select(source, selectList, "", new DataStructure(components));
+    }
+
+    @Override
+    public DatasetExpression executeProject(DatasetExpression expression, List<String> columnNames) {
+        var source = toSql(expression);
+        if (source == null) {
+            return inMemory(delegate.executeProject(unwrap(expression), columnNames));
+        }
+        var structure = new DataStructure(source.getDataStructure().values().stream()
+                .filter(component -> columnNames.contains(component.getName()))
+                .collect(Collectors.toList()));
+        return select(source, List.of(columns(structure)), "", structure);
+    }
+
+    @Override
+    public DatasetExpression executeUnion(List<DatasetExpression> datasets) {
+        return inMemory(delegate.executeUnion(datasets.stream()
+                .map(JDBCProcessingEngine::unwrap)
+                .collect(Collectors.toList())));
+    }
+
+    @Override
+    public DatasetExpression executeAggr(DatasetExpression expression, List<String> groupBy,
+                                         Map<String, AggregationExpression> collectorMap) {
+        var source = toSql(expression);
+        if (source == null) {
+            return inMemory(delegate.executeAggr(unwrap(expression), groupBy, collectorMap));
+        }
+        Map<String, String> aggregates = new LinkedHashMap<>();
+        for (Map.Entry<String, AggregationExpression> entry : collectorMap.entrySet()) {
+            String sql = SqlTranslator.translate(entry.getValue());
+            if (sql == null) {
+                return inMemory(delegate.executeAggr(unwrap(expression), groupBy, collectorMap));
+            }
+            aggregates.put(entry.getKey(), sql);
+        }
+
+        // Same structure as the in-memory engine: the group by columns followed by the aggregates.
+        List<Component> components = new ArrayList<>();
+        List<String> selectList = new ArrayList<>();
+        List<String> groupColumns = new ArrayList<>();
+        for (Component component : source.getDataStructure().values()) {
+            if (groupBy != null && groupBy.contains(component.getName())) {
+                components.add(component);
+                selectList.add(quote(component.getName()));
+                groupColumns.add(quote(component.getName()));
+            }
+        }
+        for (Map.Entry<String, AggregationExpression> entry : collectorMap.entrySet()) {
+            components.add(new Dataset.Component(
+                    entry.getKey(),
+                    entry.getValue().getType(),
+                    Dataset.Role.MEASURE,
+                    true
+            ));
+            selectList.add(aggregates.get(entry.getKey()) + " AS " + quote(entry.getKey()));
+        }
+
+        String clauses;
+        if (groupColumns.isEmpty()) {
+            // An empty dataset has no group, where SQL returns one row.
+            clauses = " HAVING COUNT(*) > 0";
+        } else {
+            // The groups are returned in the order of their keys, like in memory.
+            clauses = " GROUP BY " + String.join(", ", groupColumns)
+                    + " ORDER BY " + groupColumns.stream()
+                    .map(column -> column + " NULLS FIRST")
+                    .collect(Collectors.joining(", "));
+        }
+        return select(source, selectList, clauses, new DataStructure(components));
+    }
+
+    @Override
+    public DatasetExpression executeSimpleAnalytic(DatasetExpression dataset, String targetColumnName,
+                                                   Analytics.Function function, String sourceColumnName,
+                                                   List<String> partitionBy, Map<String, Analytics.Order> orderBy,
+                                                   Analytics.WindowSpec window) {
+        return inMemory(delegate.executeSimpleAnalytic(unwrap(dataset), targetColumnName, function, sourceColumnName,
+                partitionBy, orderBy, window));
+    }
+
+    @Override
+    public DatasetExpression executeLeadOrLagAn(DatasetExpression dataset, String targetColumnName,
+                                                Analytics.Function function, String sourceColumnName, int offset,
+                                                List<String> partitionBy, Map<String, Analytics.Order> orderBy) {
+        return inMemory(delegate.executeLeadOrLagAn(unwrap(dataset), targetColumnName, function, sourceColumnName,
+                offset, partitionBy, orderBy));
+    }
+
+    @Override
+    public DatasetExpression executeRatioToReportAn(DatasetExpression dataset, String targetColumnName,
+                                                    Analytics.Function function, String sourceColumnName,
+                                                    List<String> partitionBy) {
+        return inMemory(delegate.executeRatioToReportAn(unwrap(dataset), targetColumnName, function,
+                sourceColumnName, partitionBy));
+    }
+
+    @Override
+    public DatasetExpression executeRankAn(DatasetExpression dataset, String targetColumnName,
+                                           Analytics.Function function, List<String> partitionBy,
+                                           Map<String, Analytics.Order> orderBy) {
+        return inMemory(delegate.executeRankAn(unwrap(dataset), targetColumnName, function, partitionBy, orderBy));
+    }
+
+    @Override
+    public DatasetExpression executeLeftJoin(Map<String, DatasetExpression> datasets, List<Component> components) {
+        var join = join(datasets, components, " LEFT JOIN ");
+        return join != null ? join : inMemory(delegate.executeLeftJoin(unwrap(datasets), components));
+    }
+
+    @Override
+    public DatasetExpression executeInnerJoin(Map<String, DatasetExpression> datasets, List<Component> components) {
+        var join = join(datasets, components, " JOIN ");
+        return join != null ? join : inMemory(delegate.executeInnerJoin(unwrap(datasets), components));
+    }
+
+    /**
+     * Translates a join on identifiers, or returns null if the datasets are not all computed by queries on the same
+     * connection. The joins are applied from left to right, and the identifiers are read from the first dataset, so
+     * the result is the one of the in-memory engine.
+     */
+    private SqlDatasetExpression join(Map<String, DatasetExpression> datasets, List<Component> identifiers,
+                                      String joinType) {
+        List<SqlDatasetExpression> sources = new ArrayList<>();
+        Connection connection = null;
+        for (DatasetExpression expression : datasets.values()) {
+            var source = toSql(expression);
+            if (source == null || connection != null && source.getConnection() != connection) {
+                return null;
+            }
+            connection = source.getConnection();
+            sources.add(source);
+        }
+        if (sources.isEmpty() || identifiers.isEmpty() && sources.size() > 1) {
+            return null;
+        }
+
+        List<Component> components = new ArrayList<>(identifiers);
+        List<String> selectList = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Component identifier : identifiers) {
+            names.add(identifier.getName());
+            selectList.add("t0." + quote(identifier.getName()) + " AS " + quote(identifier.getName()));
+        }
+        StringBuilder from = new StringBuilder();
+        for (int i = 0; i < sources.size(); i++) {
+            var source = sources.get(i);
+            var structure = source.getDataStructure();
+            String alias = "t" + i;
+            for (Component identifier : identifiers) {
+                if (!structure.containsKey(identifier.getName())) {
+                    return null;
+                }
+            }
+            for (Component component : structure.values()) {
+                if (identifiers.contains(component)) {
+                    continue;
+                }
+                if (!names.add(component.getName())) {
+                    // Duplicated measures are renamed by the join clauses before the join.
+                    return null;
+                }
+                components.add(component);
+                selectList.add(alias + "." + quote(component.getName()));
+            }
+            if (i == 0) {
+                from.append(subquery(source.getQuery())).append(' ').append(alias);
+            } else {
+                from.append(joinType).append(subquery(source.getQuery())).append(' ').append(alias).append(" ON ");
+                from.append(identifiers.stream()
+                        .map(identifier -> "t0." + quote(identifier.getName()) + " = "
+                                + alias + "." + quote(identifier.getName()))
+                        .collect(Collectors.joining(" AND ")));
+            }
+        }
+        String query = "SELECT " + String.join(", ", selectList) + " FROM " + from;
+        var first = sources.get(0);
+        return new SqlDatasetExpression(connection, query, new DataStructure(components), first.getFetchSize(), first);
+    }
+
+    @Override
+    public DatasetExpression executeCrossJoin(Map<String, DatasetExpression> datasets, List<Component> identifiers) {
+        return inMemory(delegate.executeCrossJoin(unwrap(datasets), identifiers));
+    }
+
+    @Override
+    public DatasetExpression executeFullJoin(Map<String, DatasetExpression> datasets, List<Component> identifiers) {
+        return inMemory(delegate.executeFullJoin(unwrap(datasets), identifiers));
+    }
+
+    @Override
+    public DatasetExpression executeValidateDPruleset(DataPointRuleset dpr, DatasetExpression dataset, String output,
+                                                      Positioned pos) {
+        return inMemory(delegate.executeValidateDPruleset(dpr, unwrap(dataset), output, pos));
+    }
+
+    @Override
+    public DatasetExpression executeValidationSimple(DatasetExpression dsExpr, ResolvableExpression erCodeExpr,
+                                                     ResolvableExpression erLevelExpr, DatasetExpression imbalanceExpr,
+                                                     String output, Positioned pos) {
+        return inMemory(delegate.executeValidationSimple(unwrap(dsExpr), erCodeExpr, erLevelExpr,
+                imbalanceExpr == null ? null : unwrap(imbalanceExpr), output, pos));
+    }
+
+    /**
+     * Result of an operation executed by the delegate engine. It is never translated into SQL.
+     */
+    private static final class InMemoryExpression extends DatasetExpression {
+
+        private final DatasetExpression expression;
+
+        InMemoryExpression(DatasetExpression expression) {
+            super(expression);
+            this.expression = expression;
+        }
+
+        @Override
+        public Dataset resolve(Map<String, Object> context) {
+            return expression.resolve(context);
+        }
+
+        @Override
+        public DataStructure getDataStructure() {
+            return expression.getDataStructure();
+        }
+    }
+
+    /**
+     * The <code>Factory</code> class is an implementation of a VTL engine factory that returns JDBC engines. The
+     * operations that cannot be translated into SQL are delegated to the in-memory engine of the script engine.
+     */
+    public static class Factory implements ProcessingEngineFactory {
+
+        @Override
+        public String getName() {
+            return "jdbc";
+        }
+
+        @Override
+        public ProcessingEngine getProcessingEngine(ScriptEngine engine) {
+            return getProcessingEngine(engine, engine.getContext());
+        }
+
+        @Override
+        public ProcessingEngine getProcessingEngine(ScriptEngine engine, ScriptContext context) {
+            return new JDBCProcessingEngine(new InMemoryProcessingEngine.Factory().getProcessingEngine(engine, context));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package fr.insee.vtl.jdbc;
+
+import fr.insee.vtl.model.Dataset;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static fr.insee.vtl.jdbc.SqlTranslator.subquery;
+
+/**
+ * The <code>PartitionedJDBCDataset</code> class reads the result of a query in parallel.
+ * <p>
+ * The query is split in partitions by a {@link Partitioning}, and each partition is read with its own connection
+ * from a data source. The stream returned by {@link #getDataPointStream()} splits at partition boundaries: when it is
+ * consumed in parallel (by a parallel in-memory engine for instance) the partitions are read concurrently, otherwise
+ * one after the other. {@link #getDataPoints()} always reads the partitions concurrently, with one thread per
+ * partition, so {@link fr.insee.vtl.model.ColumnarDataset#of(Dataset)} also benefits from the parallel read.
+ * <p>
+ * The rows are returned partition by partition, in the order of the partitions. The partitions being read by
+ * separate transactions, the result is consistent only if the source does not change while it is read.
+ */
+public class PartitionedJDBCDataset implements Dataset {
+
+    private final DataSource dataSource;
+    private final String query;
+    private final Partitioning partitioning;
+    private final int fetchSize;
+    private volatile DataStructure structure;
+    private volatile List<String> partitionQueries;
+
+    /**
+     * Creates a new partitioned dataset, see {@link #PartitionedJDBCDataset(DataSource, String, Partitioning, int)}.
+     */
+    public PartitionedJDBCDataset(DataSource dataSource, String query, Partitioning partitioning) {
+        this(dataSource, query, partitioning, JDBCDataset.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Creates a new partitioned dataset.
+     *
+     * @param dataSource   the source of the connections, one connection is opened per partition being read.
+     * @param query        the SQL query.
+     * @param partitioning the partitioning of the query.
+     * @param fetchSize    the number of rows fetched from the database at once by each partition.
+     */
+    public PartitionedJDBCDataset(DataSource dataSource, String query, Partitioning partitioning, int fetchSize) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.query = Objects.requireNonNull(query);
+        this.partitioning = Objects.requireNonNull(partitioning);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Returns the queries of the partitions. The bounds of the partitions are computed once.
+     */
+    List<String> getPartitionQueries() {
+        if (partitionQueries == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                partitionQueries = partitioning.conditions(connection, query).stream()
+                        .map(condition -> condition.isEmpty()
+                                ? "SELECT * FROM " + subquery(query) + " t"
+                                : "SELECT * FROM " + subquery(query) + " t WHERE " + condition)
+                        .collect(Collectors.toUnmodifiableList());
+            } catch (SQLException se) {
+                throw new RuntimeException(se);
+            }
+        }
+        return partitionQueries;
+    }
+
+    @Override
+    public DataStructure getDataStructure() {
+        if (structure == null) {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(query)) {
+                var metaData = statement.getMetaData();
+                if (metaData == null) {
+                    // Some drivers only provide the metadata once the statement is executed.
+                    statement.setMaxRows(1);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        metaData = resultSet.getMetaData();
+                        structure = JDBCDataset.toDataStructure(metaData);
+                    }
+                } else {
+                    structure = JDBCDataset.toDataStructure(metaData);
+                }
+            } catch (SQLException se) {
+                throw new RuntimeException(se);
+            }
+        }
+        return structure;
+    }
+
+    /**
+     * Streams the rows of all the partitions. A connection is opened for each partition being read and closed
+     * when the partition is read or when the stream is closed.
+     */
+    @Override
+    public Stream<DataPoint> getDataPointStream() {
+        var queries = getPartitionQueries();
+        var structure = getDataStructure();
+        Set<JDBCDataset.RowSpliterator> open = ConcurrentHashMap.newKeySet();
+        var partitions = new PartitionSpliterator(queries, 0, queries.size(), structure, open);
+        return StreamSupport.stream(partitions, false).onClose(() -> {
+            RuntimeException exception = null;
+            for (JDBCDataset.RowSpliterator rows : open) {
+                try {
+                    rows.close();
+                } catch (RuntimeException re) {
+                    if (exception == null) {
+                        exception = re;
+                    } else {
+                        exception.addSuppressed(re);
+                    }
+                }
+            }
+            if (exception != null) {
+                throw exception;
+            }
+        });
+    }
+
+    /**
+     * Reads the partitions concurrently, with one thread per partition.
+     */
+    @Override
+    public List<DataPoint> getDataPoints() {
+        int partitions = getPartitionQueries().size();
+        if (partitions == 1) {
+            try (var stream = getDataPointStream()) {
+                return stream.collect(Collectors.toList());
+            }
+        }
+        var pool = new ForkJoinPool(partitions);
+        try (var stream = getDataPointStream()) {
+            return pool.submit(() -> stream.parallel().collect(Collectors.toList())).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new IllegalStateException(ee.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private JDBCDataset.RowSpliterator open(String partitionQuery, DataStructure structure) {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            PreparedStatement statement = connection.prepareStatement(partitionQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.closeOnCompletion();
+            return new JDBCDataset.RowSpliterator(statement.executeQuery(), structure, connection);
+        } catch (SQLException se) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException ce) {
+                    se.addSuppressed(ce);
+                }
+            }
+            throw new RuntimeException(se);
+        }
+    }
+
+    /**
+     * Reads a range of partitions one after the other, and splits at partition boundaries.
+     */
+    private final class PartitionSpliterator implements Spliterator<DataPoint> {
+
+        private final List<String> queries;
+        private final DataStructure structure;
+        private final Set<JDBCDataset.RowSpliterator> open;
+        private final int end;
+        private int index;
+        private JDBCDataset.RowSpliterator current;
+
+        PartitionSpliterator(List<String> queries, int index, int end, DataStructure structure,
+                             Set<JDBCDataset.RowSpliterator> open) {
+            this.queries = queries;
+            this.index = index;
+            this.end = end;
+            this.structure = structure;
+            this.open = open;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DataPoint> action) {
+            while (true) {
+                if (current == null) {
+                    if (index >= end) {
+                        return false;
+                    }
+                    current = open(queries.get(index++), structure);
+                    open.add(current);
+                }
+                if (current.tryAdvance(action)) {
+                    return true;
+                }
+                // The partition is closed once read.
+                open.remove(current);
+                current = null;
+            }
+        }
+
+        @Override
+        public Spliterator<DataPoint> trySplit() {
+            if (current != null || end - index < 2) {
+                return null;
+            }
+            int middle = (index + end) >>> 1;
+            var prefix = new PartitionSpliterator(queries, index, middle, structure, open);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+    }
+}
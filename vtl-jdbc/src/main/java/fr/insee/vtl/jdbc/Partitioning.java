@@ -0,0 +1,165 @@
+package fr.insee.vtl.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static fr.insee.vtl.jdbc.SqlTranslator.quote;
+import static fr.insee.vtl.jdbc.SqlTranslator.subquery;
+
+/**
+ * The way a query is split into partitions read by a {@link PartitionedJDBCDataset}.
+ * <p>
+ * Every row of the query, including the rows where the partition column is null, belongs to exactly one partition.
+ * The partition column should be an indexed integer column, typically an identifier.
+ */
+public abstract class Partitioning {
+
+    private final String column;
+    private final int partitions;
+
+    private Partitioning(String column, int partitions) {
+        this.column = Objects.requireNonNull(column);
+        if (partitions < 1) {
+            throw new IllegalArgumentException("the number of partitions must be positive, got " + partitions);
+        }
+        this.partitions = partitions;
+    }
+
+    /**
+     * Splits the query in ranges of the values of a column between the minimum and the maximum of the column.
+     * The bounds are read from the database when the dataset is first read.
+     *
+     * @param column     the name of the integer column.
+     * @param partitions the number of partitions.
+     */
+    public static Partitioning ranges(String column, int partitions) {
+        return new Ranges(column, partitions, null, null);
+    }
+
+    /**
+     * Splits the query in ranges of the same width between two bounds, typically the minimum and maximum of the
+     * column. The first and last ranges are unbounded, so that values outside of the bounds are read as well.
+     *
+     * @param column     the name of the integer column.
+     * @param lower      the lower bound.
+     * @param upper      the upper bound.
+     * @param partitions the number of partitions.
+     */
+    public static Partitioning ranges(String column, long lower, long upper, int partitions) {
+        if (lower > upper) {
+            throw new IllegalArgumentException("lower bound " + lower + " is greater than upper bound " + upper);
+        }
+        return new Ranges(column, partitions, lower, upper);
+    }
+
+    /**
+     * Splits the query in buckets of the values of a column modulo the number of partitions.
+     *
+     * @param column     the name of the integer column.
+     * @param partitions the number of partitions.
+     */
+    public static Partitioning modulo(String column, int partitions) {
+        return new Modulo(column, partitions);
+    }
+
+    /**
+     * Returns the name of the partition column.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the maximum number of partitions.
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the conditions selecting the rows of each partition.
+     *
+     * @param connection a connection to use if the database must be queried.
+     * @param query      the partitioned query.
+     */
+    abstract List<String> conditions(Connection connection, String query) throws SQLException;
+
+    private static final class Ranges extends Partitioning {
+
+        private final Long lower;
+        private final Long upper;
+
+        private Ranges(String column, int partitions, Long lower, Long upper) {
+            super(column, partitions);
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        @Override
+        List<String> conditions(Connection connection, String query) throws SQLException {
+            String name = quote(getColumn());
+            if (lower != null) {
+                return conditions(name, lower, upper);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet bounds = statement.executeQuery(
+                         "SELECT MIN(" + name + "), MAX(" + name + ") FROM " + subquery(query) + " t")) {
+                bounds.next();
+                long min = bounds.getLong(1);
+                if (bounds.wasNull()) {
+                    // No value to split on.
+                    return List.of("");
+                }
+                return conditions(name, min, bounds.getLong(2));
+            }
+        }
+
+        private List<String> conditions(String name, long lower, long upper) {
+            // The ranges are computed like the stride of the Spark JDBC source, so that no range is empty. The width
+            // is unsigned: it exceeds Long.MAX_VALUE when the bounds have opposite signs, but the bounds computed from
+            // it stay between lower and upper.
+            long width = upper - lower;
+            int count = Long.compareUnsigned(width, getPartitions()) < 0 ? (int) Math.max(1, width) : getPartitions();
+            if (count == 1) {
+                return List.of("");
+            }
+            long stride = Long.divideUnsigned(width, count);
+            List<String> conditions = new ArrayList<>(count);
+            long bound = lower + stride;
+            conditions.add(name + " < " + bound + " OR " + name + " IS NULL");
+            for (int i = 1; i < count - 1; i++) {
+                conditions.add(name + " >= " + bound + " AND " + name + " < " + (bound + stride));
+                bound += stride;
+            }
+            conditions.add(name + " >= " + bound);
+            return conditions;
+        }
+    }
+
+    private static final class Modulo extends Partitioning {
+
+        private Modulo(String column, int partitions) {
+            super(column, partitions);
+        }
+
+        @Override
+        List<String> conditions(Connection connection, String query) {
+            if (getPartitions() == 1) {
+                return List.of("");
+            }
+            String name = quote(getColumn());
+            List<String> conditions = new ArrayList<>(getPartitions());
+            conditions.add("ABS(MOD(" + name + ", " + getPartitions() + ")) = 0 OR " + name + " IS NULL");
+            for (int i = 1; i < getPartitions(); i++) {
+                // The remainder of a negative value is negative.
+                conditions.add("ABS(MOD(" + name + ", " + getPartitions() + ")) = " + i);
+            }
+            return conditions;
+        }
+    }
+}
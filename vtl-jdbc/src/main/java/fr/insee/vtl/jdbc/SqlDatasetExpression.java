@@ -0,0 +1,54 @@
+package fr.insee.vtl.jdbc;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.DatasetExpression;
+import fr.insee.vtl.model.Positioned;
+import fr.insee.vtl.model.Structured;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A dataset expression computed by a SQL query, built by the {@link JDBCProcessingEngine}.
+ * <p>
+ * The columns of the query are in the order of the components of the data structure.
+ */
+final class SqlDatasetExpression extends DatasetExpression {
+
+    private final Connection connection;
+    private final String query;
+    private final Structured.DataStructure structure;
+    private final int fetchSize;
+
+    SqlDatasetExpression(Connection connection, String query, Structured.DataStructure structure, int fetchSize,
+                         Positioned position) {
+        super(position);
+        this.connection = Objects.requireNonNull(connection);
+        this.query = Objects.requireNonNull(query);
+        this.structure = Objects.requireNonNull(structure);
+        this.fetchSize = fetchSize;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+    int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Override
+    public Dataset resolve(Map<String, Object> context) {
+        return new JDBCDataset(connection, query, structure, fetchSize);
+    }
+
+    @Override
+    public Structured.DataStructure getDataStructure() {
+        return structure;
+    }
+}
@@ -0,0 +1,306 @@
+package fr.insee.vtl.jdbc;
+
+import fr.insee.vtl.engine.expressions.ArithmeticExpression;
+import fr.insee.vtl.engine.expressions.BooleanExpression;
+import fr.insee.vtl.engine.expressions.ComparisonExpression;
+import fr.insee.vtl.engine.expressions.ComponentExpression;
+import fr.insee.vtl.engine.expressions.IfExpression;
+import fr.insee.vtl.engine.expressions.MembershipExpression;
+import fr.insee.vtl.engine.expressions.NvlExpression;
+import fr.insee.vtl.engine.expressions.UnaryExpression;
+import fr.insee.vtl.model.AggregationExpression;
+import fr.insee.vtl.model.ConstantExpression;
+import fr.insee.vtl.model.ResolvableExpression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates VTL expressions into SQL.
+ * <p>
+ * Only the expressions whose SQL translation has the same semantics as the VTL evaluation are translated, the
+ * translation methods return null for the others. In particular:
+ * <ul>
+ *     <li>divisions are not translated, since a division by zero is an error in SQL,</li>
+ *     <li>strings are only compared for equality, their order depends on the collation of the database,</li>
+ *     <li>null constants, functions, casts and regular expressions are not translated.</li>
+ * </ul>
+ * One difference is not detected: the string equalities, <code>=</code>, <code>&lt;&gt;</code>, <code>in</code> and
+ * <code>not_in</code>, are translated although SQL compares strings with the collation of the database, where VTL
+ * evaluated in memory uses {@link String#equals(Object)}. They only have the same results with a binary collation.
+ * The default collations of MySQL and SQL Server, for instance, ignore case and trailing spaces, so that
+ * <code>"a" = "A "</code> is true there.
+ * The null semantics of <code>and</code>, <code>or</code>, <code>not</code>, the comparisons and the arithmetic
+ * are the same in VTL and in SQL. Integer operands of the arithmetic are cast to <code>BIGINT</code>, since a column
+ * may be narrower than the 64 bits of a VTL integer.
+ */
+final class SqlTranslator {
+
+    private static final Set<Class<?>> NUMBERS = Set.of(Long.class, Double.class);
+    private static final Set<Class<?>> LITERALS = Set.of(Long.class, Double.class, String.class, Boolean.class);
+
+    private SqlTranslator() {
+    }
+
+    /**
+     * Returns the quoted SQL identifier of a name.
+     */
+    static String quote(String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Returns a query between parentheses, without its trailing semicolons, so that it can be used as a subquery.
+     */
+    static String subquery(String query) {
+        String trimmed = query.strip();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).strip();
+        }
+        return "(" + trimmed + ")";
+    }
+
+    /**
+     * Returns the SQL literal of a value, or null if the value cannot be written as a literal.
+     */
+    static String literal(Object value) {
+        if (value instanceof String) {
+            return "'" + ((String) value).replace("'", "''") + "'";
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "TRUE" : "FALSE";
+        }
+        if (value instanceof Long) {
+            return value.toString();
+        }
+        if (value instanceof Double && Double.isFinite((Double) value)) {
+            // The exponent makes it an approximate numeric literal, of type DOUBLE PRECISION.
+            String text = value.toString();
+            return text.contains("E") ? text : text + "E0";
+        }
+        return null;
+    }
+
+    /**
+     * Translates an expression on the components of a dataset.
+     *
+     * @return the SQL expression, or null if the expression cannot be translated.
+     */
+    static String translate(ResolvableExpression expression) {
+        if (expression instanceof ConstantExpression) {
+            return literal(expression.resolve(Map.of()));
+        }
+        if (expression instanceof ComponentExpression) {
+            return quote(((ComponentExpression) expression).getComponent().getName());
+        }
+        if (expression instanceof ArithmeticExpression) {
+            return translateArithmetic((ArithmeticExpression) expression);
+        }
+        if (expression instanceof ComparisonExpression) {
+            return translateComparison((ComparisonExpression) expression);
+        }
+        if (expression instanceof BooleanExpression) {
+            return translateBoolean((BooleanExpression) expression);
+        }
+        if (expression instanceof UnaryExpression) {
+            return translateUnary((UnaryExpression) expression);
+        }
+        if (expression instanceof IfExpression) {
+            var ifExpression = (IfExpression) expression;
+            String condition = translate(ifExpression.getCondition());
+            String thenSql = translate(ifExpression.getThenExpression());
+            String elseSql = translate(ifExpression.getElseExpression());
+            if (condition == null || thenSql == null || elseSql == null) {
+                return null;
+            }
+            // A null condition gives null, where a CASE would take the ELSE branch.
+            return "CASE WHEN " + condition + " THEN " + thenSql
+                    + " WHEN NOT " + condition + " THEN " + elseSql + " END";
+        }
+        if (expression instanceof NvlExpression) {
+            var nvlExpression = (NvlExpression) expression;
+            String value = translate(nvlExpression.getExpression());
+            String defaultValue = translate(nvlExpression.getDefaultExpression());
+            if (value == null || defaultValue == null) {
+                return null;
+            }
+            return "COALESCE(" + value + ", " + defaultValue + ")";
+        }
+        if (expression instanceof MembershipExpression) {
+            return translateMembership((MembershipExpression) expression);
+        }
+        return null;
+    }
+
+    private static String translateArithmetic(ArithmeticExpression expression) {
+        String operator;
+        switch (expression.getOperator()) {
+            case ADDITION:
+                operator = " + ";
+                break;
+            case SUBTRACTION:
+                operator = " - ";
+                break;
+            case MULTIPLICATION:
+                operator = " * ";
+                break;
+            default:
+                return null;
+        }
+        String left = arithmeticOperand(expression.getLeft());
+        String right = arithmeticOperand(expression.getRight());
+        if (left == null || right == null) {
+            return null;
+        }
+        return "(" + left + operator + right + ")";
+    }
+
+    private static String arithmeticOperand(ResolvableExpression operand) {
+        String sql = translate(operand);
+        if (sql == null || operand instanceof ConstantExpression || !Long.class.equals(operand.getType())) {
+            return sql;
+        }
+        return "CAST(" + sql + " AS BIGINT)";
+    }
+
+    private static String translateComparison(ComparisonExpression expression) {
+        var left = expression.getLeft();
+        var right = expression.getRight();
+        boolean equality = expression.getOperator() == ComparisonExpression.Operator.EQUAL
+                || expression.getOperator() == ComparisonExpression.Operator.NOT_EQUAL;
+        boolean numbers = NUMBERS.contains(left.getType()) && NUMBERS.contains(right.getType());
+        boolean sameLiterals = left.getType().equals(right.getType()) && LITERALS.contains(left.getType());
+        if (!numbers && !(equality && sameLiterals)) {
+            return null;
+        }
+        String operator;
+        switch (expression.getOperator()) {
+            case EQUAL:
+                operator = " = ";
+                break;
+            case NOT_EQUAL:
+                operator = " <> ";
+                break;
+            case LESS_THAN:
+                operator = " < ";
+                break;
+            case GREATER_THAN:
+                operator = " > ";
+                break;
+            case LESS_THAN_OR_EQUAL:
+                operator = " <= ";
+                break;
+            case GREATER_THAN_OR_EQUAL:
+                operator = " >= ";
+                break;
+            default:
+                return null;
+        }
+        return binary(left, operator, right);
+    }
+
+    private static String translateBoolean(BooleanExpression expression) {
+        switch (expression.getOperator()) {
+            case AND:
+                return binary(expression.getLeft(), " AND ", expression.getRight());
+            case OR:
+                return binary(expression.getLeft(), " OR ", expression.getRight());
+            case XOR:
+                // Null if either side is null, like the VTL xor.
+                return binary(expression.getLeft(), " <> ", expression.getRight());
+            default:
+                return null;
+        }
+    }
+
+    private static String translateUnary(UnaryExpression expression) {
+        String operand = translate(expression.getOperand());
+        if (operand == null) {
+            return null;
+        }
+        switch (expression.getOperator()) {
+            case PLUS:
+                return operand;
+            case MINUS:
+                return "(-" + arithmeticOperand(expression.getOperand()) + ")";
+            case NOT:
+                return "(NOT " + operand + ")";
+            default:
+                return null;
+        }
+    }
+
+    private static String translateMembership(MembershipExpression expression) {
+        var operandType = expression.getOperand().getType();
+        if (!LITERALS.contains(operandType)) {
+            return null;
+        }
+        String operand = translate(expression.getOperand());
+        if (operand == null) {
+            return null;
+        }
+        List<String> elements = new ArrayList<>();
+        for (Object element : expression.getElements()) {
+            // Values are compared with equals: elements of another type never match.
+            if (!operandType.isInstance(element)) {
+                continue;
+            }
+            String literal = literal(element);
+            if (literal == null) {
+                return null;
+            }
+            elements.add(literal);
+        }
+        if (elements.isEmpty()) {
+            // Null when the operand is null, like the VTL operators.
+            return "CASE WHEN " + operand + " IS NULL THEN NULL ELSE "
+                    + literal(expression.isNegated()) + " END";
+        }
+        return "(" + operand + (expression.isNegated() ? " NOT IN (" : " IN (") + String.join(", ", elements) + "))";
+    }
+
+    private static String binary(ResolvableExpression left, String operator, ResolvableExpression right) {
+        String leftSql = translate(left);
+        String rightSql = translate(right);
+        if (leftSql == null || rightSql == null) {
+            return null;
+        }
+        return "(" + leftSql + operator + rightSql + ")";
+    }
+
+    /**
+     * Translates an aggregation.
+     *
+     * @return the SQL aggregate, or null if the aggregation cannot be translated.
+     */
+    static String translate(AggregationExpression aggregation) {
+        if (aggregation instanceof AggregationExpression.CountAggregationExpression) {
+            return "COUNT(*)";
+        }
+        var expression = aggregation.getExpression();
+        if (expression == null) {
+            return null;
+        }
+        String operand = translate(expression);
+        if (operand == null) {
+            return null;
+        }
+        if (aggregation instanceof AggregationExpression.SumAggregationExpression) {
+            return "SUM(" + operand + ")";
+        }
+        if (aggregation instanceof AggregationExpression.AverageAggregationExpression) {
+            return "AVG(CAST(" + operand + " AS DOUBLE PRECISION))";
+        }
+        if (aggregation instanceof AggregationExpression.MinAggregationExpression) {
+            // The VTL minimum is null when a value is null, where MIN ignores the nulls. The maximum ignores them
+            // in both.
+            return "CASE WHEN COUNT(*) <> COUNT(" + operand + ") THEN NULL ELSE MIN(" + operand + ") END";
+        }
+        if (aggregation instanceof AggregationExpression.MaxAggregationExpression) {
+            return "MAX(" + operand + ")";
+        }
+        return null;
+    }
+}
@@ -1,10 +1,16 @@
+import fr.insee.vtl.jdbc.JDBCProcessingEngine;
+import fr.insee.vtl.model.ProcessingEngineFactory;
+
 /**
  * This module contains tools for SQL data sources.
  */
 module fr.insee.vtl.jdbc {
     requires fr.insee.vtl.model;
+    requires fr.insee.vtl.engine;
     requires java.sql;
     requires java.scripting;
 
     exports fr.insee.vtl.jdbc;
+
+    provides ProcessingEngineFactory with JDBCProcessingEngine.Factory;
 }
@@ -14,6 +14,7 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -78,4 +79,22 @@ public class JDBCDatasetTest {
         );
     }
 
+    @Test
+    public void testStreamSql() throws SQLException {
+        connection.createStatement().executeUpdate("insert into ds1 values (5, null, null, null)");
+        var jdbcDataset = new JDBCDataset(connection, "select * from ds1 order by id", 2);
+
+        assertThat(jdbcDataset.getDataStructure().keySet()).containsExactly("ID", "COL1", "COL2", "COL3");
+        assertThat(jdbcDataset.getDataStructure().get("COL2").getType()).isEqualTo(Double.class);
+
+        try (var stream = jdbcDataset.getDataPointStream()) {
+            assertThat(stream.map(point -> point.get("ID")).collect(Collectors.toList()))
+                    .containsExactly(1L, 2L, 3L, 4L, 5L);
+        }
+        // Nulls are preserved, and the dataset can be read again.
+        assertThat(jdbcDataset.getDataAsList().get(4)).containsExactly(5L, null, null, null);
+        try (var stream = jdbcDataset.getDataPointStream()) {
+            assertThat(stream.limit(1).count()).isEqualTo(1L);
+        }
+    }
 }
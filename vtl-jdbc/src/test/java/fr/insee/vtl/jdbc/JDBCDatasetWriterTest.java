@@ -0,0 +1,146 @@
+package fr.insee.vtl.jdbc;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JDBCDatasetWriterTest {
+
+    private static final Structured.DataStructure STRUCTURE = new Structured.DataStructure(List.of(
+            new Structured.Component("id", Long.class, Dataset.Role.IDENTIFIER),
+            new Structured.Component("name", String.class, Dataset.Role.MEASURE),
+            new Structured.Component("amount", Double.class, Dataset.Role.MEASURE),
+            new Structured.Component("valid", Boolean.class, Dataset.Role.ATTRIBUTE)
+    ));
+
+    private JdbcConnectionPool dataSource;
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        dataSource = JdbcConnectionPool.create("jdbc:h2:mem:writer;DB_CLOSE_DELAY=-1", "", "");
+        connection = dataSource.getConnection();
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.createStatement().executeUpdate("drop all objects");
+        connection.close();
+        dataSource.dispose();
+    }
+
+    /**
+     * A dataset that can only be streamed, to check that the writer does not materialize the rows.
+     */
+    private static Dataset stream(long size) {
+        return new Dataset() {
+            @Override
+            public Stream<DataPoint> getDataPointStream() {
+                return LongStream.range(0, size).mapToObj(i -> new DataPoint(STRUCTURE, new ArrayList<>(Arrays.asList(
+                        i, i % 3 == 0 ? null : "name" + i, i * 1.5, i % 2 == 0))));
+            }
+
+            @Override
+            public List<DataPoint> getDataPoints() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public DataStructure getDataStructure() {
+                return STRUCTURE;
+            }
+        };
+    }
+
+    private List<List<Object>> read(String table) {
+        var dataset = new JDBCDataset(connection, "select * from " + table + " order by \"id\"", STRUCTURE, 100);
+        return dataset.getDataAsList();
+    }
+
+    @Test
+    public void testCreateTable() throws SQLException {
+        assertThat(JDBCDatasetWriter.createTableStatement("ds", STRUCTURE)).isEqualTo(
+                "CREATE TABLE ds (\"id\" BIGINT NOT NULL, \"name\" VARCHAR, \"amount\" DOUBLE PRECISION, " +
+                        "\"valid\" BOOLEAN, PRIMARY KEY (\"id\"))");
+        assertThat(JDBCDatasetWriter.insertStatement("ds", STRUCTURE)).isEqualTo(
+                "INSERT INTO ds (\"id\", \"name\", \"amount\", \"valid\") VALUES (?, ?, ?, ?)");
+
+        new JDBCDatasetWriter(dataSource).createTable("ds", STRUCTURE);
+        var dataset = new JDBCDataset(connection, "select * from ds");
+        assertThat(dataset.getDataStructure().keySet()).containsExactly("id", "name", "amount", "valid");
+
+        // Identifiers are the primary key.
+        connection.createStatement().executeUpdate("insert into ds (\"id\") values (1)");
+        assertThatThrownBy(() -> connection.createStatement().executeUpdate("insert into ds (\"id\") values (1)"))
+                .isInstanceOf(SQLException.class);
+    }
+
+    @Test
+    public void testWrite() throws SQLException {
+        var writer = new JDBCDatasetWriter(dataSource, 7, 20, 1);
+        writer.createTable("ds", STRUCTURE);
+
+        var dataset = new InMemoryDataset(List.of(
+                List.of(1L, "a", 1.5, true),
+                Arrays.asList(2L, null, null, null)
+        ), STRUCTURE);
+        assertThat(writer.write("ds", dataset)).isEqualTo(2L);
+        assertThat(read("ds")).isEqualTo(dataset.getDataAsList());
+
+        // Several chunks, the last chunk and batch being incomplete.
+        var rows = stream(103).getDataPointStream().skip(3).collect(Collectors.toList());
+        assertThat(writer.write("ds", new InMemoryDataset(rows, STRUCTURE))).isEqualTo(100L);
+        assertThat(read("ds")).hasSize(102);
+        assertThat(read("ds").subList(2, 102)).isEqualTo(rows);
+    }
+
+    @Test
+    public void testWriteConcurrently() throws SQLException {
+        var writer = new JDBCDatasetWriter(dataSource, 10, 50, 4);
+        writer.createTable("ds", STRUCTURE);
+
+        assertThat(writer.write("ds", stream(1005))).isEqualTo(1005L);
+        assertThat(read("ds")).isEqualTo(
+                stream(1005).getDataPointStream().map(point -> (List<Object>) point).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFailure() throws SQLException {
+        var writer = new JDBCDatasetWriter(dataSource, 10, 50, 2);
+        writer.createTable("ds", STRUCTURE);
+        connection.createStatement().executeUpdate("insert into ds (\"id\") values (120)");
+
+        // The chunks committed before the duplicate key stay in the table, the failing chunk is rolled back.
+        assertThatThrownBy(() -> writer.write("ds", stream(1000))).isInstanceOf(SQLException.class);
+        assertThat(read("ds").stream().filter(row -> (Long) row.get(0) >= 100 && (Long) row.get(0) < 150))
+                .hasSize(1);
+    }
+
+    @Test
+    public void testCommitSizeRoundedUp() throws SQLException {
+        // Transactions of 50 rows: the one holding the duplicate key, 120, starts at 100.
+        var writer = new JDBCDatasetWriter(dataSource, 10, 45, 1);
+        writer.createTable("ds", STRUCTURE);
+        connection.createStatement().executeUpdate("insert into ds (\"id\") values (120)");
+
+        assertThatThrownBy(() -> writer.write("ds", stream(1000))).isInstanceOf(SQLException.class);
+        assertThat(read("ds").stream().filter(row -> (Long) row.get(0) < 100)).hasSize(100);
+        assertThat(read("ds")).hasSize(101);
+    }
+}
@@ -0,0 +1,164 @@
+package fr.insee.vtl.jdbc;
+
+import fr.insee.vtl.model.Dataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JDBCProcessingEngineTest {
+
+    private ScriptEngine engine;
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        var statement = connection.createStatement();
+        statement.executeUpdate("create table ds1 (id integer primary key, grp varchar, amount float, flag boolean)");
+        statement.executeUpdate("insert into ds1 values (1, 'a', 1.5, true)");
+        statement.executeUpdate("insert into ds1 values (2, 'a', 2.5, false)");
+        statement.executeUpdate("insert into ds1 values (3, 'b', null, true)");
+        statement.executeUpdate("insert into ds1 values (4, null, 4.0, null)");
+        statement.executeUpdate("create table ds2 (id integer primary key, label varchar)");
+        statement.executeUpdate("insert into ds2 values (1, 'one')");
+        statement.executeUpdate("insert into ds2 values (3, 'three')");
+
+        engine = new ScriptEngineManager().getEngineByExtension("vtl");
+        engine.put("$vtl.engine.processing_engine_names", "jdbc");
+        var bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
+        bindings.put("ds1", new JDBCDataset(connection, "select * from ds1"));
+        bindings.put("ds2", new JDBCDataset(connection, "select * from ds2"));
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private Dataset eval(String script) throws ScriptException {
+        engine.eval(script);
+        return (Dataset) engine.getBindings(ScriptContext.ENGINE_SCOPE).get("res");
+    }
+
+    private static Map<String, Object> row(Object... keyValues) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return row;
+    }
+
+    @Test
+    public void testClauses() throws ScriptException {
+        var res = eval("res := ds1[filter AMOUNT > 2.0 or not(FLAG)]" +
+                "[calc identifier ID := ID, TWICE := AMOUNT * 2.0, G := nvl(GRP, \"none\")]" +
+                "[rename AMOUNT to AMT][drop GRP, FLAG];");
+
+        assertThat(res).isInstanceOf(JDBCDataset.class);
+        assertThat(((JDBCDataset) res).getQuery()).contains("WHERE", "COALESCE");
+        assertThat(res.getDataStructure().keySet()).containsExactly("ID", "AMT", "TWICE", "G");
+        assertThat(res.getDataStructure().get("ID").getRole()).isEqualTo(Dataset.Role.IDENTIFIER);
+        assertThat(res.getDataAsMap()).containsExactlyInAnyOrder(
+                Map.of("ID", 2L, "AMT", 2.5, "TWICE", 5.0, "G", "a"),
+                Map.of("ID", 4L, "AMT", 4.0, "TWICE", 8.0, "G", "none")
+        );
+    }
+
+    @Test
+    public void testNullSemantics() throws ScriptException {
+        var res = eval("res := ds1[calc C := if FLAG then 1 else 0, M := GRP in {\"a\", \"c\"}][keep ID, C, M];");
+
+        assertThat(res).isInstanceOf(JDBCDataset.class);
+        assertThat(res.getDataAsList()).containsExactlyInAnyOrder(
+                Arrays.asList(1L, 1L, true),
+                Arrays.asList(2L, 0L, true),
+                Arrays.asList(3L, 1L, false),
+                Arrays.asList(4L, null, null)
+        );
+    }
+
+    @Test
+    public void testAggr() throws ScriptException {
+        var res = eval("res := ds1[aggr n := count(), s := sum(AMOUNT), m := max(ID) group by GRP];");
+
+        assertThat(res).isInstanceOf(JDBCDataset.class);
+        assertThat(res.getDataStructure().keySet()).containsExactly("GRP", "n", "s", "m");
+        assertThat(res.getDataAsList()).containsExactly(
+                Arrays.asList(null, 1L, 4.0, 4L),
+                Arrays.asList("a", 2L, 4.0, 2L),
+                Arrays.asList("b", 1L, null, 3L)
+        );
+    }
+
+    @Test
+    public void testAggrExtremumWithNull() throws ScriptException {
+        var script = "res := ds1[aggr lo := min(AMOUNT), hi := max(AMOUNT) group by FLAG];";
+        var res = eval(script);
+
+        assertThat(res).isInstanceOf(JDBCDataset.class);
+        assertThat(res.getDataAsList()).containsExactly(
+                Arrays.asList(null, 4.0, 4.0),
+                Arrays.asList(false, 2.5, 2.5),
+                Arrays.asList(true, null, 1.5)
+        );
+
+        engine.put("$vtl.engine.processing_engine_names", "memory");
+        assertThat(eval(script).getDataAsList()).containsExactlyElementsOf(res.getDataAsList());
+    }
+
+    @Test
+    public void testArithmeticOnIntegerColumns() throws ScriptException {
+        var res = eval("res := ds1[calc BIG := ID * 2147483647][keep ID, BIG];");
+
+        assertThat(res).isInstanceOf(JDBCDataset.class);
+        assertThat(((JDBCDataset) res).getQuery()).contains("BIGINT");
+        assertThat(res.getDataAsMap()).contains(Map.of("ID", 2L, "BIG", 4294967294L));
+    }
+
+    @Test
+    public void testJoins() throws ScriptException {
+        engine.eval("left := ds1[calc identifier ID := ID][keep ID, GRP];" +
+                "right := ds2[calc identifier ID := ID];");
+
+        var inner = eval("res := inner_join(left, right);");
+        assertThat(inner).isInstanceOf(JDBCDataset.class);
+        assertThat(inner.getDataAsMap()).containsExactlyInAnyOrder(
+                Map.of("ID", 1L, "GRP", "a", "LABEL", "one"),
+                Map.of("ID", 3L, "GRP", "b", "LABEL", "three")
+        );
+
+        var leftJoin = eval("res := left_join(left, right);");
+        assertThat(leftJoin).isInstanceOf(JDBCDataset.class);
+        assertThat(leftJoin.getDataAsMap()).containsExactlyInAnyOrder(
+                row("ID", 1L, "GRP", "a", "LABEL", "one"),
+                row("ID", 2L, "GRP", "a", "LABEL", null),
+                row("ID", 3L, "GRP", "b", "LABEL", "three"),
+                row("ID", 4L, "GRP", null, "LABEL", null)
+        );
+    }
+
+    @Test
+    public void testFallback() throws ScriptException {
+        // Divisions are not translated: the filter runs in memory, and so do the following operations.
+        var res = eval("res := ds1[filter AMOUNT / 2.0 > 1.0][calc HALF := AMOUNT / 2.0][keep ID, HALF];");
+
+        assertThat(res).isNotInstanceOf(JDBCDataset.class);
+        assertThat(res.getDataAsMap()).containsExactlyInAnyOrder(
+                Map.of("ID", 2L, "HALF", 1.25),
+                Map.of("ID", 4L, "HALF", 2.0)
+        );
+    }
+}
@@ -0,0 +1,126 @@
+package fr.insee.vtl.jdbc;
+
+import fr.insee.vtl.model.ColumnarDataset;
+import fr.insee.vtl.model.Dataset;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PartitionedJDBCDatasetTest {
+
+    private JdbcConnectionPool dataSource;
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        dataSource = JdbcConnectionPool.create("jdbc:h2:mem:partitions;DB_CLOSE_DELAY=-1", "", "");
+        connection = dataSource.getConnection();
+        var statement = connection.createStatement();
+        statement.executeUpdate("create table ds1 (id integer, amount float)");
+        statement.executeUpdate("insert into ds1 select x - 50, x * 1.5 from system_range(1, 1000)");
+        statement.executeUpdate("insert into ds1 values (null, 0.0)");
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.createStatement().executeUpdate("drop table ds1");
+        connection.close();
+        dataSource.dispose();
+    }
+
+    private static List<Long> ids(Dataset dataset) {
+        return dataset.getDataPoints().stream()
+                .map(point -> (Long) point.get("ID"))
+                .filter(id -> id != null)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRanges() {
+        var dataset = new PartitionedJDBCDataset(dataSource, "select * from ds1", Partitioning.ranges("ID", 7));
+
+        assertThat(dataset.getPartitionQueries()).hasSize(7);
+        assertThat(dataset.getDataStructure().keySet()).containsExactly("ID", "AMOUNT");
+        assertThat(dataset.getDataPoints()).hasSize(1001);
+        assertThat(ids(dataset)).isEqualTo(LongStream.rangeClosed(-49, 950).boxed().collect(Collectors.toList()));
+
+        // Values outside of the given bounds belong to the first and last partitions.
+        var bounded = new PartitionedJDBCDataset(dataSource, "select * from ds1;", Partitioning.ranges("ID", 0, 100, 4));
+        assertThat(bounded.getDataPoints()).hasSize(1001);
+    }
+
+    @Test
+    public void testRangesOfFullWidth() throws SQLException {
+        var conditions = Partitioning.ranges("ID", Long.MIN_VALUE, Long.MAX_VALUE, 4).conditions(null, "");
+        assertThat(conditions).containsExactly(
+                "\"ID\" < -4611686018427387905 OR \"ID\" IS NULL",
+                "\"ID\" >= -4611686018427387905 AND \"ID\" < -2",
+                "\"ID\" >= -2 AND \"ID\" < 4611686018427387901",
+                "\"ID\" >= 4611686018427387901"
+        );
+    }
+
+    @Test
+    public void testModulo() {
+        var dataset = new PartitionedJDBCDataset(dataSource, "select * from ds1", Partitioning.modulo("ID", 4), 10);
+
+        assertThat(dataset.getPartitionQueries()).hasSize(4);
+        assertThat(dataset.getDataPoints()).hasSize(1001);
+        assertThat(ids(dataset)).isEqualTo(LongStream.rangeClosed(-49, 950).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testStreams() {
+        var dataset = new PartitionedJDBCDataset(dataSource, "select * from ds1", Partitioning.modulo("ID", 8));
+
+        try (var stream = dataset.getDataPointStream()) {
+            assertThat(stream.count()).isEqualTo(1001L);
+        }
+        try (var stream = dataset.getDataPointStream()) {
+            assertThat(stream.parallel().mapToDouble(point -> (Double) point.get("AMOUNT")).sum())
+                    .isEqualTo(1.5 * 1000 * 1001 / 2);
+        }
+        // Closing a partially read stream closes the open partitions.
+        try (var stream = dataset.getDataPointStream()) {
+            assertThat(stream.parallel().limit(3).count()).isEqualTo(3L);
+        }
+
+        var columnar = ColumnarDataset.of(dataset);
+        assertThat(columnar.size()).isEqualTo(1001);
+        assertThat(columnar.getDataAsList()).isEqualTo(dataset.getDataAsList());
+    }
+
+    @Test
+    public void testParallelEngine() throws ScriptException {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByExtension("vtl");
+        var pool = new ForkJoinPool(4);
+        try {
+            engine.put("$vtl.engine.processing_engine_parallelism", pool);
+            var bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
+            bindings.put("ds1", new PartitionedJDBCDataset(dataSource, "select * from ds1",
+                    Partitioning.ranges("ID", 4)));
+
+            engine.eval("res := ds1[filter ID >= 0][calc twice := AMOUNT * 2.0];");
+
+            var res = (Dataset) bindings.get("res");
+            assertThat(res.getDataPoints()).hasSize(951);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package fr.insee.vtl.model;
+
+import java.util.Arrays;
+import java.util.stream.Collector;
+
+/**
+ * Collectors with primitive state used by the {@link AggregationExpression}s.
+ * <p>
+ * The accumulated values are kept in <code>long</code> and <code>double</code> fields or arrays so that no object
+ * is allocated per value. Every collector has a combiner and can be used on parallel streams.
+ */
+final class Accumulators {
+
+    private Accumulators() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Counts the elements.
+     */
+    static <T> Collector<T, LongState, Long> count() {
+        return Collector.of(
+                LongState::new,
+                (state, value) -> state.count++,
+                LongState::merge,
+                state -> state.count
+        );
+    }
+
+    /**
+     * Sums long values, ignoring nulls. The result is null if all the values are null.
+     */
+    static Collector<Object, LongState, Long> sumLong() {
+        return Collector.of(
+                LongState::new,
+                (state, value) -> {
+                    if (value != null) {
+                        state.value += ((Number) value).longValue();
+                        state.count++;
+                    }
+                },
+                LongState::merge,
+                state -> state.count == 0 ? null : state.value
+        );
+    }
+
+    /**
+     * Sums double values, ignoring nulls. The result is null if all the values are null.
+     */
+    static Collector<Object, DoubleState, Double> sumDouble() {
+        return Collector.of(
+                DoubleState::new,
+                (state, value) -> {
+                    if (value != null) {
+                        state.value += ((Number) value).doubleValue();
+                        state.count++;
+                    }
+                },
+                DoubleState::merge,
+                state -> state.count == 0 ? null : state.value
+        );
+    }
+
+    /**
+     * Averages long values, ignoring nulls. The result is null if all the values are null.
+     */
+    static Collector<Object, LongState, Double> avgLong() {
+        return Collector.of(
+                LongState::new,
+                (state, value) -> {
+                    if (value != null) {
+                        state.value += ((Number) value).longValue();
+                        state.count++;
+                    }
+                },
+                LongState::merge,
+                state -> state.count == 0 ? null : (double) state.value / state.count
+        );
+    }
+
+    /**
+     * Averages double values, ignoring nulls. The result is null if all the values are null.
+     */
+    static Collector<Object, DoubleState, Double> avgDouble() {
+        return Collector.of(
+                DoubleState::new,
+                (state, value) -> {
+                    if (value != null) {
+                        state.value += ((Number) value).doubleValue();
+                        state.count++;
+                    }
+                },
+                DoubleState::merge,
+                state -> state.count == 0 ? null : state.value / state.count
+        );
+    }
+
+    /**
+     * Returns the maximum or minimum of long values.
+     * <p>
+     * Nulls are ordered first: the maximum ignores them, and the minimum is null as soon as a value is null.
+     */
+    static Collector<Object, LongState, Long> extremumLong(boolean max) {
+        return Collector.of(
+                LongState::new,
+                (state, value) -> {
+                    if (value == null) {
+                        state.hasNull = true;
+                    } else {
+                        state.accept(((Number) value).longValue(), max);
+                    }
+                },
+                (left, right) -> {
+                    left.hasNull |= right.hasNull;
+                    if (right.count > 0) {
+                        left.accept(right.value, max);
+                    }
+                    return left;
+                },
+                state -> (!max && state.hasNull) || state.count == 0 ? null : state.value
+        );
+    }
+
+    /**
+     * Returns the maximum or minimum of double values, see {@link #extremumLong(boolean)}.
+     */
+    static Collector<Object, DoubleState, Double> extremumDouble(boolean max) {
+        return Collector.of(
+                DoubleState::new,
+                (state, value) -> {
+                    if (value == null) {
+                        state.hasNull = true;
+                    } else {
+                        state.accept(((Number) value).doubleValue(), max);
+                    }
+                },
+                (left, right) -> {
+                    left.hasNull |= right.hasNull;
+                    if (right.count > 0) {
+                        left.accept(right.value, max);
+                    }
+                    return left;
+                },
+                state -> (!max && state.hasNull) || state.count == 0 ? null : state.value
+        );
+    }
+
+    /**
+     * Computes the variance or the standard deviation of the values using Welford's online algorithm. The result
+     * is null if any value is null, and 0 for a single value.
+     *
+     * @param population true for the population variance, false for the sample variance
+     * @param deviation  true to return the standard deviation instead of the variance
+     */
+    static Collector<Object, Welford, Double> variance(boolean population, boolean deviation) {
+        return Collector.of(
+                Welford::new,
+                Welford::accept,
+                Welford::merge,
+                state -> {
+                    if (state.hasNull) return null;
+                    if (state.count <= 1) return 0D;
+                    double variance = state.m2 / (state.count - (population ? 0D : 1D));
+                    return deviation ? Math.sqrt(variance) : variance;
+                }
+        );
+    }
+
+    /**
+     * Computes the exact median of the values. The values are kept in a primitive array. The result is null if
+     * any value is null.
+     */
+    static Collector<Object, DoubleBuffer, Double> median() {
+        return Collector.of(
+                DoubleBuffer::new,
+                DoubleBuffer::accept,
+                DoubleBuffer::merge,
+                DoubleBuffer::median
+        );
+    }
+
+    /**
+     * Computes an approximation of the median in bounded memory, see {@link MedianSketch}. The result is null if
+     * any value is null.
+     *
+     * @param capacity the number of values kept per level of the sketch
+     */
+    static Collector<Object, MedianSketch, Double> approximateMedian(int capacity) {
+        return Collector.of(
+                () -> new MedianSketch(capacity),
+                MedianSketch::accept,
+                MedianSketch::merge,
+                MedianSketch::median
+        );
+    }
+
+    static final class LongState {
+        long value;
+        long count;
+        boolean hasNull;
+
+        void accept(long other, boolean max) {
+            if (count == 0 || (max ? other > value : other < value)) {
+                value = other;
+            }
+            count++;
+        }
+
+        LongState merge(LongState other) {
+            value += other.value;
+            count += other.count;
+            hasNull |= other.hasNull;
+            return this;
+        }
+    }
+
+    static final class DoubleState {
+        double value;
+        long count;
+        boolean hasNull;
+
+        void accept(double other, boolean max) {
+            if (count == 0 || (max ? other > value : other < value)) {
+                value = other;
+            }
+            count++;
+        }
+
+        DoubleState merge(DoubleState other) {
+            value += other.value;
+            count += other.count;
+            hasNull |= other.hasNull;
+            return this;
+        }
+    }
+
+    /**
+     * State of Welford's algorithm: the count, the mean and the sum of the squared differences to the mean.
+     */
+    static final class Welford {
+        long count;
+        double mean;
+        double m2;
+        boolean hasNull;
+
+        void accept(Object value) {
+            if (value == null) {
+                hasNull = true;
+                return;
+            }
+            double x = ((Number) value).doubleValue();
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+        }
+
+        Welford merge(Welford other) {
+            hasNull |= other.hasNull;
+            if (other.count == 0) {
+                return this;
+            }
+            if (count == 0) {
+                count = other.count;
+                mean = other.mean;
+                m2 = other.m2;
+                return this;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * count * other.count / total;
+            count = total;
+            return this;
+        }
+    }
+
+    static final class DoubleBuffer {
+        double[] values = new double[16];
+        int size;
+        boolean hasNull;
+
+        void accept(Object value) {
+            if (value == null) {
+                hasNull = true;
+                return;
+            }
+            add(((Number) value).doubleValue());
+        }
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        DoubleBuffer merge(DoubleBuffer other) {
+            hasNull |= other.hasNull;
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+            return this;
+        }
+
+        Double median() {
+            if (hasNull || size == 0) return null;
+            Arrays.sort(values, 0, size);
+            if (size % 2 == 0) {
+                return (values[size / 2 - 1] + values[size / 2]) / 2;
+            } else {
+                return values[size / 2];
+            }
+        }
+    }
+
+    /**
+     * Mergeable quantile sketch used to approximate the median of large groups.
+     * <p>
+     * Values are added to the first level. When a level is full it is sorted and every other value is promoted to
+     * the next level, where it stands for twice as many values. The memory used is
+     * <code>O(capacity * log(n / capacity))</code> and the rank error of the result is in
+     * <code>O(log(n / capacity) / capacity)</code>. Groups smaller than the capacity get the exact median.
+     */
+    static final class MedianSketch {
+        private final int capacity;
+        private double[][] levels = new double[1][];
+        private int[] sizes = new int[1];
+        private boolean hasNull;
+        // Alternates the promoted half to avoid biasing the result.
+        private boolean odd;
+
+        MedianSketch(int capacity) {
+            if (capacity < 2) {
+                throw new IllegalArgumentException("capacity must be at least 2");
+            }
+            this.capacity = capacity;
+            levels[0] = new double[capacity];
+        }
+
+        void accept(Object value) {
+            if (value == null) {
+                hasNull = true;
+                return;
+            }
+            add(0, ((Number) value).doubleValue());
+        }
+
+        private void add(int level, double value) {
+            if (level >= levels.length) {
+                // A merged sketch can have more levels than this one.
+                int length = levels.length;
+                levels = Arrays.copyOf(levels, level + 1);
+                sizes = Arrays.copyOf(sizes, level + 1);
+                for (int i = length; i <= level; i++) {
+                    levels[i] = new double[capacity];
+                }
+            }
+            levels[level][sizes[level]++] = value;
+            if (sizes[level] == capacity) {
+                compact(level);
+            }
+        }
+
+        private void compact(int level) {
+            var values = levels[level];
+            Arrays.sort(values, 0, capacity);
+            sizes[level] = 0;
+            odd = !odd;
+            for (int i = odd ? 1 : 0; i < capacity; i += 2) {
+                add(level + 1, values[i]);
+            }
+        }
+
+        MedianSketch merge(MedianSketch other) {
+            hasNull |= other.hasNull;
+            for (int level = 0; level < other.levels.length; level++) {
+                for (int i = 0; i < other.sizes[level]; i++) {
+                    add(level, other.levels[level][i]);
+                }
+            }
+            return this;
+        }
+
+        Double median() {
+            if (hasNull) return null;
+            long total = 0;
+            int count = 0;
+            for (int level = 0; level < levels.length; level++) {
+                total += (long) sizes[level] << level;
+                count += sizes[level];
+            }
+            if (total == 0) return null;
+            if (levels.length == 1) {
+                var exact = new DoubleBuffer();
+                for (int i = 0; i < sizes[0]; i++) {
+                    exact.add(levels[0][i]);
+                }
+                return exact.median();
+            }
+            // Sort the retained values with their weights and find the weighted middle.
+            var values = new double[count];
+            var weights = new long[count];
+            Integer[] order = new Integer[count];
+            int index = 0;
+            for (int level = 0; level < levels.length; level++) {
+                for (int i = 0; i < sizes[level]; i++) {
+                    values[index] = levels[level][i];
+                    weights[index] = 1L << level;
+                    order[index] = index;
+                    index++;
+                }
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+            long half = (total + 1) / 2;
+            long seen = 0;
+            for (Integer i : order) {
+                seen += weights[i];
+                if (seen >= half) {
+                    return values[i];
+                }
+            }
+            return values[order[count - 1]];
+        }
+    }
+}
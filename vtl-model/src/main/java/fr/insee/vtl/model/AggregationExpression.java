@@ -1,10 +1,5 @@
 package fr.insee.vtl.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
@@ -20,6 +15,7 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
 
     private final Collector<Structured.DataPoint, ?, ?> aggregation;
     private final Class<?> type;
+    private final ResolvableExpression expression;
 
     /**
      * Constructor taking a collector of data points and an intended type for the aggregation results.
@@ -30,6 +26,7 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
     public <T> AggregationExpression(Collector<Structured.DataPoint, ?, T> aggregation, Class<T> type) {
         this.aggregation = aggregation;
         this.type = type;
+        this.expression = null;
     }
 
     /**
@@ -41,7 +38,17 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      * @param type       The expected type of the aggregation expression results.
      */
     public <T> AggregationExpression(ResolvableExpression expression, Collector<Object, ?, T> collector, Class<T> type) {
-        this(Collectors.mapping(expression::resolve, collector), type);
+        this.aggregation = Collectors.mapping(expression::resolve, collector);
+        this.type = type;
+        this.expression = expression;
+    }
+
+    /**
+     * Returns the input expression applied to each data point, or null if the aggregation reads the data points
+     * directly (see {@link #count()}).
+     */
+    public ResolvableExpression getExpression() {
+        return expression;
     }
 
     /**
@@ -50,7 +57,7 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      * @return The counting expression.
      */
     public static AggregationExpression count() {
-        return new CountAggregationExpression(Collectors.counting(), Long.class);
+        return new CountAggregationExpression(Accumulators.count(), Long.class);
     }
 
     public static class CountAggregationExpression extends AggregationExpression {
@@ -67,17 +74,9 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression avg(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            return new AverageAggregationExpression(
-                    expression,
-                    Collectors.averagingLong(value -> (Long) value),
-                    Double.class
-            );
+            return new AverageAggregationExpression(expression, Accumulators.avgLong(), Double.class);
         } else if (Double.class.equals(expression.getType())) {
-            return new AverageAggregationExpression(
-                    expression,
-                    Collectors.averagingDouble(value -> (Double) value),
-                    Double.class
-            );
+            return new AverageAggregationExpression(expression, Accumulators.avgDouble(), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -98,9 +97,9 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression sum(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            return new SumAggregationExpression(expression, Collectors.summingLong(value -> (Long) value), Long.class);
+            return new SumAggregationExpression(expression, Accumulators.sumLong(), Long.class);
         } else if (Double.class.equals(expression.getType())) {
-            return new SumAggregationExpression(expression, Collectors.summingDouble(value -> (Double) value), Double.class);
+            return new SumAggregationExpression(expression, Accumulators.sumDouble(), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -121,9 +120,29 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression median(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            return new MedianAggregationExpression(expression, Collectors.mapping(v -> (Long) v, medianCollectorLong()), Double.class);
+            return new MedianAggregationExpression(expression, Accumulators.median(), Double.class);
         } else if (Double.class.equals(expression.getType())) {
-            return new MedianAggregationExpression(expression, Collectors.mapping(v -> (Double) v, medianCollectorDouble()), Double.class);
+            return new MedianAggregationExpression(expression, Accumulators.median(), Double.class);
+        } else {
+            // Type asserted in visitor.
+            throw new Error("unexpected type");
+        }
+    }
+
+    /**
+     * Returns an aggregation expression that gives an approximation of the median of an expression on data points
+     * and returns a double number.
+     * <p>
+     * Unlike {@link #median(ResolvableExpression)}, the values are not all kept in memory: the memory used grows with
+     * the logarithm of the size of the group. Groups smaller than the capacity get the exact median.
+     *
+     * @param expression The expression on data points.
+     * @param capacity   The number of values kept per level, higher values give better approximations.
+     * @return The approximate median expression.
+     */
+    public static AggregationExpression approximateMedian(ResolvableExpression expression, int capacity) {
+        if (Long.class.equals(expression.getType()) || Double.class.equals(expression.getType())) {
+            return new MedianAggregationExpression(expression, Accumulators.approximateMedian(capacity), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -144,15 +163,9 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression max(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            Collector<Long, ?, Optional<Long>> maxBy = Collectors.maxBy(Comparator.nullsFirst(Comparator.naturalOrder()));
-            Collector<Object, ?, Optional<Long>> mapping = Collectors.mapping(v -> (Long) v, maxBy);
-            Collector<Object, ?, Long> res = Collectors.collectingAndThen(mapping, v -> v.orElse(null));
-            return new MaxAggregationExpression(expression, res, Long.class);
+            return new MaxAggregationExpression(expression, Accumulators.extremumLong(true), Long.class);
         } else if (Double.class.equals(expression.getType())) {
-            Collector<Double, ?, Optional<Double>> maxBy = Collectors.maxBy(Comparator.nullsFirst(Comparator.naturalOrder()));
-            Collector<Object, ?, Optional<Double>> mapping = Collectors.mapping(v -> (Double) v, maxBy);
-            Collector<Object, ?, Double> res = Collectors.collectingAndThen(mapping, v -> v.orElse(null));
-            return new MaxAggregationExpression(expression, res, Double.class);
+            return new MaxAggregationExpression(expression, Accumulators.extremumDouble(true), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -173,15 +186,9 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression min(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            Collector<Long, ?, Optional<Long>> maxBy = Collectors.minBy(Comparator.nullsFirst(Comparator.naturalOrder()));
-            Collector<Object, ?, Optional<Long>> mapping = Collectors.mapping(v -> (Long) v, maxBy);
-            Collector<Object, ?, Long> res = Collectors.collectingAndThen(mapping, v -> v.orElse(null));
-            return new MinAggregationExpression(expression, res, Long.class);
+            return new MinAggregationExpression(expression, Accumulators.extremumLong(false), Long.class);
         } else if (Double.class.equals(expression.getType())) {
-            Collector<Double, ?, Optional<Double>> maxBy = Collectors.minBy(Comparator.nullsFirst(Comparator.naturalOrder()));
-            Collector<Object, ?, Optional<Double>> mapping = Collectors.mapping(v -> (Double) v, maxBy);
-            Collector<Object, ?, Double> res = Collectors.collectingAndThen(mapping, v -> v.orElse(null));
-            return new MinAggregationExpression(expression, res, Double.class);
+            return new MinAggregationExpression(expression, Accumulators.extremumDouble(false), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -202,9 +209,9 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression stdDevPop(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            return new StdDevPopAggregationExpression(expression, Collectors.mapping(v -> (Long) v, stdDevPopCollectorLong()), Double.class);
+            return new StdDevPopAggregationExpression(expression, Accumulators.variance(true, true), Double.class);
         } else if (Double.class.equals(expression.getType())) {
-            return new StdDevPopAggregationExpression(expression, Collectors.mapping(v -> (Double) v, stdDevPopCollectorDouble()), Double.class);
+            return new StdDevPopAggregationExpression(expression, Accumulators.variance(true, true), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -226,9 +233,9 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression stdDevSamp(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            return new StdDevSampAggregationExpression(expression, Collectors.mapping(v -> (Long) v, stdDevSampCollectorLong()), Double.class);
+            return new StdDevSampAggregationExpression(expression, Accumulators.variance(false, true), Double.class);
         } else if (Double.class.equals(expression.getType())) {
-            return new StdDevSampAggregationExpression(expression, Collectors.mapping(v -> (Double) v, stdDevSampCollectorDouble()), Double.class);
+            return new StdDevSampAggregationExpression(expression, Accumulators.variance(false, true), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -250,9 +257,9 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression varPop(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            return new VarPopAggregationExpression(expression, Collectors.mapping(v -> (Long) v, varPopCollectorLong()), Double.class);
+            return new VarPopAggregationExpression(expression, Accumulators.variance(true, false), Double.class);
         } else if (Double.class.equals(expression.getType())) {
-            return new VarPopAggregationExpression(expression, Collectors.mapping(v -> (Double) v, varPopCollectorDouble()), Double.class);
+            return new VarPopAggregationExpression(expression, Accumulators.variance(true, false), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -274,9 +281,9 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
      */
     public static AggregationExpression varSamp(ResolvableExpression expression) {
         if (Long.class.equals(expression.getType())) {
-            return new VarSampAggregationExpression(expression, Collectors.mapping(v -> (Long) v, varSampCollectorLong()), Double.class);
+            return new VarSampAggregationExpression(expression, Accumulators.variance(false, false), Double.class);
         } else if (Double.class.equals(expression.getType())) {
-            return new VarSampAggregationExpression(expression, Collectors.mapping(v -> (Double) v, varSampCollectorDouble()), Double.class);
+            return new VarSampAggregationExpression(expression, Accumulators.variance(false, false), Double.class);
         } else {
             // Type asserted in visitor.
             throw new Error("unexpected type");
@@ -289,186 +296,6 @@ public class AggregationExpression implements Collector<Structured.DataPoint, Ob
         }
     }
 
-    private static Collector<Long, List<Long>, Double> medianCollectorLong() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                longs -> {
-                    if (longs.contains(null)) return null;
-                    Collections.sort(longs);
-                    if (longs.size() % 2 == 0) {
-                        return (double) (longs.get(longs.size() / 2 - 1) + longs.get(longs.size() / 2)) / 2;
-                    } else {
-                        return (double) longs.get(longs.size() / 2);
-                    }
-                }
-        );
-    }
-
-    private static Collector<Double, List<Double>, Double> medianCollectorDouble() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                longs -> {
-                    if (longs.contains(null)) return null;
-                    Collections.sort(longs);
-                    if (longs.size() % 2 == 0) {
-                        return (longs.get(longs.size() / 2 - 1) + longs.get(longs.size() / 2)) / 2;
-                    } else {
-                        return longs.get(longs.size() / 2);
-                    }
-                }
-        );
-    }
-
-    private static Collector<Long, List<Long>, Double> stdDevPopCollectorLong() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                getDeviationLongFn(true)
-        );
-    }
-
-    private static Collector<Double, List<Double>, Double> stdDevPopCollectorDouble() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                getDeviationDoubleFn(true)
-        );
-    }
-
-    private static Collector<Long, List<Long>, Double> stdDevSampCollectorLong() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                getDeviationLongFn(false)
-        );
-    }
-
-    private static Collector<Double, List<Double>, Double> stdDevSampCollectorDouble() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                getDeviationDoubleFn(false)
-        );
-    }
-
-    private static Collector<Long, List<Long>, Double> varPopCollectorLong() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                getVarLongFn(true)
-        );
-    }
-
-    private static Collector<Double, List<Double>, Double> varPopCollectorDouble() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                getVarDoubleFn(true)
-        );
-    }
-
-    private static Collector<Long, List<Long>, Double> varSampCollectorLong() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                getVarLongFn(false)
-        );
-    }
-
-    private static Collector<Double, List<Double>, Double> varSampCollectorDouble() {
-        return Collector.of(
-                ArrayList::new,
-                List::add,
-                (longs, longs2) -> {
-                    longs.addAll(longs2);
-                    return longs;
-                },
-                getVarDoubleFn(false)
-        );
-    }
-
-    private static Function<List<Long>, Double> getDeviationLongFn(Boolean usePopulation) {
-        return longs -> {
-            if (longs.contains(null)) return null;
-            if (longs.size() <= 1) return 0D;
-            Double avg = longs.stream().collect(Collectors.averagingLong(v -> v));
-            return Math.sqrt(
-                    longs.stream().map(v -> Math.pow(((double) v) - avg, 2)).mapToDouble(v -> v).sum()
-                            / (longs.size() - (usePopulation ? 0D : 1D))
-            );
-        };
-    }
-
-    private static Function<List<Double>, Double> getDeviationDoubleFn(Boolean usePopulation) {
-        return doubles -> {
-            if (doubles.contains(null)) return null;
-            if (doubles.size() <= 1) return 0D;
-            Double avg = doubles.stream().collect(Collectors.averagingDouble(v -> v));
-            return Math.sqrt(
-                    doubles.stream().map(v -> Math.pow(v - avg, 2)).mapToDouble(v -> v).sum()
-                            / (doubles.size() - (usePopulation ? 0D : 1D))
-            );
-        };
-    }
-
-    private static Function<List<Long>, Double> getVarLongFn(Boolean usePopulation) {
-        return longs -> {
-            if (longs.contains(null)) return null;
-            if (longs.size() <= 1) return 0D;
-            Double avg = longs.stream().collect(Collectors.averagingLong(v -> v));
-            return longs.stream().map(v -> Math.pow(((double) v) - avg, 2)).mapToDouble(v -> v).sum()
-                    / (longs.size() - (usePopulation ? 0D : 1D));
-        };
-    }
-
-    private static Function<List<Double>, Double> getVarDoubleFn(Boolean usePopulation) {
-        return doubles -> {
-            if (doubles.contains(null)) return null;
-            if (doubles.size() <= 1) return 0D;
-            Double avg = doubles.stream().collect(Collectors.averagingDouble(v -> v));
-            return doubles.stream().map(v -> Math.pow(v - avg, 2)).mapToDouble(v -> v).sum()
-                    / (doubles.size() - (usePopulation ? 0D : 1D));
-        };
-    }
-
     @Override
     public Class<?> getType() {
         return type;
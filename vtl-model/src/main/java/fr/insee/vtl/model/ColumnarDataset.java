@@ -0,0 +1,688 @@
+package fr.insee.vtl.model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Columnar implementation of <code>Dataset</code>.
+ * <p>
+ * The values are stored by column. Long, double and boolean columns use primitive arrays and a bit set marking
+ * the null values, string columns are dictionary encoded. Columns are immutable and can be shared between
+ * datasets, so that operations like projection or renaming do not copy any value.
+ * <p>
+ * The data points returned by {@link #getDataPoints()} and {@link #getDataPointStream()} are created on access
+ * and not kept, so reading the same row twice gives two different data points.
+ */
+public class ColumnarDataset implements Dataset {
+
+    private final DataStructure structure;
+    private final List<Column> columns;
+    private final int size;
+
+    /**
+     * Constructor taking a data structure and one column per component.
+     *
+     * @param structure The data structure of the dataset.
+     * @param columns   The columns, in the order of the data structure.
+     * @throws IllegalArgumentException if the number of columns or their sizes are inconsistent.
+     */
+    public ColumnarDataset(DataStructure structure, List<Column> columns) {
+        this.structure = Objects.requireNonNull(structure);
+        this.columns = List.copyOf(columns);
+        if (structure.size() != columns.size()) {
+            throw new IllegalArgumentException("expected " + structure.size() + " columns, got " + columns.size());
+        }
+        this.size = columns.isEmpty() ? 0 : columns.get(0).size();
+        for (Column column : columns) {
+            if (column.size() != size) {
+                throw new IllegalArgumentException("columns must have the same size");
+            }
+        }
+    }
+
+    /**
+     * Returns a columnar copy of a dataset, or the dataset itself if it is already columnar.
+     *
+     * @param dataset The dataset to convert.
+     * @return A columnar dataset with the same structure and data.
+     */
+    public static ColumnarDataset of(Dataset dataset) {
+        if (dataset instanceof ColumnarDataset) {
+            return (ColumnarDataset) dataset;
+        }
+        var dataPoints = dataset.getDataPoints();
+        var builder = new Builder(dataset.getDataStructure(), dataPoints.size());
+        for (DataPoint dataPoint : dataPoints) {
+            builder.add(dataPoint);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of rows of the dataset.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the columns of the dataset, in the order of the data structure.
+     *
+     * @return The columns of the dataset.
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns a column by name.
+     *
+     * @param name The name of the column.
+     * @return The column.
+     * @throws IllegalArgumentException if the column is not in the data structure.
+     */
+    public Column getColumn(String name) {
+        int index = structure.indexOfKey(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("unknown column " + name);
+        }
+        return columns.get(index);
+    }
+
+    /**
+     * Returns the data point at the given row.
+     *
+     * @param row The row index.
+     * @return A new data point holding the values of the row.
+     */
+    public DataPoint getDataPoint(int row) {
+        var dataPoint = new DataPoint(structure);
+        fill(row, dataPoint);
+        return dataPoint;
+    }
+
+    /**
+     * Copies the values of a row into an existing data point of the same structure.
+     * <p>
+     * This allows to evaluate expressions row by row with a single data point.
+     *
+     * @param row       The row index.
+     * @param dataPoint The data point to fill.
+     */
+    public void fill(int row, DataPoint dataPoint) {
+        for (int i = 0; i < columns.size(); i++) {
+            dataPoint.set(i, columns.get(i).get(row));
+        }
+    }
+
+    /**
+     * Returns a new dataset with the selected rows only.
+     *
+     * @param rows  The indexes of the rows to keep, in order.
+     * @param count The number of indexes to use in <code>rows</code>.
+     * @return A new dataset with the same structure.
+     */
+    public ColumnarDataset select(int[] rows, int count) {
+        List<Column> selected = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            selected.add(column.select(rows, count));
+        }
+        return new ColumnarDataset(structure, selected);
+    }
+
+    @Override
+    public List<DataPoint> getDataPoints() {
+        return new AbstractList<>() {
+            @Override
+            public DataPoint get(int index) {
+                Objects.checkIndex(index, size);
+                return getDataPoint(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Stream<DataPoint> getDataPointStream() {
+        return IntStream.range(0, size).mapToObj(this::getDataPoint);
+    }
+
+    @Override
+    public DataStructure getDataStructure() {
+        return structure;
+    }
+
+    /**
+     * Builds a columnar dataset row by row.
+     */
+    public static class Builder {
+
+        private final DataStructure structure;
+        private final List<Column.Builder> builders;
+
+        /**
+         * Constructor taking the structure of the dataset and an estimation of its size.
+         *
+         * @param structure The structure of the dataset.
+         * @param capacity  The expected number of rows.
+         */
+        public Builder(DataStructure structure, int capacity) {
+            this.structure = Objects.requireNonNull(structure);
+            this.builders = new ArrayList<>(structure.size());
+            for (Component component : structure.values()) {
+                builders.add(Column.builder(component.getType(), capacity));
+            }
+        }
+
+        /**
+         * Adds a row. The values must be in the order of the structure.
+         *
+         * @param values The values of the row.
+         * @return This builder.
+         */
+        public Builder add(List<?> values) {
+            for (int i = 0; i < builders.size(); i++) {
+                builders.get(i).add(values.get(i));
+            }
+            return this;
+        }
+
+        /**
+         * Builds the dataset.
+         *
+         * @return The columnar dataset.
+         */
+        public ColumnarDataset build() {
+            List<Column> columns = new ArrayList<>(builders.size());
+            for (Column.Builder builder : builders) {
+                columns.add(builder.build());
+            }
+            return new ColumnarDataset(structure, columns);
+        }
+    }
+
+    /**
+     * An immutable column of values.
+     */
+    public abstract static class Column implements Serializable {
+
+        /**
+         * Returns a column builder for the given type.
+         *
+         * @param type     The type of the values.
+         * @param capacity The expected number of values.
+         * @return A column builder.
+         */
+        public static Builder builder(Class<?> type, int capacity) {
+            if (Long.class.equals(type)) {
+                return new LongColumn.Builder(capacity);
+            }
+            if (Double.class.equals(type)) {
+                return new DoubleColumn.Builder(capacity);
+            }
+            if (Boolean.class.equals(type)) {
+                return new BooleanColumn.Builder(capacity);
+            }
+            if (String.class.equals(type)) {
+                return new StringColumn.Builder(capacity);
+            }
+            return new ObjectColumn.Builder(capacity);
+        }
+
+        /**
+         * Returns the number of values of the column.
+         *
+         * @return The number of values.
+         */
+        public abstract int size();
+
+        /**
+         * Tests if the value at the given row is null.
+         *
+         * @param row The row index.
+         * @return <code>true</code> if the value is null.
+         */
+        public abstract boolean isNull(int row);
+
+        /**
+         * Returns the (boxed) value at the given row.
+         *
+         * @param row The row index.
+         * @return The value, or null.
+         */
+        public abstract Object get(int row);
+
+        /**
+         * Returns a new column with the selected rows only.
+         *
+         * @param rows  The indexes of the rows to keep, in order.
+         * @param count The number of indexes to use in <code>rows</code>.
+         * @return A new column.
+         */
+        public Column select(int[] rows, int count) {
+            var builder = builder(count);
+            for (int i = 0; i < count; i++) {
+                builder.add(get(rows[i]));
+            }
+            return builder.build();
+        }
+
+        /**
+         * Returns an empty builder for columns of the same kind.
+         */
+        abstract Builder builder(int capacity);
+
+        /**
+         * Builds a column value by value.
+         */
+        public abstract static class Builder {
+
+            /**
+             * Adds a value.
+             *
+             * @param value The value, possibly null.
+             */
+            public abstract void add(Object value);
+
+            /**
+             * Builds the column.
+             *
+             * @return The column.
+             */
+            public abstract Column build();
+        }
+    }
+
+    /**
+     * A column of long values.
+     */
+    public static class LongColumn extends Column {
+
+        private final long[] values;
+        private final BitSet nulls;
+
+        private LongColumn(long[] values, BitSet nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        /**
+         * Returns the value at the given row. The result is undefined if the value is null.
+         */
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        public Column select(int[] rows, int count) {
+            var selected = new long[count];
+            var selectedNulls = new BitSet();
+            for (int i = 0; i < count; i++) {
+                selected[i] = values[rows[i]];
+                if (nulls.get(rows[i])) {
+                    selectedNulls.set(i);
+                }
+            }
+            return new LongColumn(selected, selectedNulls);
+        }
+
+        @Override
+        Column.Builder builder(int capacity) {
+            return new Builder(capacity);
+        }
+
+        static class Builder extends Column.Builder {
+            private final BitSet nulls = new BitSet();
+            private long[] values;
+            private int size;
+
+            Builder(int capacity) {
+                values = new long[Math.max(capacity, 1)];
+            }
+
+            @Override
+            public void add(Object value) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                if (value == null) {
+                    nulls.set(size);
+                } else if (value instanceof Long || value instanceof Integer) {
+                    values[size] = ((Number) value).longValue();
+                } else {
+                    // A number would be truncated.
+                    throw new IllegalArgumentException("expected an integer, got " + value);
+                }
+                size++;
+            }
+
+            @Override
+            public Column build() {
+                return new LongColumn(Arrays.copyOf(values, size), nulls);
+            }
+        }
+    }
+
+    /**
+     * A column of double values.
+     */
+    public static class DoubleColumn extends Column {
+
+        private final double[] values;
+        private final BitSet nulls;
+
+        private DoubleColumn(double[] values, BitSet nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        /**
+         * Returns the value at the given row. The result is undefined if the value is null.
+         */
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        public Column select(int[] rows, int count) {
+            var selected = new double[count];
+            var selectedNulls = new BitSet();
+            for (int i = 0; i < count; i++) {
+                selected[i] = values[rows[i]];
+                if (nulls.get(rows[i])) {
+                    selectedNulls.set(i);
+                }
+            }
+            return new DoubleColumn(selected, selectedNulls);
+        }
+
+        @Override
+        Column.Builder builder(int capacity) {
+            return new Builder(capacity);
+        }
+
+        static class Builder extends Column.Builder {
+            private final BitSet nulls = new BitSet();
+            private double[] values;
+            private int size;
+
+            Builder(int capacity) {
+                values = new double[Math.max(capacity, 1)];
+            }
+
+            @Override
+            public void add(Object value) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                if (value == null) {
+                    nulls.set(size);
+                } else {
+                    values[size] = ((Number) value).doubleValue();
+                }
+                size++;
+            }
+
+            @Override
+            public Column build() {
+                return new DoubleColumn(Arrays.copyOf(values, size), nulls);
+            }
+        }
+    }
+
+    /**
+     * A column of boolean values.
+     */
+    public static class BooleanColumn extends Column {
+
+        private final BitSet values;
+        private final BitSet nulls;
+        private final int size;
+
+        private BooleanColumn(BitSet values, BitSet nulls, int size) {
+            this.values = values;
+            this.nulls = nulls;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        /**
+         * Returns the value at the given row. The result is undefined if the value is null.
+         */
+        public boolean getBoolean(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        public Object get(int row) {
+            return nulls.get(row) ? null : values.get(row);
+        }
+
+        @Override
+        Column.Builder builder(int capacity) {
+            return new Builder(capacity);
+        }
+
+        static class Builder extends Column.Builder {
+            private final BitSet values = new BitSet();
+            private final BitSet nulls = new BitSet();
+            private int size;
+
+            Builder(int capacity) {
+            }
+
+            @Override
+            public void add(Object value) {
+                if (value == null) {
+                    nulls.set(size);
+                } else if ((Boolean) value) {
+                    values.set(size);
+                }
+                size++;
+            }
+
+            @Override
+            public Column build() {
+                return new BooleanColumn(values, nulls, size);
+            }
+        }
+    }
+
+    /**
+     * A dictionary encoded column of strings.
+     * <p>
+     * Each row holds the code of its value in the dictionary, or -1 for null.
+     */
+    public static class StringColumn extends Column {
+
+        private final int[] codes;
+        private final String[] dictionary;
+
+        private StringColumn(int[] codes, String[] dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public int size() {
+            return codes.length;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return codes[row] < 0;
+        }
+
+        /**
+         * Returns the dictionary code of the value at the given row, or -1 if the value is null.
+         */
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        /**
+         * Returns the distinct values of the column, indexed by code.
+         */
+        public List<String> getDictionary() {
+            return Arrays.asList(dictionary);
+        }
+
+        @Override
+        public Object get(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary[code];
+        }
+
+        @Override
+        public Column select(int[] rows, int count) {
+            var selected = new int[count];
+            for (int i = 0; i < count; i++) {
+                selected[i] = codes[rows[i]];
+            }
+            // The dictionary is shared with the selected column.
+            return new StringColumn(selected, dictionary);
+        }
+
+        @Override
+        Column.Builder builder(int capacity) {
+            return new Builder(capacity);
+        }
+
+        static class Builder extends Column.Builder {
+            private final Map<String, Integer> dictionary = new HashMap<>();
+            private int[] codes;
+            private int size;
+
+            Builder(int capacity) {
+                codes = new int[Math.max(capacity, 1)];
+            }
+
+            @Override
+            public void add(Object value) {
+                if (size == codes.length) {
+                    codes = Arrays.copyOf(codes, size * 2);
+                }
+                codes[size++] = value == null
+                        ? -1
+                        : dictionary.computeIfAbsent((String) value, v -> dictionary.size());
+            }
+
+            @Override
+            public Column build() {
+                var values = new String[dictionary.size()];
+                for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+                    values[entry.getValue()] = entry.getKey();
+                }
+                return new StringColumn(Arrays.copyOf(codes, size), values);
+            }
+        }
+    }
+
+    /**
+     * A column of values of any other type.
+     */
+    public static class ObjectColumn extends Column {
+
+        private final Object[] values;
+
+        private ObjectColumn(Object[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return values[row] == null;
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        Column.Builder builder(int capacity) {
+            return new Builder(capacity);
+        }
+
+        static class Builder extends Column.Builder {
+            private Object[] values;
+            private int size;
+
+            Builder(int capacity) {
+                values = new Object[Math.max(capacity, 1)];
+            }
+
+            @Override
+            public void add(Object value) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = value;
+            }
+
+            @Override
+            public Column build() {
+                return new ObjectColumn(Arrays.copyOf(values, size));
+            }
+        }
+    }
+}
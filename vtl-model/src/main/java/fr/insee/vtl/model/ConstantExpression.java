@@ -16,6 +16,11 @@ public class ConstantExpression extends ResolvableExpression {
         return value;
     }
 
+    @Override
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        return value;
+    }
+
     @Override
     public Class<?> getType() {
         // TODO: Use expr == Constant.NULL instead.
@@ -3,6 +3,7 @@ package fr.insee.vtl.model;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Structured dataset
@@ -25,6 +26,17 @@ public interface Dataset extends Structured {
      */
     List<DataPoint> getDataPoints();
 
+    /**
+     * Returns the data contained in the dataset as a stream of data points.
+     * <p>
+     * Lazy implementations can override this method to avoid collecting the data points in a list.
+     *
+     * @return The data contained in the dataset as a stream of data points.
+     */
+    default Stream<DataPoint> getDataPointStream() {
+        return getDataPoints().stream();
+    }
+
     default List<List<Object>> getDataAsList() {
         var columns = getDataStructure().keySet();
         return getDataPoints().stream()
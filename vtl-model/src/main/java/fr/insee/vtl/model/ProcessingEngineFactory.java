@@ -1,5 +1,6 @@
 package fr.insee.vtl.model;
 
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 
 /**
@@ -21,4 +22,22 @@ public interface ProcessingEngineFactory {
      */
     ProcessingEngine getProcessingEngine(ScriptEngine engine);
 
+    /**
+     * Instantiates a new processing engine for an evaluation of the script engine in the given context.
+     * <p>
+     * A compiled script can be evaluated with a context other than the one of its script engine, for example one
+     * context per thread. Factories whose processing engine has settings (a pool, a connection, a session) should
+     * read them from this context rather than from the script engine, so that each evaluation uses its own.
+     * <p>
+     * The default implementation ignores the context and calls {@link #getProcessingEngine(ScriptEngine)}, so
+     * existing factories keep working unchanged.
+     *
+     * @param engine  The script engine.
+     * @param context The context of the evaluation.
+     * @return A new processing engine.
+     */
+    default ProcessingEngine getProcessingEngine(ScriptEngine engine, ScriptContext context) {
+        return getProcessingEngine(engine);
+    }
+
 }
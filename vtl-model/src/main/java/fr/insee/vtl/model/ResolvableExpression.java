@@ -69,13 +69,31 @@ public abstract class ResolvableExpression implements TypedExpression, Positione
     public abstract Object resolve(Map<String, Object> context);
 
     /**
-     * Resolves the expression for a given datapoint.
+     * Resolves the expression for a given datapoint, outside any evaluation context.
      *
      * @param context the data point to resolve the expression against
      * @return the result of the resolution of the expression
+     * @see #resolve(Structured.DataPoint, Map)
      */
     public Object resolve(Structured.DataPoint context) {
-        return resolve(new Structured.DataPointMap(context));
+        return resolve(context, Map.of());
+    }
+
+    /**
+     * Resolves the expression for a given datapoint in the context of an evaluation.
+     * <p>
+     * The default implementation resolves the expression against a {@link Structured.DataPointMap} view of the
+     * point, which only holds the components of the point. Expressions that are evaluated once per row should
+     * override this method, access the values of the point by position and pass the context on to their operands.
+     * The context is only read by expressions depending on the evaluation itself, like <code>current_date</code>;
+     * the names of the components are never looked up in it.
+     *
+     * @param dataPoint the data point to resolve the expression against
+     * @param context   the context of the evaluation
+     * @return the result of the resolution of the expression
+     */
+    public Object resolve(Structured.DataPoint dataPoint, Map<String, Object> context) {
+        return resolve(new Structured.DataPointMap(dataPoint));
     }
 
     public static class Builder<T> implements Serializable {
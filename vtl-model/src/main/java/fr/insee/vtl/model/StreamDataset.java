@@ -0,0 +1,107 @@
+package fr.insee.vtl.model;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lazy implementation of <code>Dataset</code> backed by a stream of data points.
+ * <p>
+ * The stream is created each time the data points are streamed, so that chained operations are evaluated in a
+ * single pass without intermediate lists. The data points are materialized the first time
+ * {@link #getDataPoints()} is called and reused afterwards.
+ * <p>
+ * When a {@link ForkJoinPool} is given, the data points are collected by a parallel stream running in that pool.
+ * The order of the data points is preserved. The streams returned by {@link #getDataPointStream()} are sequential,
+ * since their terminal operation runs in the thread of the caller; a parallel stream would run in the common pool
+ * instead of the given one.
+ */
+public class StreamDataset implements Dataset {
+
+    private final DataStructure structure;
+    private final Supplier<Stream<DataPoint>> supplier;
+    private final ForkJoinPool pool;
+    private volatile List<DataPoint> data;
+
+    /**
+     * Constructor taking a data structure and a supplier of data point streams.
+     *
+     * @param structure The data structure of the dataset.
+     * @param supplier  A supplier returning a new stream of the data points each time it is called.
+     */
+    public StreamDataset(DataStructure structure, Supplier<Stream<DataPoint>> supplier) {
+        this(structure, supplier, null);
+    }
+
+    /**
+     * Constructor taking a data structure, a supplier of data point streams and the pool used to process them.
+     *
+     * @param structure The data structure of the dataset.
+     * @param supplier  A supplier returning a new stream of the data points each time it is called.
+     * @param pool      The pool in which the data points are collected in parallel, or null for sequential collection.
+     */
+    public StreamDataset(DataStructure structure, Supplier<Stream<DataPoint>> supplier, ForkJoinPool pool) {
+        this.structure = Objects.requireNonNull(structure);
+        this.supplier = Objects.requireNonNull(supplier);
+        this.pool = pool;
+    }
+
+    /**
+     * Collects the data points if this was not done yet.
+     *
+     * @return This dataset.
+     */
+    public StreamDataset materialize() {
+        getDataPoints();
+        return this;
+    }
+
+    @Override
+    public Stream<DataPoint> getDataPointStream() {
+        var materialized = data;
+        if (materialized != null) {
+            return materialized.stream();
+        }
+        return supplier.get();
+    }
+
+    @Override
+    public List<DataPoint> getDataPoints() {
+        var materialized = data;
+        if (materialized == null) {
+            synchronized (this) {
+                materialized = data;
+                if (materialized == null) {
+                    materialized = pool == null
+                            ? supplier.get().collect(Collectors.toList())
+                            : collectInPool();
+                    data = materialized;
+                }
+            }
+        }
+        return materialized;
+    }
+
+    private List<DataPoint> collectInPool() {
+        try {
+            return pool.submit(() -> supplier.get().parallel().collect(Collectors.toList())).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new IllegalStateException(ee.getCause());
+        }
+    }
+
+    @Override
+    public DataStructure getDataStructure() {
+        return structure;
+    }
+}
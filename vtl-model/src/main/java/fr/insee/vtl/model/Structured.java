@@ -357,6 +357,15 @@ public interface Structured {
             addAll(collection);
         }
 
+        /**
+         * Returns the data structure of the point.
+         *
+         * @return the data structure of the point
+         */
+        public DataStructure getDataStructure() {
+            return dataStructure;
+        }
+
         private void growSize(int size) {
             while (size() < size) {
                 add(null);
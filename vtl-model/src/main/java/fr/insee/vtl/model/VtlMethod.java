@@ -5,23 +5,37 @@ import fr.insee.vtl.model.exceptions.VtlScriptException;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 
+/**
+ * Serializable reference to a static method.
+ * <p>
+ * Only the class name, method name and parameter types are serialized. The {@link Method} is resolved
+ * lazily on first use and cached, and resolved again after deserialization.
+ */
 public class VtlMethod implements Serializable {
 
     private final Class<?>[] types;
     private final String className;
     private final String methodName;
 
+    private transient volatile Method method;
+
     public VtlMethod(Method method) {
         className = method.getDeclaringClass().getName();
         methodName = method.getName();
         types = method.getParameterTypes();
+        this.method = method;
     }
 
     public Method getMethod(Positioned pos) throws VtlScriptException {
-        try {
-            return Class.forName(className).getMethod(methodName, this.types);
-        } catch (Exception e) {
-            throw new VtlScriptException("could not deserialize method " + methodName + ": " + e.getMessage(), pos);
+        Method resolved = method;
+        if (resolved == null) {
+            try {
+                resolved = Class.forName(className).getMethod(methodName, this.types);
+            } catch (Exception e) {
+                throw new VtlScriptException("could not deserialize method " + methodName + ": " + e.getMessage(), pos);
+            }
+            method = resolved;
         }
+        return resolved;
     }
 }
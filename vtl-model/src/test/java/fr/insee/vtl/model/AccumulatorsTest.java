@@ -0,0 +1,103 @@
+package fr.insee.vtl.model;
+
+import org.assertj.core.data.Percentage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class AccumulatorsTest {
+
+    @Test
+    public void testSumAndAverageIgnoreNulls() {
+        List<Object> values = Arrays.asList(1L, null, 2L, 3L);
+        assertThat(values.stream().collect(Accumulators.sumLong())).isEqualTo(6L);
+        assertThat(values.stream().collect(Accumulators.avgLong())).isEqualTo(2D);
+        assertThat(Arrays.asList((Object) null).stream().collect(Accumulators.sumDouble())).isNull();
+    }
+
+    @Test
+    public void testSumAndAverageOfEmptyGroupAreNull() {
+        assertThat(List.of().stream().collect(Accumulators.sumLong())).isNull();
+        assertThat(List.of().stream().collect(Accumulators.sumDouble())).isNull();
+        assertThat(List.of().stream().collect(Accumulators.avgLong())).isNull();
+        assertThat(List.of().parallelStream().collect(Accumulators.avgDouble())).isNull();
+    }
+
+    @Test
+    public void testExtremum() {
+        List<Object> values = Arrays.asList(3.0, null, -1.0);
+        assertThat(values.stream().collect(Accumulators.extremumDouble(true))).isEqualTo(3.0);
+        assertThat(values.stream().collect(Accumulators.extremumDouble(false))).isNull();
+        assertThat(List.<Object>of(3L, 5L, -2L).stream().collect(Accumulators.extremumLong(false))).isEqualTo(-2L);
+    }
+
+    @Test
+    public void testVarianceInParallel() {
+        var random = new Random(42);
+        List<Object> values = IntStream.range(0, 100_000)
+                .mapToObj(i -> (Object) (1e6 + random.nextGaussian() * 3))
+                .collect(Collectors.toList());
+
+        var mean = values.stream().mapToDouble(v -> (Double) v).average().orElseThrow();
+        var expected = values.stream().mapToDouble(v -> Math.pow((Double) v - mean, 2)).sum() / (values.size() - 1);
+
+        assertThat(values.stream().collect(Accumulators.variance(false, false)))
+                .isCloseTo(expected, Percentage.withPercentage(1e-6));
+        assertThat(values.parallelStream().collect(Accumulators.variance(false, false)))
+                .isCloseTo(expected, Percentage.withPercentage(1e-6));
+        assertThat(values.parallelStream().collect(Accumulators.variance(false, true)))
+                .isCloseTo(Math.sqrt(expected), Percentage.withPercentage(1e-6));
+    }
+
+    @Test
+    public void testMedian() {
+        assertThat(List.<Object>of(4L, 1L, 3L, 2L).stream().collect(Accumulators.median())).isEqualTo(2.5);
+        assertThat(Arrays.asList(1.0, null).stream().collect(Accumulators.median())).isNull();
+        assertThat(List.<Object>of(4L, 1L, 3L).stream().collect(Accumulators.approximateMedian(16))).isEqualTo(3.0);
+        assertThat(Arrays.asList(1.0, null).stream().collect(Accumulators.approximateMedian(16))).isNull();
+    }
+
+    @Test
+    public void testApproximateMedian() {
+        var random = new Random(42);
+        List<Object> values = IntStream.range(0, 1_000_000)
+                .mapToObj(i -> (Object) random.nextDouble())
+                .collect(Collectors.toList());
+
+        assertThat(values.stream().collect(Accumulators.approximateMedian(1024)))
+                .isCloseTo(0.5, Percentage.withPercentage(2));
+        assertThat(values.parallelStream().collect(Accumulators.approximateMedian(1024)))
+                .isCloseTo(0.5, Percentage.withPercentage(2));
+    }
+
+    @Test
+    public void testApproximateMedianMerge() {
+        int size = 200_000;
+        List<Object> values = LongStream.range(0, size).boxed().collect(Collectors.toList());
+        Collections.shuffle(values, new Random(42));
+
+        // Merge the sketches of the parts the way the combiner of a parallel stream does.
+        var collector = Accumulators.approximateMedian(256);
+        var merged = collector.supplier().get();
+        for (int part = 0; part < 8; part++) {
+            var sketch = collector.supplier().get();
+            for (Object value : values.subList(part * size / 8, (part + 1) * size / 8)) {
+                collector.accumulator().accept(sketch, value);
+            }
+            merged = collector.combiner().apply(merged, sketch);
+        }
+
+        // The values are their rank: the rank error is below 1%.
+        assertThat(collector.finisher().apply(merged)).isCloseTo(size / 2.0, within(size * 0.01));
+    }
+
+}
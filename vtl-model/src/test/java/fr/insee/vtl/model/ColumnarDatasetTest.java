@@ -0,0 +1,92 @@
+package fr.insee.vtl.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ColumnarDatasetTest {
+
+    private final InMemoryDataset dataset = new InMemoryDataset(
+            List.of(
+                    new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                    new Structured.Component("long", Long.class, Dataset.Role.MEASURE),
+                    new Structured.Component("double", Double.class, Dataset.Role.MEASURE),
+                    new Structured.Component("boolean", Boolean.class, Dataset.Role.MEASURE),
+                    new Structured.Component("instant", Instant.class, Dataset.Role.ATTRIBUTE)
+            ),
+            Arrays.asList("a", 1L, 1.5D, true, Instant.EPOCH),
+            Arrays.asList("b", null, null, null, null),
+            Arrays.asList("a", 3L, -1D, false, Instant.EPOCH)
+    );
+
+    @Test
+    public void testRoundTrip() {
+        var columnar = ColumnarDataset.of(dataset);
+
+        assertThat(columnar.size()).isEqualTo(3);
+        assertThat(columnar.getDataStructure()).isEqualTo(dataset.getDataStructure());
+        assertThat(columnar.getDataPoints()).isEqualTo(dataset.getDataPoints());
+        assertThat(columnar.getDataAsList()).isEqualTo(dataset.getDataAsList());
+        assertThat(ColumnarDataset.of(columnar)).isSameAs(columnar);
+    }
+
+    @Test
+    public void testDataPointStream() {
+        var columnar = ColumnarDataset.of(dataset);
+
+        assertThat(columnar.getDataPointStream()).containsExactlyElementsOf(dataset.getDataPoints());
+        assertThat(columnar.getDataPoints().get(0)).isNotSameAs(columnar.getDataPoints().get(0));
+    }
+
+    @Test
+    public void testColumns() {
+        var columnar = ColumnarDataset.of(dataset);
+
+        assertThat(columnar.getColumn("id")).isInstanceOf(ColumnarDataset.StringColumn.class);
+        assertThat(columnar.getColumn("long")).isInstanceOf(ColumnarDataset.LongColumn.class);
+        assertThat(columnar.getColumn("double")).isInstanceOf(ColumnarDataset.DoubleColumn.class);
+        assertThat(columnar.getColumn("boolean")).isInstanceOf(ColumnarDataset.BooleanColumn.class);
+        assertThat(columnar.getColumn("instant")).isInstanceOf(ColumnarDataset.ObjectColumn.class);
+
+        var strings = (ColumnarDataset.StringColumn) columnar.getColumn("id");
+        assertThat(strings.getDictionary()).containsExactly("a", "b");
+        assertThat(strings.getCode(2)).isEqualTo(strings.getCode(0));
+
+        var longs = (ColumnarDataset.LongColumn) columnar.getColumn("long");
+        assertThat(longs.getLong(2)).isEqualTo(3L);
+        assertThat(longs.isNull(1)).isTrue();
+        assertThat(longs.get(1)).isNull();
+
+        assertThatThrownBy(() -> columnar.getColumn("unknown"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testSelect() {
+        var columnar = ColumnarDataset.of(dataset);
+        var selected = columnar.select(new int[]{2, 1}, 2);
+
+        assertThat(selected.getDataAsList()).containsExactly(
+                Arrays.asList("a", 3L, -1D, false, Instant.EPOCH),
+                Arrays.asList("b", null, null, null, null)
+        );
+    }
+
+    @Test
+    public void testIntegerColumnRejectsNumbers() {
+        var structure = List.of(new Structured.Component("long", Long.class, Dataset.Role.MEASURE));
+
+        var integers = new InMemoryDataset(structure, Arrays.asList(1), Arrays.asList(2L));
+        assertThat(ColumnarDataset.of(integers).getDataAsList()).containsExactly(List.of(1L), List.of(2L));
+
+        var numbers = new InMemoryDataset(structure, Arrays.asList(1L), Arrays.asList(1.5D));
+        assertThatThrownBy(() -> ColumnarDataset.of(numbers))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("expected an integer, got 1.5");
+    }
+}
@@ -0,0 +1,58 @@
+package fr.insee.vtl.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamDatasetTest {
+
+    private final Structured.DataStructure structure = new Structured.DataStructure(List.of(
+            new Structured.Component("id", Long.class, Dataset.Role.IDENTIFIER)
+    ));
+
+    @Test
+    public void testMaterializedOnce() {
+        var calls = new AtomicInteger();
+        var dataset = new StreamDataset(structure, () -> {
+            calls.incrementAndGet();
+            return List.of(1L, 2L, 3L).stream()
+                    .map(id -> new Structured.DataPoint(structure, List.of(id)));
+        });
+
+        assertThat(calls.get()).isEqualTo(0);
+        assertThat(dataset.getDataPointStream().count()).isEqualTo(3L);
+        assertThat(calls.get()).isEqualTo(1);
+
+        assertThat(dataset.materialize().getDataAsList()).containsExactly(List.of(1L), List.of(2L), List.of(3L));
+        assertThat(dataset.getDataPointStream().collect(Collectors.toList())).hasSize(3);
+        assertThat(dataset.getDataPoints()).hasSize(3);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCollectedInPool() {
+        var pool = new ForkJoinPool(2);
+        try {
+            var dataset = new StreamDataset(structure, () -> List.of(1L, 2L, 3L).stream()
+                    .map(id -> {
+                        assertThat(Thread.currentThread()).isInstanceOfSatisfying(
+                                ForkJoinWorkerThread.class,
+                                thread -> assertThat(thread.getPool()).isSameAs(pool));
+                        return new Structured.DataPoint(structure, List.of(id));
+                    }), pool);
+
+            assertThat(dataset.getDataPoints()).hasSize(3);
+        } finally {
+            pool.shutdown();
+        }
+
+        var streamed = new StreamDataset(structure, () -> List.<Structured.DataPoint>of().stream(), pool);
+        assertThat(streamed.getDataPointStream().isParallel()).isFalse();
+    }
+}
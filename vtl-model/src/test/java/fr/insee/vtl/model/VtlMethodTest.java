@@ -0,0 +1,46 @@
+package fr.insee.vtl.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class VtlMethodTest {
+
+    private static final Positioned POSITION = () -> new Positioned.Position(0, 0, 0, 0);
+
+    public static Long identity(Long value) {
+        return value;
+    }
+
+    @Test
+    public void testMethodIsCached() throws Exception {
+        Method method = VtlMethodTest.class.getMethod("identity", Long.class);
+        VtlMethod vtlMethod = new VtlMethod(method);
+        assertSame(vtlMethod.getMethod(POSITION), vtlMethod.getMethod(POSITION));
+    }
+
+    @Test
+    public void testMethodIsResolvedAfterDeserialization() throws Exception {
+        Method method = VtlMethodTest.class.getMethod("identity", Long.class);
+        VtlMethod deserialized = roundTrip(new VtlMethod(method));
+        assertEquals(method, deserialized.getMethod(POSITION));
+    }
+
+    private static VtlMethod roundTrip(VtlMethod vtlMethod) throws IOException, ClassNotFoundException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(vtlMethod);
+        }
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (VtlMethod) in.readObject();
+        }
+    }
+}
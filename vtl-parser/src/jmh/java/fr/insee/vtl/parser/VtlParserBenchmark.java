@@ -0,0 +1,90 @@
+package fr.insee.vtl.parser;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the prediction modes of the parser on large generated scripts.
+ * <p>
+ * The scripts mix the constructs of validation programs: clauses, joins, aggregations, conditions and datapoint
+ * rulesets. The <code>sll</code> benchmark parses the way the script engine does, with the SLL prediction mode and a
+ * fallback to LL on error.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VtlParserBenchmark {
+
+    private static final String[] STATEMENTS = {
+            "ds_%1$d := ds[filter amount > %1$d and (grp = \"a\" or grp = \"b\")][calc twice := amount * 2];",
+            "agg_%1$d := ds[aggr total_%1$d := sum(amount), n := count(amount) group by grp];",
+            "join_%1$d := inner_join(ds as a, other as b keep amount, label);",
+            "chk_%1$d := if amount_%1$d > 0 then \"positive\" else if amount_%1$d < 0 then \"negative\" else \"zero\";",
+            "str_%1$d := upper(trim(substr(label, 1, 3))) || \"_\" || cast(%1$d, string);",
+            "define datapoint ruleset dpr_%1$d (variable grp, amount) is\n" +
+                    "    rule_%1$d : when grp = \"a\" then amount > %1$d errorcode \"e%1$d\" errorlevel 1;\n" +
+                    "    amount <= 1000\n" +
+                    "end datapoint ruleset;",
+            "val_%1$d := check_datapoint(ds, dpr_%1$d invalid);"
+    };
+
+    @Param({"100", "1000", "5000"})
+    private int statements;
+
+    private String script;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var builder = new StringBuilder();
+        for (int i = 0; i < statements; i++) {
+            builder.append(String.format(STATEMENTS[i % STATEMENTS.length], i)).append('\n');
+        }
+        script = builder.toString();
+    }
+
+    @Benchmark
+    public VtlParser.StartContext ll() {
+        var parser = new VtlParser(new CommonTokenStream(new VtlLexer(CharStreams.fromString(script))));
+        parser.removeErrorListeners();
+        return parser.start();
+    }
+
+    @Benchmark
+    public VtlParser.StartContext sll() {
+        var tokens = new CommonTokenStream(new VtlLexer(CharStreams.fromString(script)));
+        var parser = new VtlParser(tokens);
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return parser.start();
+        } catch (ParseCancellationException e) {
+            tokens.seek(0);
+            parser.reset();
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            return parser.start();
+        }
+    }
+}
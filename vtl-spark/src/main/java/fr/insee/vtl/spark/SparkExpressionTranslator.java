@@ -0,0 +1,482 @@
+package fr.insee.vtl.spark;
+
+import fr.insee.vtl.engine.expressions.ArithmeticExpression;
+import fr.insee.vtl.engine.expressions.BooleanExpression;
+import fr.insee.vtl.engine.expressions.CastExpression;
+import fr.insee.vtl.engine.expressions.ComparisonExpression;
+import fr.insee.vtl.engine.expressions.ComponentExpression;
+import fr.insee.vtl.engine.expressions.ExpressionCompiler;
+import fr.insee.vtl.engine.expressions.FunctionExpression;
+import fr.insee.vtl.engine.expressions.IfExpression;
+import fr.insee.vtl.engine.expressions.MembershipExpression;
+import fr.insee.vtl.engine.expressions.NvlExpression;
+import fr.insee.vtl.engine.expressions.PatternExpression;
+import fr.insee.vtl.engine.expressions.UnaryExpression;
+import fr.insee.vtl.model.ConstantExpression;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.exceptions.VtlScriptException;
+import org.apache.spark.sql.Column;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static fr.insee.vtl.spark.SparkDataset.fromVtlType;
+import static org.apache.spark.sql.functions.*;
+import static org.apache.spark.sql.types.DataTypes.DoubleType;
+import static org.apache.spark.sql.types.DataTypes.LongType;
+import static org.apache.spark.sql.types.DataTypes.StringType;
+
+/**
+ * The <code>SparkExpressionTranslator</code> class translates VTL expressions to Spark columns.
+ * <p>
+ * Translated expressions are evaluated by Spark itself instead of a user defined function, so that they are optimized
+ * by Catalyst and generated as code. The operators and native functions of the engine are translated with the null
+ * semantics of their Java implementation. Expressions that cannot be translated with the same results, the methods
+ * registered by users for instance, are left to the caller.
+ */
+public class SparkExpressionTranslator {
+
+    /**
+     * The characters removed by {@link String#trim()}.
+     */
+    private static final String TRIMMED = "\u0000\u0001\u0002\u0003\u0004\u0005\u0006\u0007\b\t\n\u000B\f\r" +
+            "\u000E\u000F\u0010\u0011\u0012\u0013\u0014\u0015\u0016\u0017\u0018\u0019\u001A\u001B\u001C\u001D" +
+            "\u001E\u001F ";
+
+    /**
+     * The characters matched by <code>\s</code> in a Java regular expression.
+     */
+    private static final String WHITESPACES = " \t\n\u000B\f\r";
+
+    private static final Set<Class<?>> NUMBERS = Set.of(Long.class, Double.class);
+
+    private SparkExpressionTranslator() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Translates an expression to a Spark column.
+     *
+     * @param expression the expression to translate.
+     * @return the column, of the Spark type of the expression, or an empty optional if the expression or one of its
+     * operands cannot be translated.
+     */
+    public static Optional<Column> translate(ResolvableExpression expression) {
+        var column = toColumn(expression);
+        if (column == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(column.cast(fromVtlType(expression.getType())));
+        } catch (UnsupportedOperationException uoe) {
+            return Optional.of(column);
+        }
+    }
+
+    private static Column toColumn(ResolvableExpression expression) {
+        if (expression instanceof ConstantExpression) {
+            return literal(expression.resolve(Map.of()));
+        } else if (expression instanceof ComponentExpression) {
+            return col(((ComponentExpression) expression).getComponent().getName());
+        } else if (expression instanceof ArithmeticExpression) {
+            return arithmetic((ArithmeticExpression) expression);
+        } else if (expression instanceof ComparisonExpression) {
+            return comparison((ComparisonExpression) expression);
+        } else if (expression instanceof BooleanExpression) {
+            return bool((BooleanExpression) expression);
+        } else if (expression instanceof UnaryExpression) {
+            return unary((UnaryExpression) expression);
+        } else if (expression instanceof IfExpression) {
+            var ifExpression = (IfExpression) expression;
+            var condition = toColumn(ifExpression.getCondition());
+            var thenColumn = toColumn(ifExpression.getThenExpression());
+            var elseColumn = toColumn(ifExpression.getElseExpression());
+            if (condition == null || thenColumn == null || elseColumn == null) {
+                return null;
+            }
+            // A null condition gives null, not the else branch.
+            return when(condition, thenColumn).when(not(condition), elseColumn);
+        } else if (expression instanceof NvlExpression) {
+            var nvl = (NvlExpression) expression;
+            var column = toColumn(nvl.getExpression());
+            var defaultColumn = toColumn(nvl.getDefaultExpression());
+            if (column == null || defaultColumn == null) {
+                return null;
+            }
+            return coalesce(column, defaultColumn);
+        } else if (expression instanceof MembershipExpression) {
+            return membership((MembershipExpression) expression);
+        } else if (expression instanceof PatternExpression) {
+            return pattern((PatternExpression) expression);
+        } else if (expression instanceof CastExpression) {
+            return cast((CastExpression) expression);
+        } else if (expression instanceof FunctionExpression) {
+            return function((FunctionExpression) expression);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the literal column of a constant value, or null if Spark has no literal for its type.
+     */
+    private static Column literal(Object value) {
+        try {
+            return lit(value);
+        } catch (RuntimeException re) {
+            return null;
+        }
+    }
+
+    private static List<Column> toColumns(List<ResolvableExpression> expressions) {
+        List<Column> columns = new ArrayList<>();
+        for (ResolvableExpression expression : expressions) {
+            var column = toColumn(expression);
+            if (column == null) {
+                return null;
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    private static Column arithmetic(ArithmeticExpression expression) {
+        var left = toColumn(expression.getLeft());
+        var right = toColumn(expression.getRight());
+        if (left == null || right == null) {
+            return null;
+        }
+        switch (expression.getOperator()) {
+            case ADDITION:
+                return left.plus(right);
+            case SUBTRACTION:
+                return left.minus(right);
+            case MULTIPLICATION:
+                return left.multiply(right);
+            case DIVISION:
+                return divide(left, right);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Divides two numbers as doubles. Spark returns null for a division by zero where Java returns an infinity or
+     * NaN; the sign of a negative zero divisor is not kept.
+     */
+    private static Column divide(Column left, Column right) {
+        var dividend = left.cast(DoubleType);
+        return when(right.equalTo(0), dividend.multiply(lit(Double.POSITIVE_INFINITY)))
+                .otherwise(dividend.divide(right.cast(DoubleType)));
+    }
+
+    private static Column comparison(ComparisonExpression expression) {
+        var leftType = expression.getLeft().getType();
+        var rightType = expression.getRight().getType();
+        // Other types are either incomparable or compared differently by Spark.
+        boolean comparable = NUMBERS.contains(leftType) && NUMBERS.contains(rightType)
+                || leftType.equals(rightType) && (String.class.equals(leftType) || Boolean.class.equals(leftType));
+        if (!comparable) {
+            return null;
+        }
+        var left = toColumn(expression.getLeft());
+        var right = toColumn(expression.getRight());
+        if (left == null || right == null) {
+            return null;
+        }
+        switch (expression.getOperator()) {
+            case EQUAL:
+                return left.equalTo(right);
+            case NOT_EQUAL:
+                return left.notEqual(right);
+            case LESS_THAN:
+                return left.lt(right);
+            case GREATER_THAN:
+                return left.gt(right);
+            case LESS_THAN_OR_EQUAL:
+                return left.leq(right);
+            case GREATER_THAN_OR_EQUAL:
+                return left.geq(right);
+            default:
+                return null;
+        }
+    }
+
+    private static Column bool(BooleanExpression expression) {
+        var left = toColumn(expression.getLeft());
+        var right = toColumn(expression.getRight());
+        if (left == null || right == null) {
+            return null;
+        }
+        // The three-valued logic of Spark is the one of VTL.
+        switch (expression.getOperator()) {
+            case AND:
+                return left.and(right);
+            case OR:
+                return left.or(right);
+            case XOR:
+                return left.notEqual(right);
+            default:
+                return null;
+        }
+    }
+
+    private static Column unary(UnaryExpression expression) {
+        var operand = toColumn(expression.getOperand());
+        if (operand == null) {
+            return null;
+        }
+        switch (expression.getOperator()) {
+            case PLUS:
+                return operand;
+            case MINUS:
+                return negate(operand);
+            case NOT:
+                return not(operand);
+            default:
+                return null;
+        }
+    }
+
+    private static Column membership(MembershipExpression expression) {
+        var operand = toColumn(expression.getOperand());
+        if (operand == null) {
+            return null;
+        }
+        Collection<?> elements = expression.getElements();
+        var operandType = expression.getOperand().getType();
+        if (elements.isEmpty() || !operandType.isInstance(elements.iterator().next())) {
+            if (Object.class.equals(operandType)) {
+                return null;
+            }
+            // Values are compared with equals, an integer never belongs to a list of numbers.
+            return when(operand.isNull(), lit(null)).otherwise(lit(expression.isNegated()));
+        }
+        var contained = operand.isin(elements.toArray());
+        return expression.isNegated() ? not(contained) : contained;
+    }
+
+    private static Column pattern(PatternExpression expression) {
+        var operand = toColumn(expression.getOperand());
+        if (operand == null) {
+            return null;
+        }
+        var regex = expression.getPattern().pattern();
+        if (expression.getOperator() == PatternExpression.Operator.MATCH) {
+            // rlike finds the pattern, the whole value must match.
+            return operand.rlike("\\A(?:" + regex + ")\\z");
+        }
+        var replacement = toColumn(expression.getReplacement());
+        if (replacement == null) {
+            return null;
+        }
+        return regexp_replace(operand, lit(regex), coalesce(replacement, lit("")));
+    }
+
+    private static Column cast(CastExpression expression) {
+        var source = expression.getOperand().getType();
+        var target = expression.getType();
+        var operand = toColumn(expression.getOperand());
+        if (operand == null) {
+            return null;
+        }
+        if (source.equals(target)) {
+            return operand;
+        }
+        // Spark reads strings leniently and returns null instead of failing, the casts from strings and
+        // dates are left to the engine.
+        if (Long.class.equals(source) || Double.class.equals(source) || Boolean.class.equals(source)) {
+            if (String.class.equals(target)) {
+                return operand.cast(StringType);
+            } else if (Boolean.class.equals(target)) {
+                return operand.notEqual(0);
+            } else if (Double.class.equals(target)) {
+                return operand.cast(DoubleType);
+            } else if (Long.class.equals(target)) {
+                if (Double.class.equals(source)) {
+                    return when(operand.mod(1).notEqual(0),
+                            raise_error(concat(operand.cast(StringType), lit(" can not be casted into integer"))))
+                            .otherwise(operand.cast(LongType));
+                }
+                return operand.cast(LongType);
+            }
+        }
+        return null;
+    }
+
+    private static Column function(FunctionExpression expression) {
+        Method method;
+        try {
+            method = expression.getMethod().getMethod(expression);
+        } catch (VtlScriptException vse) {
+            return null;
+        }
+        // The methods registered by users are evaluated by the engine.
+        if (!ExpressionCompiler.isNative(method)) {
+            return null;
+        }
+        var parameters = expression.getParameters();
+        var columns = toColumns(parameters);
+        if (columns == null) {
+            return null;
+        }
+        switch (method.getName()) {
+            case "ceil":
+                return ceil(columns.get(0));
+            case "floor":
+                return floor(columns.get(0));
+            case "abs":
+                return abs(columns.get(0).cast(DoubleType));
+            case "exp":
+                return exp(columns.get(0));
+            case "ln":
+                return ln(columns.get(0));
+            case "sqrt":
+                return when(columns.get(0).lt(0), raise_error(lit("operand has to be 0 or positive")))
+                        .otherwise(sqrt(columns.get(0)));
+            case "round":
+            case "trunc":
+                return decimals(method.getName(), columns.get(0).cast(DoubleType), parameters.get(1));
+            case "mod":
+                return mod(columns.get(0).cast(DoubleType), columns.get(1).cast(DoubleType));
+            case "power":
+                return pow(columns.get(0), columns.get(1));
+            case "log":
+                return logarithm(columns.get(0), columns.get(1));
+            case "addition":
+                return columns.get(0).plus(columns.get(1));
+            case "subtraction":
+                return columns.get(0).minus(columns.get(1));
+            case "multiplication":
+                return columns.get(0).multiply(columns.get(1));
+            case "division":
+                return divide(columns.get(0), columns.get(1));
+            case "concat":
+                return concat(columns.get(0), columns.get(1));
+            case "levenshtein":
+                return levenshtein(columns.get(0), columns.get(1));
+            case "trim":
+                return trim(columns.get(0), TRIMMED);
+            case "ltrim":
+                return ltrim(columns.get(0), WHITESPACES);
+            case "rtrim":
+                return rtrim(columns.get(0), WHITESPACES);
+            case "ucase":
+                return upper(columns.get(0));
+            case "lcase":
+                return lower(columns.get(0));
+            case "len":
+                return length(columns.get(0));
+            case "substr":
+                return substr(columns.get(0), parameters.get(1), parameters.get(2));
+            case "replace":
+                return regexp_replace(columns.get(0), columns.get(1), coalesce(columns.get(2), lit("")));
+            case "instr":
+                return position(columns.get(0), parameters.get(1), parameters.get(2), parameters.get(3));
+            case "between":
+                return when(columns.get(0).isNull().or(columns.get(1).isNull()).or(columns.get(2).isNull()), lit(null))
+                        .otherwise(columns.get(0).geq(columns.get(1)).and(columns.get(0).leq(columns.get(2))));
+            case "isNull":
+                return columns.get(0).isNull();
+            case "and":
+                return columns.get(0).and(columns.get(1));
+            case "or":
+                return columns.get(0).or(columns.get(1));
+            case "xor":
+                return columns.get(0).notEqual(columns.get(1));
+            case "not":
+                return not(columns.get(0));
+            case "plus":
+                return columns.get(0);
+            case "minus":
+                return negate(columns.get(0));
+            case "ifThenElse":
+                return when(columns.get(0), columns.get(1)).when(not(columns.get(0)), columns.get(2));
+            case "nvl":
+                return coalesce(columns.get(0), columns.get(1));
+            default:
+                // Comparisons, memberships and patterns are compiled by the engine when they can be translated.
+                return null;
+        }
+    }
+
+    /**
+     * Natural logarithm. Spark returns null for zero and negative values where Java returns an infinity or NaN.
+     */
+    private static Column ln(Column operand) {
+        return when(operand.lt(0), lit(Double.NaN))
+                .when(operand.equalTo(0), lit(Double.NEGATIVE_INFINITY))
+                .otherwise(log(operand));
+    }
+
+    private static Column logarithm(Column operand, Column base) {
+        return when(operand.isNull().or(base.isNull()), lit(null))
+                .when(operand.leq(0), raise_error(lit("operand must be positive")))
+                .when(base.lt(1), raise_error(lit("base must be greater or equal than 1")))
+                .otherwise(divide(log(operand), log(base)));
+    }
+
+    private static Column mod(Column left, Column right) {
+        return when(right.equalTo(0), left)
+                .otherwise(left.mod(right).multiply(when(right.lt(0), -1D).otherwise(1D)));
+    }
+
+    /**
+     * Rounds or truncates a number to a constant number of decimals.
+     */
+    private static Column decimals(String name, Column operand, ResolvableExpression decimals) {
+        var scale = constant(decimals, 0L);
+        if (scale == null || scale < Integer.MIN_VALUE || scale > Integer.MAX_VALUE) {
+            return null;
+        }
+        if ("round".equals(name)) {
+            return round(operand, scale.intValue());
+        }
+        return when(operand.geq(0), floor(operand, lit(scale.intValue())))
+                .otherwise(ceil(operand, lit(scale.intValue())));
+    }
+
+    private static Column substr(Column operand, ResolvableExpression start, ResolvableExpression length) {
+        // Only valid constant positions behave the same in Spark and Java.
+        var startValue = constant(start, 1L);
+        var lengthValue = constant(length, (long) Integer.MAX_VALUE);
+        if (startValue == null || lengthValue == null || startValue < 0 || lengthValue < 0
+                || startValue > Integer.MAX_VALUE || lengthValue > Integer.MAX_VALUE) {
+            return null;
+        }
+        return operand.substr(lit(startValue.intValue()), lit(lengthValue.intValue()));
+    }
+
+    private static Column position(Column operand, ResolvableExpression pattern, ResolvableExpression start,
+                                   ResolvableExpression occurrence) {
+        if (!(pattern instanceof ConstantExpression) || !String.class.equals(pattern.getType())) {
+            return null;
+        }
+        // Only the first occurrence from the start of the string is found by Spark.
+        var startValue = constant(start, 0L);
+        var occurrenceValue = constant(occurrence, 1L);
+        if (startValue == null || startValue != 0 || occurrenceValue == null || occurrenceValue != 1) {
+            return null;
+        }
+        return instr(operand, (String) pattern.resolve(Map.of()));
+    }
+
+    /**
+     * Returns the value of a constant integer expression, the default value if the constant is null, or null if the
+     * expression is not a constant integer.
+     */
+    private static Long constant(ResolvableExpression expression, Long defaultValue) {
+        if (!(expression instanceof ConstantExpression)) {
+            return null;
+        }
+        var value = expression.resolve(Map.of());
+        if (value == null) {
+            return defaultValue;
+        }
+        return value instanceof Long ? (Long) value : null;
+    }
+}
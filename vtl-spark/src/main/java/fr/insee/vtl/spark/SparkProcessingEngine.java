@@ -11,6 +11,7 @@ import org.apache.spark.sql.expressions.WindowSpec;
 import scala.collection.JavaConverters;
 import scala.collection.Seq;
 
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -182,8 +183,11 @@ public class SparkProcessingEngine implements ProcessingEngine {
             aliasesToName.put(alias, name);
         }
 
-        // First pass with interpreted spark expressions
-        Dataset<Row> interpreted = executeCalcInterpreted(ds, renamedExpressionString);
+        // First pass with the expressions translated to spark columns
+        Dataset<Row> translated = executeCalcTranslated(ds, renamedExpressions);
+
+        // Second pass with interpreted spark expressions
+        Dataset<Row> interpreted = executeCalcInterpreted(translated, renamedExpressionString);
 
         // Execute the rest using the resolvable expressions
         Dataset<Row> evaluated = executeCalcEvaluated(interpreted, renamedExpressions);
@@ -221,8 +225,23 @@ public class SparkProcessingEngine implements ProcessingEngine {
         return interpreted;
     }
 
+    private Dataset<Row> executeCalcTranslated(Dataset<Row> result, Map<String, ResolvableExpression> expressions) {
+        for (var name : expressions.keySet()) {
+            var column = SparkExpressionTranslator.translate(expressions.get(name));
+            if (column.isPresent()) {
+                result = result.withColumn(name, column.get());
+            }
+        }
+        return result;
+    }
+
     private Dataset<Row> executeCalcInterpreted(Dataset<Row> result, Map<String, String> expressionStrings) {
+        var columnNames = Set.of(result.columns());
         for (String name : expressionStrings.keySet()) {
+            // Ignore the columns that were translated.
+            if (columnNames.contains(name)) {
+                continue;
+            }
             try {
                 String expression = expressionStrings.get(name);
                 result = result.withColumn(name, expr(expression));
@@ -237,6 +256,12 @@ public class SparkProcessingEngine implements ProcessingEngine {
         SparkDataset dataset = asSparkDataset(expression);
 
         Dataset<Row> ds = dataset.getSparkDataset();
+        // A translated filter is visible to the optimizer and can be pushed down to the source.
+        var column = SparkExpressionTranslator.translate(filter);
+        if (column.isPresent()) {
+            Dataset<Row> result = ds.filter(column.get());
+            return new SparkDatasetExpression(new SparkDataset(result, getRoleMap(dataset)), expression);
+        }
         try {
             Dataset<Row> result = ds.filter(filterText);
             return new SparkDatasetExpression(new SparkDataset(result, getRoleMap(dataset)), expression);
@@ -736,8 +761,14 @@ public class SparkProcessingEngine implements ProcessingEngine {
 
         @Override
         public ProcessingEngine getProcessingEngine(ScriptEngine engine) {
-            // Try to find the session in the script engine.
-            var session = engine.get(SPARK_SESSION);
+            return getProcessingEngine(engine, engine.getContext());
+        }
+
+        @Override
+        public ProcessingEngine getProcessingEngine(ScriptEngine engine, ScriptContext context) {
+            // Try to find the session in the context, then in the script engine.
+            var session = Optional.ofNullable(context.getAttribute(SPARK_SESSION))
+                    .orElseGet(() -> engine.get(SPARK_SESSION));
             if (session != null) {
                 if (session instanceof SparkSession) {
                     return new SparkProcessingEngine((SparkSession) session);
@@ -34,7 +34,7 @@ class SparkRowMap implements Map<String, Object> {
 
     @Override
     public boolean containsKey(Object key) {
-        return row.fieldIndex((String) key) > -1;
+        return row.schema().getFieldIndex((String) key).isDefined();
     }
 
     @Override
@@ -4,6 +4,7 @@ import fr.insee.vtl.engine.VtlScriptEngine;
 import fr.insee.vtl.model.Dataset;
 import fr.insee.vtl.model.InMemoryDataset;
 import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.spark.SparkDataset;
 import org.apache.spark.sql.SparkSession;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +14,7 @@ import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -77,4 +79,69 @@ public class CalcTest {
         );
 
     }
+
+    @Test
+    public void testCalcTranslated() throws ScriptException {
+        var nulls = new InMemoryDataset(
+                List.of(
+                        List.of("a", " ab\t", 4L, 2.25D, true),
+                        List.of("b", "bca ", -3L, -0.75D, false),
+                        Arrays.asList("c", null, null, null, null)
+                ),
+                List.of(
+                        new Structured.Component("id", String.class, Dataset.Role.IDENTIFIER),
+                        new Structured.Component("s", String.class, Dataset.Role.MEASURE),
+                        new Structured.Component("l", Long.class, Dataset.Role.MEASURE),
+                        new Structured.Component("d", Double.class, Dataset.Role.MEASURE),
+                        new Structured.Component("b", Boolean.class, Dataset.Role.MEASURE)
+                )
+        );
+        var script = "ds := ds1[calc " +
+                "add := l + d, div := l / 0, md := mod(l, -2), pw := power(l, 2), " +
+                "c := ceil(d), f := floor(d), ab := abs(l), rd := round(d, 1), tr := trunc(d, 1), " +
+                "e := exp(d), lnd := ln(d), lg := log(abs(l) + 1, 2), sq := sqrt(abs(d)), " +
+                "up := upper(s), lo := lower(s), tm := trim(s), lt := ltrim(s), rt := rtrim(s), " +
+                "len := length(s), sb := substr(s, 2, 2), rp := replace(s, \"a\", \"o\"), " +
+                "ins := instr(s, \"a\"), mc := match_characters(s, \"[a-z ]*\"), lev := levenshtein(s, \"abc\"), " +
+                "cc := s || \"x\", bt := between(l, 1, 10), nl := isnull(s), " +
+                "an := b and l > 0, o := b or d < 0, x := b xor true, n := not b, " +
+                "iff := if b then l else 0, nv := nvl(s, \"none\"), inn := l in {1, 4}, nin := s not_in {\"a\"}, " +
+                "cs := cast(l, string), cd := cast(l, number), cb := cast(d, boolean)];";
+
+        ScriptEngine memory = new ScriptEngineManager().getEngineByExtension("vtl");
+        memory.getContext().setAttribute("ds1", nulls, ScriptContext.ENGINE_SCOPE);
+        memory.eval(script);
+        var expected = (Dataset) memory.getContext().getAttribute("ds");
+
+        engine.getContext().setAttribute("ds1", nulls, ScriptContext.ENGINE_SCOPE);
+        engine.eval(script);
+        var ds = (SparkDataset) engine.getContext().getAttribute("ds");
+
+        assertThat(ds.getDataAsMap()).containsExactlyInAnyOrderElementsOf(expected.getDataAsMap());
+        assertThat(ds.getDataStructure()).isEqualTo(expected.getDataStructure());
+        // All the expressions are evaluated by Spark.
+        assertThat(ds.getSparkDataset().queryExecution().executedPlan().toString()).doesNotContain("UDF");
+    }
+
+    public static Long twice(Long value) {
+        return value == null ? null : value * 2;
+    }
+
+    @Test
+    public void testCalcRegisteredMethod() throws ScriptException, NoSuchMethodException {
+        ((VtlScriptEngine) engine).registerMethod("twice", CalcTest.class.getMethod("twice", Long.class));
+        engine.getContext().setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[calc twice := twice(age), inc := age + 1];");
+
+        var ds = (SparkDataset) engine.getContext().getAttribute("ds");
+        assertThat(ds.getDataAsMap()).containsExactlyInAnyOrder(
+                Map.of("name", "Hadrien", "age", 10L, "weight", 11L, "twice", 20L, "inc", 11L),
+                Map.of("name", "Nico", "age", 11L, "weight", 10L, "twice", 22L, "inc", 12L),
+                Map.of("name", "Franck", "age", 12L, "weight", 9L, "twice", 24L, "inc", 13L)
+        );
+        // Only the registered method is a user defined function.
+        assertThat(ds.getSparkDataset().queryExecution().analyzed().toString())
+                .containsOnlyOnce("UDF");
+    }
 }
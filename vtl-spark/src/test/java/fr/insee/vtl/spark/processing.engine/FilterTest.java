@@ -4,15 +4,19 @@ import fr.insee.vtl.engine.VtlScriptEngine;
 import fr.insee.vtl.model.Dataset;
 import fr.insee.vtl.model.InMemoryDataset;
 import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.spark.SparkDataset;
+import org.apache.spark.sql.SaveMode;
 import org.apache.spark.sql.SparkSession;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -75,4 +79,37 @@ public class FilterTest {
 
 
     }
+
+    @Test
+    public void testFilterPushdown(@TempDir Path tmpDirectory) throws ScriptException {
+        new SparkDataset(dataset, Map.of("name", Dataset.Role.IDENTIFIER), spark).getSparkDataset()
+                .write().mode(SaveMode.Overwrite).parquet(tmpDirectory.toString());
+        var parquet = new SparkDataset(spark.read().parquet(tmpDirectory.toString()));
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", parquet, ScriptContext.ENGINE_SCOPE);
+
+        // Neither filter is valid Spark SQL.
+        engine.eval("ds := ds1[filter age in {10, 11} and weight <> 11];" +
+                "ds2 := ds1[filter match_characters(name, \"F.*\") or isnull(name)];");
+
+        var ds = (SparkDataset) engine.getContext().getAttribute("ds");
+        assertThat(ds.getDataAsMap()).containsExactly(
+                Map.of("name", "Nico", "age", 11L, "weight", 10L)
+        );
+        var plan = ds.getSparkDataset().queryExecution().executedPlan().toString();
+        assertThat(plan)
+                .contains("PushedFilters:")
+                .contains("In(age, [10,11])")
+                .contains("Not(EqualTo(weight,11))")
+                .doesNotContain("SparkFilterFunction");
+
+        var ds2 = (SparkDataset) engine.getContext().getAttribute("ds2");
+        assertThat(ds2.getDataAsMap()).containsExactly(
+                Map.of("name", "Franck", "age", 12L, "weight", 9L)
+        );
+        assertThat(ds2.getSparkDataset().queryExecution().optimizedPlan().toString())
+                .contains("RLIKE")
+                .doesNotContain("SparkFilterFunction");
+    }
 }